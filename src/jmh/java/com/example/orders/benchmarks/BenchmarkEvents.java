@@ -0,0 +1,86 @@
+package com.example.orders.benchmarks;
+
+import com.example.orders.events.Event;
+import com.example.orders.events.OrderCancelledEvent;
+import com.example.orders.events.OrderCreatedEvent;
+import com.example.orders.events.PaymentReceivedEvent;
+import com.example.orders.events.ShippingScheduledEvent;
+import com.example.orders.model.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+final class BenchmarkEvents {
+    static final Instant T0 = Instant.parse("2025-07-29T10:00:00Z");
+
+    private static long nextEventId;
+
+    private BenchmarkEvents() {}
+
+    static String line(String eventType) {
+        switch (eventType) {
+            case "OrderCreated":
+                return "{\"eventId\":\"e1\",\"timestamp\":\"2025-07-29T10:00:00Z\",\"eventType\":\"OrderCreated\",\"orderId\":\"ORD001\","
+                        + "\"customerId\":\"CUST001\",\"items\":[{\"itemId\":\"P001\",\"qty\":2},{\"itemId\":\"P002\",\"qty\":1}],\"totalAmount\":100.00}";
+            case "PaymentReceived":
+                return "{\"eventId\":\"e2\",\"timestamp\":\"2025-07-29T10:01:00Z\",\"eventType\":\"PaymentReceived\",\"orderId\":\"ORD001\",\"amountPaid\":60.00}";
+            case "ShippingScheduled":
+                return "{\"eventId\":\"e4\",\"timestamp\":\"2025-07-29T10:03:00Z\",\"eventType\":\"ShippingScheduled\",\"orderId\":\"ORD001\",\"shippingDate\":\"2025-07-30\"}";
+            case "OrderCancelled":
+                return "{\"eventId\":\"e6\",\"timestamp\":\"2025-07-29T10:05:00Z\",\"eventType\":\"OrderCancelled\",\"orderId\":\"ORD002\",\"reason\":\"Customer requested cancellation\"}";
+            default:
+                throw new IllegalArgumentException("Unknown eventType: " + eventType);
+        }
+    }
+
+    static OrderCreatedEvent created(String orderId, String customerId) {
+        OrderCreatedEvent e = base(new OrderCreatedEvent(), "OrderCreated", orderId);
+        e.setCustomerId(customerId);
+        e.setItems(Arrays.asList(new OrderItem("P001", 2), new OrderItem("P002", 1)));
+        e.setTotalAmount(new BigDecimal("100.00"));
+        return e;
+    }
+
+    static PaymentReceivedEvent payment(String orderId, String amount) {
+        PaymentReceivedEvent e = base(new PaymentReceivedEvent(), "PaymentReceived", orderId);
+        e.setAmountPaid(new BigDecimal(amount));
+        return e;
+    }
+
+    static ShippingScheduledEvent shipped(String orderId) {
+        ShippingScheduledEvent e = base(new ShippingScheduledEvent(), "ShippingScheduled", orderId);
+        e.setShippingDate(LocalDate.of(2025, 7, 30));
+        return e;
+    }
+
+    static OrderCancelledEvent cancelled(String orderId) {
+        OrderCancelledEvent e = base(new OrderCancelledEvent(), "OrderCancelled", orderId);
+        e.setReason("Customer requested cancellation");
+        return e;
+    }
+
+    /**
+     * Realistic lifecycles: most orders are paid in one or two steps and shipped, one in five is cancelled.
+     */
+    static Event[] lifecycle(int orderIndex) {
+        String orderId = "ORD" + orderIndex;
+        String customerId = "CUST" + (orderIndex % 10_000);
+        if (orderIndex % 5 == 0) {
+            return new Event[] {created(orderId, customerId), payment(orderId, "40.00"), cancelled(orderId)};
+        }
+        if (orderIndex % 2 == 0) {
+            return new Event[] {created(orderId, customerId), payment(orderId, "100.00"), shipped(orderId)};
+        }
+        return new Event[] {created(orderId, customerId), payment(orderId, "60.00"), payment(orderId, "100.00"), shipped(orderId)};
+    }
+
+    private static <E extends Event> E base(E event, String eventType, String orderId) {
+        event.setEventId("e" + nextEventId++);
+        event.setTimestamp(T0);
+        event.setEventType(eventType);
+        event.setOrderId(orderId);
+        return event;
+    }
+}
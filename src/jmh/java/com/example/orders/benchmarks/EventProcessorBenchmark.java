@@ -0,0 +1,61 @@
+package com.example.orders.benchmarks;
+
+import com.example.orders.events.Event;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+
+/**
+ * Processes complete order lifecycles (create, pay, ship or cancel) against an in-memory
+ * repository. One operation is one lifecycle of three or four events.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventProcessorBenchmark {
+
+    @Param({"100000"})
+    public int orders;
+
+    private Event[][] lifecycles;
+    private EventProcessor processor;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        lifecycles = new Event[orders][];
+        for (int i = 0; i < orders; i++) {
+            lifecycles[i] = BenchmarkEvents.lifecycle(i);
+        }
+        reset();
+    }
+
+    @Benchmark
+    public void processLifecycle() {
+        if (next == orders) {
+            // Replaying the same ids would only measure the duplicate-creation path
+            reset();
+        }
+        for (Event event : lifecycles[next++]) {
+            processor.process(event);
+        }
+    }
+
+    private void reset() {
+        processor = new EventProcessor(new OrderRepository(), Collections.emptyList());
+        next = 0;
+    }
+}
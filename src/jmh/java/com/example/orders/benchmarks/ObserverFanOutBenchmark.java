@@ -0,0 +1,84 @@
+package com.example.orders.benchmarks;
+
+import com.example.orders.events.Event;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+import com.example.orders.observers.OrderObserver;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cost of notifying a growing number of observers from the processing thread. Each operation
+ * processes a partial payment against an existing order, which fires onEventProcessed on every
+ * observer.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObserverFanOutBenchmark {
+
+    @Param({"0", "1", "4", "16"})
+    public int observers;
+
+    private OrderRepository repository;
+    private EventProcessor processor;
+    private Event payment;
+    private int processed;
+
+    @Setup
+    public void setUp(Blackhole blackhole) {
+        List<OrderObserver> list = new ArrayList<>();
+        for (int i = 0; i < observers; i++) {
+            list.add(new BlackholeObserver(blackhole));
+        }
+        repository = new OrderRepository();
+        processor = new EventProcessor(repository, list);
+        processor.process(BenchmarkEvents.created("ORD1", "CUST1"));
+        payment = BenchmarkEvents.payment("ORD1", "10.00");
+    }
+
+    @Benchmark
+    public void processWithObservers() {
+        if ((++processed & 1023) == 0) {
+            // Start over with a fresh order so its history does not grow for the whole run
+            repository.save(new Order("ORD1", "CUST1", null, new BigDecimal("100.00")));
+        }
+        processor.process(payment);
+    }
+
+    static final class BlackholeObserver implements OrderObserver {
+        private final Blackhole blackhole;
+
+        BlackholeObserver(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public void onEventProcessed(Event event, Order order) {
+            blackhole.consume(event);
+            blackhole.consume(order);
+        }
+
+        @Override
+        public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+            blackhole.consume(newStatus);
+        }
+    }
+}
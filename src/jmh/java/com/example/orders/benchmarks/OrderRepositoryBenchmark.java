@@ -0,0 +1,69 @@
+package com.example.orders.benchmarks;
+
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderItem;
+import com.example.orders.repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.Optional;
+import java.util.SplittableRandom;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class OrderRepositoryBenchmark {
+
+    @Param({"1000000"})
+    public int orders;
+
+    private OrderRepository repository;
+    private String[] ids;
+    private String[] missingIds;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        final SplittableRandom random = new SplittableRandom(42);
+    }
+
+    @Setup
+    public void setUp() {
+        repository = new OrderRepository();
+        ids = new String[orders];
+        missingIds = new String[orders];
+        for (int i = 0; i < orders; i++) {
+            ids[i] = "ORD" + i;
+            missingIds[i] = "MISSING" + i;
+            repository.save(new Order(ids[i], "CUST" + (i % 10_000),
+                    Collections.singletonList(new OrderItem("P001", 1)), new BigDecimal("100.00")));
+        }
+    }
+
+    @Benchmark
+    public Optional<Order> findByIdHit(Cursor cursor) {
+        return repository.findById(ids[cursor.random.nextInt(orders)]);
+    }
+
+    @Benchmark
+    public boolean existsByIdMiss(Cursor cursor) {
+        return repository.existsById(missingIds[cursor.random.nextInt(orders)]);
+    }
+
+    @Benchmark
+    public Order saveExisting(Cursor cursor) {
+        Order order = repository.findById(ids[cursor.random.nextInt(orders)]).get();
+        return repository.save(order);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.orders.benchmarks;
+
+import com.example.orders.events.Event;
+import com.example.orders.ingestion.EventIngestor;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParseEventBenchmark {
+
+    @Param({"OrderCreated", "PaymentReceived", "ShippingScheduled", "OrderCancelled"})
+    public String eventType;
+
+    private EventIngestor ingestor;
+    private String line;
+    private byte[] bytes;
+
+    @Setup
+    public void setUp() {
+        ingestor = new EventIngestor(new EventProcessor(new OrderRepository(), Collections.emptyList()));
+        line = BenchmarkEvents.line(eventType);
+        bytes = line.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Event parseString() throws Exception {
+        return ingestor.parseEvent(line);
+    }
+
+    @Benchmark
+    public Event parseBytes() throws Exception {
+        return ingestor.parseEvent(bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.orders.benchmarks;
+
+import com.example.orders.events.Event;
+import com.example.orders.ingestion.BinaryEventReader;
+import com.example.orders.ingestion.EventIngestor;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodes the same archived lifecycles from NDJSON and from the binary event format, without
+ * processing them. One operation is one pass over the whole file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReplayFormatBenchmark {
+
+    @Param({"100000"})
+    public int orders;
+
+    private EventIngestor ingestor;
+    private Path json;
+    private Path binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        ingestor = new EventIngestor(new EventProcessor(new OrderRepository(), Collections.emptyList()));
+        ObjectMapper mapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        json = Files.createTempFile("replay-", ".jsonl");
+        binary = Files.createTempFile("replay-", ".bin");
+        try (BufferedWriter out = Files.newBufferedWriter(json)) {
+            for (int i = 0; i < orders; i++) {
+                for (Event event : BenchmarkEvents.lifecycle(i)) {
+                    out.write(mapper.writeValueAsString(event));
+                    out.newLine();
+                }
+            }
+        }
+        ingestor.convertToBinary(json.toString(), binary.toString());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(json);
+        Files.deleteIfExists(binary);
+    }
+
+    @Benchmark
+    public void json(Blackhole bh) throws Exception {
+        try (BufferedReader reader = Files.newBufferedReader(json)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                bh.consume(ingestor.parseEvent(line));
+            }
+        }
+    }
+
+    @Benchmark
+    public void binary(Blackhole bh) throws Exception {
+        try (BinaryEventReader reader = new BinaryEventReader(binary)) {
+            Event event;
+            while ((event = reader.next()) != null) {
+                bh.consume(event);
+            }
+        }
+    }
+}
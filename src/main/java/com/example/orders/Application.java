@@ -1,25 +1,64 @@
 package com.example.orders;
 
 import com.example.orders.ingestion.EventIngestor;
+import com.example.orders.observers.AlertObserver;
+import com.example.orders.observers.LoggerObserver;
+import com.example.orders.observers.OrderAggregates;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.core.env.Environment;
 
+/**
+ * Runs the pipeline inside a Spring Boot context. {@link CliLauncher} runs the same pipeline
+ * without one, for batch jobs where context startup dominates.
+ */
 @SpringBootApplication
-public class Application implements CommandLineRunner {
+public class Application implements CommandLineRunner, DisposableBean {
 
     @Autowired
     private EventIngestor eventIngestor;
 
+    @Autowired
+    private EventProcessor eventProcessor;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private OrderAggregates aggregates;
+
+    @Autowired
+    private LoggerObserver loggerObserver;
+
+    @Autowired
+    private AlertObserver alertObserver;
+
+    @Autowired
+    private Environment env;
+
+    private volatile PipelineRunner runner;
+
     public static void main(String[] args) {
         SpringApplication.run(Application.class, args);
     }
 
     @Override
     public void run(String... args) throws Exception {
-        // Default file if not provided via args
-        String path = args.length > 0 ? args[0] : "src/main/resources/events.jsonl";
-        eventIngestor.ingest(path);
+        StartupTimer.ready();
+        runner = new PipelineRunner(env, eventIngestor, eventProcessor, orderRepository, aggregates,
+                loggerObserver, alertObserver);
+        runner.run(args);
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (runner != null) {
+            runner.close();
+        }
     }
 }
@@ -0,0 +1,145 @@
+package com.example.orders;
+
+import ch.qos.logback.classic.Level;
+import com.example.orders.ingestion.EventIngestor;
+import com.example.orders.observers.AlertObserver;
+import com.example.orders.observers.LoggerObserver;
+import com.example.orders.observers.OrderAggregates;
+import com.example.orders.observers.OrderObserver;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import com.example.orders.repository.RepositoryConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.PropertySource;
+import org.springframework.core.env.SimpleCommandLinePropertySource;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.core.io.support.ResourcePropertySource;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the pipeline without a Spring application context: the same components {@link Application}
+ * gets from component scanning are created here directly, so a batch job skips classpath
+ * scanning, auto-configuration and bean post-processing.
+ *
+ * <p>Properties resolve as they do under Spring Boot for the settings this application uses:
+ * {@code --name=value} arguments, then system properties, then environment variables, then
+ * {@code application.properties} on the classpath. {@code logging.level.*} settings are applied
+ * to Logback directly.
+ */
+public class CliLauncher implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(CliLauncher.class);
+
+    private final OrderRepository repository;
+    private final AlertObserver alertObserver = new AlertObserver();
+    private final LoggerObserver loggerObserver = new LoggerObserver();
+    private final OrderAggregates aggregates;
+    private final EventProcessor processor;
+    private final PipelineRunner runner;
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile long readyMillis = -1;
+
+    CliLauncher(ConfigurableEnvironment env) throws IOException {
+        this.repository = RepositoryConfiguration.create(env);
+        this.aggregates = new OrderAggregates(repository);
+        // Same order as the observer beans Spring would inject
+        List<OrderObserver> observers = Arrays.asList(alertObserver, loggerObserver, aggregates);
+        this.processor = new EventProcessor(repository, observers);
+        this.runner = new PipelineRunner(env, new EventIngestor(processor), processor, repository, aggregates,
+                loggerObserver, alertObserver);
+    }
+
+    public static void main(String[] args) throws Exception {
+        ConfigurableEnvironment env = environment(args);
+        applyLogLevels(env);
+        CliLauncher launcher = new CliLauncher(env);
+        // Follow and socket modes run until the JVM is asked to stop, as under Spring Boot
+        Runtime.getRuntime().addShutdownHook(new Thread(launcher::closeQuietly, "cli-shutdown"));
+        try {
+            launcher.run(args);
+        } finally {
+            launcher.close();
+        }
+    }
+
+    void run(String... args) throws Exception {
+        readyMillis = StartupTimer.ready();
+        runner.run(args);
+    }
+
+    OrderRepository getRepository() {
+        return repository;
+    }
+
+    /**
+     * Milliseconds from JVM start until the pipeline started running, or -1 before then.
+     */
+    long getReadyMillis() {
+        return readyMillis;
+    }
+
+    /**
+     * Shuts down in the order the Spring context would: the runner, then the processor, then the
+     * observers and the repository.
+     */
+    @Override
+    public void close() throws Exception {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            runner.close();
+            processor.close();
+            loggerObserver.close();
+            alertObserver.close();
+        } finally {
+            repository.close();
+        }
+    }
+
+    private void closeQuietly() {
+        try {
+            close();
+        } catch (Exception ex) {
+            log.error("Shutdown failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    static ConfigurableEnvironment environment(String... args) throws IOException {
+        StandardEnvironment env = new StandardEnvironment();
+        env.getPropertySources().addFirst(new SimpleCommandLinePropertySource(args));
+        env.getPropertySources().addLast(new ResourcePropertySource("classpath:application.properties"));
+        return env;
+    }
+
+    private static void applyLogLevels(ConfigurableEnvironment env) {
+        // Without a configuration file Logback logs everything at DEBUG; Spring Boot starts from INFO
+        org.slf4j.Logger root = LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME);
+        if (root instanceof ch.qos.logback.classic.Logger) {
+            ((ch.qos.logback.classic.Logger) root).setLevel(Level.INFO);
+        }
+        for (PropertySource<?> source : env.getPropertySources()) {
+            if (!(source instanceof EnumerablePropertySource)) {
+                continue;
+            }
+            for (String name : ((EnumerablePropertySource<?>) source).getPropertyNames()) {
+                if (!name.startsWith("logging.level.")) {
+                    continue;
+                }
+                String loggerName = name.substring("logging.level.".length());
+                org.slf4j.Logger target = LoggerFactory.getLogger(
+                        "root".equals(loggerName) ? org.slf4j.Logger.ROOT_LOGGER_NAME : loggerName);
+                if (target instanceof ch.qos.logback.classic.Logger) {
+                    // The highest-precedence value wins, whichever source is being walked
+                    ((ch.qos.logback.classic.Logger) target).setLevel(Level.toLevel(env.getProperty(name)));
+                }
+            }
+        }
+    }
+}
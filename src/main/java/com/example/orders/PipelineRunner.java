@@ -0,0 +1,315 @@
+package com.example.orders;
+
+import com.example.orders.generator.EventGenerator;
+import com.example.orders.generator.GeneratorOptions;
+import com.example.orders.ingestion.CheckpointOptions;
+import com.example.orders.ingestion.DeadLetterOptions;
+import com.example.orders.ingestion.DeadLetterWriter;
+import com.example.orders.ingestion.DecompressionOptions;
+import com.example.orders.ingestion.EventIngestor;
+import com.example.orders.ingestion.EventSocketServer;
+import com.example.orders.ingestion.EventTailer;
+import com.example.orders.ingestion.IngestCheckpoints;
+import com.example.orders.ingestion.ParallelIngestOptions;
+import com.example.orders.ingestion.RejectReason;
+import com.example.orders.ingestion.SocketIngestOptions;
+import com.example.orders.ingestion.TailOptions;
+import com.example.orders.metrics.PipelineMetrics;
+import com.example.orders.observers.AlertObserver;
+import com.example.orders.observers.AlertOptions;
+import com.example.orders.observers.AsyncObserverOptions;
+import com.example.orders.observers.LoggerObserver;
+import com.example.orders.observers.LoggerObserverOptions;
+import com.example.orders.observers.OrderAggregates;
+import com.example.orders.observers.OverflowPolicy;
+import com.example.orders.processing.DeduplicationOptions;
+import com.example.orders.processing.EventDeduplicator;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import com.example.orders.repository.PersistentOrderRepository;
+import com.example.orders.repository.TieredOrderStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.env.PropertyResolver;
+
+import java.io.Flushable;
+import java.nio.file.Paths;
+
+/**
+ * Configures the pipeline from {@code app.*} properties and runs one ingestion mode. Shared by
+ * the Spring Boot {@link Application} and the context-free {@link CliLauncher}, which differ only
+ * in how the components and properties are put together.
+ */
+public class PipelineRunner implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(PipelineRunner.class);
+
+    private final PropertyResolver env;
+    private final EventIngestor eventIngestor;
+    private final EventProcessor eventProcessor;
+    private final OrderRepository orderRepository;
+    private final OrderAggregates aggregates;
+    private final LoggerObserver loggerObserver;
+    private final AlertObserver alertObserver;
+
+    private volatile EventTailer tailer;
+    private volatile EventSocketServer socketServer;
+    private volatile PipelineMetrics metrics;
+    private volatile DeadLetterWriter deadLetters;
+
+    public PipelineRunner(PropertyResolver env, EventIngestor eventIngestor, EventProcessor eventProcessor,
+                          OrderRepository orderRepository, OrderAggregates aggregates, LoggerObserver loggerObserver,
+                          AlertObserver alertObserver) {
+        this.env = env;
+        this.eventIngestor = eventIngestor;
+        this.eventProcessor = eventProcessor;
+        this.orderRepository = orderRepository;
+        this.aggregates = aggregates;
+        this.loggerObserver = loggerObserver;
+        this.alertObserver = alertObserver;
+    }
+
+    /**
+     * Ingests the file named by the first argument that is not a {@code --name=value} property,
+     * or the bundled sample file. Follow and socket modes return only once {@link #close} stops them.
+     */
+    public void run(String... args) throws Exception {
+        // Default file if not provided via args; --name=value arguments are Spring properties
+        String path = "src/main/resources/events.jsonl";
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                path = arg;
+                break;
+            }
+        }
+        String generateTo = env.getProperty("app.generator.output", "");
+        if (!generateTo.isEmpty()) {
+            new EventGenerator(generatorOptions()).generate(Paths.get(generateTo));
+            return;
+        }
+        eventIngestor.setDecompression(decompressionOptions());
+        loggerObserver.configure(loggerObserverOptions());
+        alertObserver.configure(alertOptions());
+        String deadLetterFile = env.getProperty("app.ingestion.dead-letter.file", "");
+        if (!deadLetterFile.isEmpty()) {
+            deadLetters = new DeadLetterWriter(deadLetterOptions(deadLetterFile));
+            eventIngestor.setDeadLetters(deadLetters);
+        }
+        String convertTo = env.getProperty("app.ingestion.convert-to", "");
+        if (!convertTo.isEmpty()) {
+            eventIngestor.convertToBinary(path, convertTo);
+            return;
+        }
+        if (env.getProperty("app.metrics.enabled", Boolean.class, false)) {
+            metrics = new PipelineMetrics();
+            metrics.setRepositorySize(orderRepository::count);
+            metrics.register();
+            eventIngestor.setMetrics(metrics);
+            eventProcessor.setMetrics(metrics);
+            aggregates.register();
+            if (orderRepository.getStore() instanceof TieredOrderStore) {
+                ((TieredOrderStore) orderRepository.getStore()).register();
+            }
+        }
+        if (env.getProperty("app.dedup.enabled", Boolean.class, false)) {
+            eventProcessor.setDeduplicator(new EventDeduplicator(deduplicationOptions()));
+        }
+        if (env.getProperty("app.observers.async.enabled", Boolean.class, false)) {
+            // Pending notifications are flushed when the processor is closed
+            eventProcessor.dispatchObserversAsync(asyncObserverOptions());
+        }
+        if (env.getProperty("app.ingestion.follow.enabled", Boolean.class, false)) {
+            // Runs until the application is stopped; close() ends the tail before shutdown continues
+            tailer = eventIngestor.tail(path, tailOptions(), checkpoints());
+            tailer.run();
+        } else if (env.getProperty("app.ingestion.socket.enabled", Boolean.class, false)) {
+            // Serves until the application is stopped, like follow mode
+            socketServer = eventIngestor.listen(socketOptions());
+            socketServer.run();
+        } else if (env.getProperty("app.ingestion.parallel.enabled", Boolean.class, false)) {
+            if ("mapped".equals(env.getProperty("app.ingestion.parallel.reader", "lines"))) {
+                eventIngestor.ingestMapped(path, parallelOptions());
+            } else {
+                eventIngestor.ingestParallel(path, parallelOptions());
+            }
+        } else {
+            eventIngestor.ingest(path, checkpoints());
+        }
+    }
+
+    /**
+     * Stops follow or socket mode, then logs the run's rejections, metrics and aggregates.
+     */
+    @Override
+    public void close() throws Exception {
+        if (tailer != null) {
+            tailer.stop(5_000);
+        }
+        if (socketServer != null) {
+            socketServer.stop(5_000);
+        }
+        if (eventIngestor.getRejected() > 0) {
+            StringBuilder reasons = new StringBuilder();
+            for (RejectReason reason : RejectReason.values()) {
+                reasons.append(' ').append(reason).append('=').append(eventIngestor.getRejected(reason));
+            }
+            log.info("Rejected {} input lines:{}", eventIngestor.getRejected(), reasons);
+        }
+        if (deadLetters != null) {
+            deadLetters.close();
+            log.info("Wrote {} dead letters to {}", deadLetters.getWritten(), deadLetters.getFile());
+        }
+        if (metrics != null) {
+            log.info("Pipeline metrics: {}", metrics);
+            metrics.unregister();
+            aggregates.unregister();
+            if (orderRepository.getStore() instanceof TieredOrderStore) {
+                ((TieredOrderStore) orderRepository.getStore()).unregister();
+            }
+        }
+        log.info("Order aggregates: {}", aggregates);
+    }
+
+    private IngestCheckpoints checkpoints() {
+        if (!env.getProperty("app.ingestion.checkpoint.enabled", Boolean.class, false)) {
+            return null;
+        }
+        // A restart seeks past events whose orders an in-memory repository has already forgotten
+        if (!(orderRepository instanceof PersistentOrderRepository)) {
+            throw new IllegalArgumentException("app.ingestion.checkpoint.enabled requires app.persistence.enabled, "
+                    + "so that the orders a checkpoint skips past survive the restart");
+        }
+        return new IngestCheckpoints(checkpointOptions(), (Flushable) orderRepository);
+    }
+
+    private TailOptions tailOptions() {
+        TailOptions options = new TailOptions();
+        options.setMinPollMillis(env.getProperty("app.ingestion.follow.min-poll-ms", Long.class,
+                options.getMinPollMillis()));
+        options.setMaxPollMillis(env.getProperty("app.ingestion.follow.max-poll-ms", Long.class,
+                options.getMaxPollMillis()));
+        return options;
+    }
+
+    private SocketIngestOptions socketOptions() {
+        SocketIngestOptions options = new SocketIngestOptions();
+        options.setBindAddress(env.getProperty("app.ingestion.socket.bind-address", options.getBindAddress()));
+        options.setPort(env.getProperty("app.ingestion.socket.port", Integer.class, options.getPort()));
+        options.setShards(env.getProperty("app.ingestion.socket.shards", Integer.class, options.getShards()));
+        options.setQueueDepth(env.getProperty("app.ingestion.socket.queue-depth", Integer.class, options.getQueueDepth()));
+        options.setProcessBatchSize(env.getProperty("app.ingestion.socket.process-batch-size", Integer.class,
+                options.getProcessBatchSize()));
+        options.setMaxInFlightLines(env.getProperty("app.ingestion.socket.max-in-flight-lines", Integer.class,
+                options.getMaxInFlightLines()));
+        options.setReadBufferBytes(env.getProperty("app.ingestion.socket.read-buffer-bytes", Integer.class,
+                options.getReadBufferBytes()));
+        options.setMaxLineBytes(env.getProperty("app.ingestion.socket.max-line-bytes", Integer.class,
+                options.getMaxLineBytes()));
+        return options;
+    }
+
+    private LoggerObserverOptions loggerObserverOptions() {
+        LoggerObserverOptions options = new LoggerObserverOptions();
+        options.setSummaryIntervalMillis(env.getProperty("app.observers.logging.summary-interval-ms", Long.class,
+                options.getSummaryIntervalMillis()));
+        options.setSampleRate(env.getProperty("app.observers.logging.sample-rate", Integer.class, options.getSampleRate()));
+        return options;
+    }
+
+    private AlertOptions alertOptions() {
+        AlertOptions options = new AlertOptions();
+        options.setIntervalMillis(env.getProperty("app.observers.alerts.interval-ms", Long.class,
+                options.getIntervalMillis()));
+        options.setMaxListedOrders(env.getProperty("app.observers.alerts.max-listed-orders", Integer.class,
+                options.getMaxListedOrders()));
+        return options;
+    }
+
+    private DeadLetterOptions deadLetterOptions(String file) {
+        DeadLetterOptions options = new DeadLetterOptions();
+        options.setFile(Paths.get(file));
+        options.setFlushRecords(env.getProperty("app.ingestion.dead-letter.flush-records", Integer.class,
+                options.getFlushRecords()));
+        options.setBufferBytes(env.getProperty("app.ingestion.dead-letter.buffer-bytes", Integer.class,
+                options.getBufferBytes()));
+        return options;
+    }
+
+    private GeneratorOptions generatorOptions() {
+        GeneratorOptions options = new GeneratorOptions();
+        options.setOrders(env.getProperty("app.generator.orders", Long.class, options.getOrders()));
+        options.setSeed(env.getProperty("app.generator.seed", Long.class, options.getSeed()));
+        options.setShippedRatio(env.getProperty("app.generator.shipped-ratio", Double.class, options.getShippedRatio()));
+        options.setCancelledRatio(env.getProperty("app.generator.cancelled-ratio", Double.class,
+                options.getCancelledRatio()));
+        options.setPartialPaymentRatio(env.getProperty("app.generator.partial-payment-ratio", Double.class,
+                options.getPartialPaymentRatio()));
+        options.setOutOfOrderRate(env.getProperty("app.generator.out-of-order-rate", Double.class,
+                options.getOutOfOrderRate()));
+        options.setDuplicateRate(env.getProperty("app.generator.duplicate-rate", Double.class,
+                options.getDuplicateRate()));
+        options.setCustomers(env.getProperty("app.generator.customers", Integer.class, options.getCustomers()));
+        options.setCustomerSkew(env.getProperty("app.generator.customer-skew", Double.class, options.getCustomerSkew()));
+        options.setItems(env.getProperty("app.generator.items", Integer.class, options.getItems()));
+        options.setItemSkew(env.getProperty("app.generator.item-skew", Double.class, options.getItemSkew()));
+        options.setMaxItemsPerOrder(env.getProperty("app.generator.max-items-per-order", Integer.class,
+                options.getMaxItemsPerOrder()));
+        options.setThreads(env.getProperty("app.generator.threads", Integer.class, options.getThreads()));
+        options.setChunkOrders(env.getProperty("app.generator.chunk-orders", Integer.class, options.getChunkOrders()));
+        return options;
+    }
+
+    private DecompressionOptions decompressionOptions() {
+        DecompressionOptions options = new DecompressionOptions();
+        options.setThreads(env.getProperty("app.ingestion.gzip.threads", Integer.class, options.getThreads()));
+        options.setQueueChunks(env.getProperty("app.ingestion.gzip.queue-chunks", Integer.class,
+                options.getQueueChunks()));
+        options.setChunkBytes(env.getProperty("app.ingestion.gzip.chunk-bytes", Integer.class, options.getChunkBytes()));
+        return options;
+    }
+
+    private AsyncObserverOptions asyncObserverOptions() {
+        AsyncObserverOptions options = new AsyncObserverOptions();
+        options.setRingSize(env.getProperty("app.observers.async.ring-size", Integer.class, options.getRingSize()));
+        options.setBatchSize(env.getProperty("app.observers.async.batch-size", Integer.class, options.getBatchSize()));
+        options.setOverflowPolicy(env.getProperty("app.observers.async.overflow-policy", OverflowPolicy.class,
+                options.getOverflowPolicy()));
+        options.setSampleRate(env.getProperty("app.observers.async.sample-rate", Integer.class, options.getSampleRate()));
+        return options;
+    }
+
+    private DeduplicationOptions deduplicationOptions() {
+        DeduplicationOptions options = new DeduplicationOptions();
+        options.setWindowMillis(env.getProperty("app.dedup.window-ms", Long.class, options.getWindowMillis()));
+        options.setWindowMaxIds(env.getProperty("app.dedup.window-max-ids", Integer.class, options.getWindowMaxIds()));
+        options.setBloomExpectedIds(env.getProperty("app.dedup.bloom-expected-ids", Long.class,
+                options.getBloomExpectedIds()));
+        options.setBloomFalsePositiveRate(env.getProperty("app.dedup.bloom-fpp", Double.class,
+                options.getBloomFalsePositiveRate()));
+        return options;
+    }
+
+    private CheckpointOptions checkpointOptions() {
+        CheckpointOptions options = new CheckpointOptions();
+        options.setDir(Paths.get(env.getProperty("app.ingestion.checkpoint.dir",
+                env.getProperty("app.persistence.dir", "data"))));
+        options.setIntervalEvents(env.getProperty("app.ingestion.checkpoint.interval-events", Long.class,
+                options.getIntervalEvents()));
+        options.setIntervalMillis(env.getProperty("app.ingestion.checkpoint.interval-ms", Long.class,
+                options.getIntervalMillis()));
+        return options;
+    }
+
+    private ParallelIngestOptions parallelOptions() {
+        ParallelIngestOptions options = new ParallelIngestOptions();
+        options.setWorkers(env.getProperty("app.ingestion.parallel.workers", Integer.class, options.getWorkers()));
+        options.setShards(env.getProperty("app.ingestion.parallel.shards", Integer.class, options.getShards()));
+        options.setQueueDepth(env.getProperty("app.ingestion.parallel.queue-depth", Integer.class, options.getQueueDepth()));
+        options.setBatchSize(env.getProperty("app.ingestion.parallel.batch-size", Integer.class, options.getBatchSize()));
+        options.setProcessBatchSize(env.getProperty("app.ingestion.parallel.process-batch-size", Integer.class,
+                options.getProcessBatchSize()));
+        options.setChunkBytes(env.getProperty("app.ingestion.parallel.chunk-bytes", Integer.class, options.getChunkBytes()));
+        options.setMappingWindowBytes(env.getProperty("app.ingestion.parallel.mapping-window-bytes", Long.class,
+                options.getMappingWindowBytes()));
+        return options;
+    }
+}
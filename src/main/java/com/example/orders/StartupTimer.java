@@ -0,0 +1,28 @@
+package com.example.orders;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Logs how long it took from JVM start until the pipeline was built and about to read its first
+ * event, which is the startup cost a batch job pays before doing any work. Each launcher calls it
+ * once, just before running the pipeline.
+ */
+final class StartupTimer {
+    private static final Logger log = LoggerFactory.getLogger(StartupTimer.class);
+
+    private StartupTimer() {}
+
+    /**
+     * Logs and returns the milliseconds since JVM start.
+     */
+    static long ready() {
+        long now = System.currentTimeMillis();
+        // Asked only now so that loading the management classes is not part of what is measured
+        long millis = now - ManagementFactory.getRuntimeMXBean().getStartTime();
+        log.info("Pipeline ready {} ms after JVM start", millis);
+        return millis;
+    }
+}
@@ -1,13 +1,27 @@
 package com.example.orders.events;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonSubTypes;
+import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import java.time.Instant;
 
+// The concrete subclass is picked from the eventType discriminator while the line is being read;
+// a missing or unrecognised eventType yields an UnknownEvent instead of an exception
+@JsonTypeInfo(use = JsonTypeInfo.Id.NAME, include = JsonTypeInfo.As.EXISTING_PROPERTY,
+        property = "eventType", visible = true, defaultImpl = UnknownEvent.class)
+@JsonSubTypes({
+        @JsonSubTypes.Type(value = OrderCreatedEvent.class, name = "OrderCreated"),
+        @JsonSubTypes.Type(value = PaymentReceivedEvent.class, name = "PaymentReceived"),
+        @JsonSubTypes.Type(value = ShippingScheduledEvent.class, name = "ShippingScheduled"),
+        @JsonSubTypes.Type(value = OrderCancelledEvent.class, name = "OrderCancelled")
+})
 @JsonIgnoreProperties(ignoreUnknown = true)
 public abstract class Event {
     private String eventId;
     private Instant timestamp;
     private String eventType;
+    // Every event type targets a single order; kept here so routing does not need to know the subclass
+    private String orderId;
 
     public Event() {}
 
@@ -23,6 +37,10 @@ public abstract class Event {
         return eventType;
     }
 
+    public String getOrderId() {
+        return orderId;
+    }
+
     public void setEventId(String eventId) {
         this.eventId = eventId;
     }
@@ -34,4 +52,8 @@ public abstract class Event {
     public void setEventType(String eventType) {
         this.eventType = eventType;
     }
+
+    public void setOrderId(String orderId) {
+        this.orderId = orderId;
+    }
 }
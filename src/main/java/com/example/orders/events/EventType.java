@@ -4,5 +4,21 @@ public enum EventType {
     OrderCreated,
     PaymentReceived,
     ShippingScheduled,
-    OrderCancelled
+    OrderCancelled;
+
+    private static final EventType[] VALUES = values();
+
+    /**
+     * Looks up a type by its eventType name without throwing or allocating; null if unknown.
+     */
+    public static EventType fromName(String name) {
+        if (name != null) {
+            for (EventType type : VALUES) {
+                if (type.name().equals(name)) {
+                    return type;
+                }
+            }
+        }
+        return null;
+    }
 }
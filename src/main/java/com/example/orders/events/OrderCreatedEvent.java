@@ -8,17 +8,12 @@ import java.util.List;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class OrderCreatedEvent extends Event {
-    private String orderId;
     private String customerId;
     private List<OrderItem> items;
     private BigDecimal totalAmount;
 
     public OrderCreatedEvent() {}
 
-    public String getOrderId() {
-        return orderId;
-    }
-
     public String getCustomerId() {
         return customerId;
     }
@@ -31,10 +26,6 @@ public class OrderCreatedEvent extends Event {
         return totalAmount;
     }
 
-    public void setOrderId(String orderId) {
-        this.orderId = orderId;
-    }
-
     public void setCustomerId(String customerId) {
         this.customerId = customerId;
     }
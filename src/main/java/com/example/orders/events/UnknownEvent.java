@@ -0,0 +1,10 @@
+package com.example.orders.events;
+
+/**
+ * Read in place of a line whose eventType is missing or not a known type, so such lines can be
+ * rejected without an exception. Never processed.
+ */
+public class UnknownEvent extends Event {
+
+    public UnknownEvent() {}
+}
@@ -0,0 +1,369 @@
+package com.example.orders.generator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes synthetic order lifecycles as NDJSON in the input format: an OrderCreated event with
+ * Zipf-distributed customers and items, one or more PaymentReceived events, and a
+ * ShippingScheduled or OrderCancelled event unless the order is left open.
+ *
+ * <p>Orders are generated in chunks of {@code chunkOrders} on a thread pool and written in chunk
+ * order. Each chunk has its own random stream derived from the seed and the chunk number, so
+ * the output depends only on the options, not on the thread count or scheduling. Within a chunk
+ * the events of up to 64 orders interleave, the way concurrent orders would arrive; one order
+ * is created every 10 ms of simulated time starting at 2025-07-29T10:00:00Z.
+ */
+public class EventGenerator {
+    private static final Logger log = LoggerFactory.getLogger(EventGenerator.class);
+
+    static final long START_SECONDS = Instant.parse("2025-07-29T10:00:00Z").getEpochSecond();
+    private static final int ORDERS_PER_SECOND = 100;
+    private static final int INTERLEAVED_ORDERS = 64;
+    // OrderCreated, up to three payments and a terminal event
+    private static final int MAX_EVENTS = 5;
+
+    private static final byte CREATED = 0;
+    private static final byte PAYMENT = 1;
+    private static final byte SHIPPED = 2;
+    private static final byte CANCELLED = 3;
+    private static final String[] CANCEL_REASONS = {
+            "Customer requested cancellation", "Payment declined", "Out of stock", "Duplicate order"};
+
+    private final GeneratorOptions options;
+    private final ZipfSampler customers;
+    private final ZipfSampler items;
+
+    public EventGenerator(GeneratorOptions options) {
+        if (options.getShippedRatio() + options.getCancelledRatio() > 1) {
+            throw new IllegalArgumentException("shippedRatio and cancelledRatio add up to more than 1: "
+                    + options.getShippedRatio() + " + " + options.getCancelledRatio());
+        }
+        this.options = options;
+        this.customers = new ZipfSampler(options.getCustomers(), options.getCustomerSkew());
+        this.items = new ZipfSampler(options.getItems(), options.getItemSkew());
+    }
+
+    /**
+     * Writes the events to {@code file}, replacing its contents, and returns the number of lines
+     * written, duplicates included.
+     */
+    public long generate(Path file) throws IOException, InterruptedException {
+        long started = System.nanoTime();
+        int threads = options.getThreads();
+        long chunks = (options.getOrders() + options.getChunkOrders() - 1) / options.getChunkOrders();
+        AtomicInteger counter = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "event-generator-" + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        // Enough chunks in flight to keep every thread busy while the oldest one is written
+        ArrayDeque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        long next = 0;
+        long lines = 0;
+        long bytes = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (next < chunks || !inFlight.isEmpty()) {
+                while (next < chunks && inFlight.size() < threads * 2) {
+                    long chunk = next++;
+                    inFlight.addLast(pool.submit(() -> generateChunk(chunk)));
+                }
+                Chunk done = inFlight.removeFirst().get();
+                ByteBuffer buffer = ByteBuffer.wrap(done.bytes, 0, done.length);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                lines += done.lines;
+                bytes += done.length;
+            }
+        } catch (ExecutionException ex) {
+            throw new IOException("Event generation failed: " + ex.getCause().getMessage(), ex.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        long elapsedMillis = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        log.info("Generated {} events for {} orders in {} ms to {} ({} MB/s)", lines, options.getOrders(),
+                elapsedMillis, file, bytes * 1000 / elapsedMillis / (1024 * 1024));
+        return lines;
+    }
+
+    private Chunk generateChunk(long index) {
+        SplittableRandom random = new SplittableRandom(mix(options.getSeed() + index * 0x9E3779B97F4A7C15L));
+        long first = index * options.getChunkOrders();
+        long end = Math.min(first + options.getChunkOrders(), options.getOrders());
+        Chunk out = new Chunk((int) Math.min((end - first) * 512, Integer.MAX_VALUE - 16));
+        OrderPlan[] slots = new OrderPlan[INTERLEAVED_ORDERS];
+        for (int i = 0; i < slots.length; i++) {
+            slots[i] = new OrderPlan(options.getMaxItemsPerOrder());
+        }
+        long nextOrder = first;
+        int live = 0;
+        while (live < slots.length && nextOrder < end) {
+            plan(slots[live++], nextOrder++, random);
+        }
+        while (live > 0) {
+            int slot = random.nextInt(live);
+            OrderPlan order = slots[slot];
+            emit(order, random, out);
+            if (order.next == order.events) {
+                if (nextOrder < end) {
+                    plan(order, nextOrder++, random);
+                } else {
+                    slots[slot] = slots[--live];
+                    slots[live] = order;
+                }
+            }
+        }
+        return out;
+    }
+
+    private void plan(OrderPlan order, long index, SplittableRandom random) {
+        order.number = index + 1;
+        order.events = 0;
+        order.next = 0;
+        order.customer = customers.sample(random);
+        order.itemCount = 1 + random.nextInt(options.getMaxItemsPerOrder());
+        long total = 0;
+        for (int i = 0; i < order.itemCount; i++) {
+            order.itemRanks[i] = items.sample(random);
+            order.quantities[i] = 1 + random.nextInt(3);
+            total += order.quantities[i] * price(order.itemRanks[i]);
+        }
+        long time = START_SECONDS + index / ORDERS_PER_SECOND;
+        order.add(CREATED, total, time);
+
+        double lifecycle = random.nextDouble();
+        boolean partial = random.nextDouble() < options.getPartialPaymentRatio();
+        if (lifecycle < options.getShippedRatio()) {
+            int payments = partial && total >= 3 ? 2 + random.nextInt(2) : 1;
+            long remaining = total;
+            for (int i = 0; i < payments - 1; i++) {
+                // Leaves at least a cent for every payment still to come
+                long part = 1 + random.nextLong(remaining - (payments - 1 - i));
+                time += 60 + random.nextInt(3600);
+                order.add(PAYMENT, part, time);
+                remaining -= part;
+            }
+            time += 60 + random.nextInt(3600);
+            order.add(PAYMENT, remaining, time);
+            time += 3600 + random.nextInt(2 * 86_400);
+            order.add(SHIPPED, Math.floorDiv(time, 86_400) + 1 + random.nextInt(3), time);
+        } else if (lifecycle < options.getShippedRatio() + options.getCancelledRatio()) {
+            if (partial && total >= 2) {
+                time += 60 + random.nextInt(3600);
+                order.add(PAYMENT, 1 + random.nextLong(total - 1), time);
+            }
+            time += 60 + random.nextInt(86_400);
+            order.add(CANCELLED, random.nextInt(CANCEL_REASONS.length), time);
+        } else if (partial && total >= 2) {
+            time += 60 + random.nextInt(3600);
+            order.add(PAYMENT, 1 + random.nextLong(total - 1), time);
+        }
+    }
+
+    private void emit(OrderPlan order, SplittableRandom random, Chunk out) {
+        int event = order.next;
+        if (event + 1 < order.events && random.nextDouble() < options.getOutOfOrderRate()) {
+            // The later event overtakes this one; timestamps keep their original order
+            write(order, event + 1, random, out);
+            write(order, event, random, out);
+            order.next += 2;
+        } else {
+            write(order, event, random, out);
+            order.next++;
+        }
+    }
+
+    private void write(OrderPlan order, int event, SplittableRandom random, Chunk out) {
+        int start = out.length;
+        out.ascii("{\"eventId\":\"E").number(order.number).ascii("-").number(event)
+                .ascii("\",\"timestamp\":\"").timestamp(order.times[event])
+                .ascii("\",\"eventType\":\"");
+        switch (order.kinds[event]) {
+            case CREATED:
+                out.ascii("OrderCreated").orderId(order).ascii(",\"customerId\":\"CUST").number(order.customer)
+                        .ascii("\",\"items\":[");
+                for (int i = 0; i < order.itemCount; i++) {
+                    out.ascii(i == 0 ? "{\"itemId\":\"P" : ",{\"itemId\":\"P").number(order.itemRanks[i])
+                            .ascii("\",\"qty\":").number(order.quantities[i]).ascii("}");
+                }
+                out.ascii("],\"totalAmount\":").amount(order.values[event]);
+                break;
+            case PAYMENT:
+                out.ascii("PaymentReceived").orderId(order).ascii(",\"amountPaid\":").amount(order.values[event]);
+                break;
+            case SHIPPED:
+                out.ascii("ShippingScheduled").orderId(order).ascii(",\"shippingDate\":\"")
+                        .date(order.values[event]).ascii("\"");
+                break;
+            default:
+                out.ascii("OrderCancelled").orderId(order).ascii(",\"reason\":\"")
+                        .ascii(CANCEL_REASONS[(int) order.values[event]]).ascii("\"");
+                break;
+        }
+        out.ascii("}\n");
+        out.lines++;
+        if (random.nextDouble() < options.getDuplicateRate()) {
+            out.copy(start);
+            out.lines++;
+        }
+    }
+
+    // Unit price in cents for an item rank, between 1.00 and 200.00
+    static long price(int itemRank) {
+        return 100 + Math.floorMod(mix(itemRank), 19_901L);
+    }
+
+    // MurmurHash3 finalizer; spreads consecutive seeds and ranks over unrelated values
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+
+    private static final class OrderPlan {
+        long number;
+        int customer;
+        int itemCount;
+        final int[] itemRanks;
+        final int[] quantities;
+        // Per event: its kind, its amount in cents (shipping: epoch day; cancellation: reason index)
+        final byte[] kinds = new byte[MAX_EVENTS];
+        final long[] values = new long[MAX_EVENTS];
+        final long[] times = new long[MAX_EVENTS];
+        int events;
+        int next;
+
+        OrderPlan(int maxItems) {
+            this.itemRanks = new int[maxItems];
+            this.quantities = new int[maxItems];
+        }
+
+        void add(byte kind, long value, long time) {
+            kinds[events] = kind;
+            values[events] = value;
+            times[events] = time;
+            events++;
+        }
+    }
+
+    /**
+     * Growable byte buffer holding one chunk of output lines, with just enough formatting for
+     * the event fields. Everything written is ASCII.
+     */
+    private static final class Chunk {
+        byte[] bytes;
+        int length;
+        long lines;
+
+        Chunk(int capacity) {
+            this.bytes = new byte[Math.max(capacity, 1024)];
+        }
+
+        Chunk ascii(String s) {
+            ensure(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                bytes[length++] = (byte) s.charAt(i);
+            }
+            return this;
+        }
+
+        Chunk orderId(OrderPlan order) {
+            return ascii("\",\"orderId\":\"ORD").number(order.number).ascii("\"");
+        }
+
+        Chunk number(long value) {
+            if (value < 10) {
+                ensure(1);
+                bytes[length++] = (byte) ('0' + value);
+                return this;
+            }
+            int digits = 0;
+            for (long v = value; v > 0; v /= 10) {
+                digits++;
+            }
+            ensure(digits);
+            for (int i = length + digits - 1; i >= length; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            length += digits;
+            return this;
+        }
+
+        Chunk amount(long cents) {
+            number(cents / 100);
+            ensure(3);
+            bytes[length++] = '.';
+            return twoDigits((int) (cents % 100));
+        }
+
+        Chunk timestamp(long epochSecond) {
+            date(Math.floorDiv(epochSecond, 86_400));
+            int secondOfDay = (int) Math.floorMod(epochSecond, 86_400L);
+            ensure(1);
+            bytes[length++] = 'T';
+            twoDigits(secondOfDay / 3600);
+            ensure(1);
+            bytes[length++] = ':';
+            twoDigits(secondOfDay / 60 % 60);
+            ensure(1);
+            bytes[length++] = ':';
+            twoDigits(secondOfDay % 60);
+            ensure(1);
+            bytes[length++] = 'Z';
+            return this;
+        }
+
+        Chunk date(long epochDay) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            number(date.getYear());
+            ensure(1);
+            bytes[length++] = '-';
+            twoDigits(date.getMonthValue());
+            ensure(1);
+            bytes[length++] = '-';
+            return twoDigits(date.getDayOfMonth());
+        }
+
+        Chunk twoDigits(int value) {
+            ensure(2);
+            bytes[length++] = (byte) ('0' + value / 10);
+            bytes[length++] = (byte) ('0' + value % 10);
+            return this;
+        }
+
+        // Appends a copy of everything written since start
+        void copy(int start) {
+            int n = length - start;
+            ensure(n);
+            System.arraycopy(bytes, start, bytes, length, n);
+            length += n;
+        }
+
+        private void ensure(int n) {
+            if (length + n > bytes.length) {
+                byte[] larger = new byte[Math.max(bytes.length * 2, length + n)];
+                System.arraycopy(bytes, 0, larger, 0, length);
+                bytes = larger;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.orders.generator;
+
+public class GeneratorOptions {
+    private long orders = 1_000_000;
+    // The same seed and chunkOrders give the same file whatever the thread count
+    private long seed = 42;
+    // Lifecycle mix; orders that are neither shipped nor cancelled are left open
+    private double shippedRatio = 0.7;
+    private double cancelledRatio = 0.2;
+    // Orders paid in two or three instalments (shipped), or partly paid before cancelling or while open
+    private double partialPaymentRatio = 0.2;
+    // Chance that an event arrives after the event of the same order that follows it
+    private double outOfOrderRate = 0;
+    // Chance that an event is delivered twice, with the same eventId
+    private double duplicateRate = 0;
+    // Customers and items are drawn from Zipf distributions; a skew of 0 is uniform
+    private int customers = 100_000;
+    private double customerSkew = 1.0;
+    private int items = 10_000;
+    private double itemSkew = 1.0;
+    private int maxItemsPerOrder = 5;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    // Orders generated per task; events of up to 64 orders of a chunk interleave
+    private int chunkOrders = 4096;
+
+    public GeneratorOptions() {}
+
+    public long getOrders() {
+        return orders;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public double getShippedRatio() {
+        return shippedRatio;
+    }
+
+    public double getCancelledRatio() {
+        return cancelledRatio;
+    }
+
+    public double getPartialPaymentRatio() {
+        return partialPaymentRatio;
+    }
+
+    public double getOutOfOrderRate() {
+        return outOfOrderRate;
+    }
+
+    public double getDuplicateRate() {
+        return duplicateRate;
+    }
+
+    public int getCustomers() {
+        return customers;
+    }
+
+    public double getCustomerSkew() {
+        return customerSkew;
+    }
+
+    public int getItems() {
+        return items;
+    }
+
+    public double getItemSkew() {
+        return itemSkew;
+    }
+
+    public int getMaxItemsPerOrder() {
+        return maxItemsPerOrder;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getChunkOrders() {
+        return chunkOrders;
+    }
+
+    public void setOrders(long orders) {
+        if (orders <= 0) {
+            throw new IllegalArgumentException("orders must be positive: " + orders);
+        }
+        this.orders = orders;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public void setShippedRatio(double shippedRatio) {
+        this.shippedRatio = requireRatio("shippedRatio", shippedRatio);
+    }
+
+    public void setCancelledRatio(double cancelledRatio) {
+        this.cancelledRatio = requireRatio("cancelledRatio", cancelledRatio);
+    }
+
+    public void setPartialPaymentRatio(double partialPaymentRatio) {
+        this.partialPaymentRatio = requireRatio("partialPaymentRatio", partialPaymentRatio);
+    }
+
+    public void setOutOfOrderRate(double outOfOrderRate) {
+        this.outOfOrderRate = requireRatio("outOfOrderRate", outOfOrderRate);
+    }
+
+    public void setDuplicateRate(double duplicateRate) {
+        this.duplicateRate = requireRatio("duplicateRate", duplicateRate);
+    }
+
+    public void setCustomers(int customers) {
+        this.customers = requirePositive("customers", customers);
+    }
+
+    public void setCustomerSkew(double customerSkew) {
+        this.customerSkew = requireSkew("customerSkew", customerSkew);
+    }
+
+    public void setItems(int items) {
+        this.items = requirePositive("items", items);
+    }
+
+    public void setItemSkew(double itemSkew) {
+        this.itemSkew = requireSkew("itemSkew", itemSkew);
+    }
+
+    public void setMaxItemsPerOrder(int maxItemsPerOrder) {
+        this.maxItemsPerOrder = requirePositive("maxItemsPerOrder", maxItemsPerOrder);
+    }
+
+    public void setThreads(int threads) {
+        this.threads = requirePositive("threads", threads);
+    }
+
+    public void setChunkOrders(int chunkOrders) {
+        this.chunkOrders = requirePositive("chunkOrders", chunkOrders);
+    }
+
+    private static int requirePositive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+
+    private static double requireRatio(String name, double value) {
+        if (!(value >= 0 && value <= 1)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 1: " + value);
+        }
+        return value;
+    }
+
+    private static double requireSkew(String name, double value) {
+        if (!(value >= 0 && value <= 10)) {
+            throw new IllegalArgumentException(name + " must be between 0 and 10: " + value);
+        }
+        return value;
+    }
+}
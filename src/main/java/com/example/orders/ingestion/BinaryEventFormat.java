@@ -0,0 +1,42 @@
+package com.example.orders.ingestion;
+
+/**
+ * Layout shared by {@link BinaryEventWriter} and {@link BinaryEventReader}.
+ *
+ * <p>A file starts with {@code [int magic][byte version][int dictionaryLimit]} and is followed by
+ * records of {@code [varint length][payload]}. A payload is the {@code EventType} ordinal, a flags
+ * byte, the optional eventId and timestamp (epoch millis as a zigzag delta from the previous
+ * record), the orderId and then the subclass fields. Ids that repeat (order, customer and item
+ * ids, cancellation reasons) are dictionary-encoded: the first occurrence is written inline and
+ * later ones as an index. Both sides clear the dictionary when it reaches the limit, so memory
+ * stays bounded. Amounts are stored as a scale and an unscaled long, dates as epoch days.
+ */
+final class BinaryEventFormat {
+    static final int MAGIC = 0x4F455642; // "OEVB"
+    static final int VERSION = 1;
+    static final int HEADER_BYTES = 9;
+
+    static final int FLAG_EVENT_ID = 1;
+    static final int FLAG_TIMESTAMP = 1 << 1;
+    static final int FLAG_SUB_MILLIS = 1 << 2;
+
+    // Dictionary references: 0 is null, 1 an inline literal, n >= 2 dictionary entry n - 2
+    static final int REF_NULL = 0;
+    static final int REF_LITERAL = 1;
+    static final int REF_BASE = 2;
+
+    // Decimal encodings
+    static final int DECIMAL_NULL = 0;
+    static final int DECIMAL_SCALED = 1;
+    static final int DECIMAL_TEXT = 2;
+
+    private BinaryEventFormat() {}
+
+    static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.orders.ingestion;
+
+import com.example.orders.events.Event;
+import com.example.orders.events.EventType;
+import com.example.orders.events.OrderCancelledEvent;
+import com.example.orders.events.OrderCreatedEvent;
+import com.example.orders.events.PaymentReceivedEvent;
+import com.example.orders.events.ShippingScheduledEvent;
+import com.example.orders.model.OrderItem;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.orders.ingestion.BinaryEventFormat.*;
+
+/**
+ * Reads events written by {@link BinaryEventWriter}, one length-prefixed record at a time.
+ */
+public class BinaryEventReader implements Closeable {
+    private static final EventType[] TYPES = EventType.values();
+
+    private final InputStream in;
+    private final int dictionaryLimit;
+    private final List<String> dictionary = new ArrayList<>();
+    private byte[] record = new byte[256];
+    private int pos;
+    private long previousMillis;
+
+    public BinaryEventReader(Path file) throws IOException {
+        this(Files.newInputStream(file));
+    }
+
+    BinaryEventReader(InputStream source) throws IOException {
+        this.in = new BufferedInputStream(source, 1 << 16);
+        DataInputStream header = new DataInputStream(in);
+        if (header.readInt() != MAGIC) {
+            throw new IOException("Not a binary event file");
+        }
+        int version = header.readUnsignedByte();
+        if (version != VERSION) {
+            throw new IOException("Unsupported binary event format version " + version);
+        }
+        this.dictionaryLimit = header.readInt();
+    }
+
+    /**
+     * True if the file starts with the binary event header.
+     */
+    public static boolean isBinary(Path file) throws IOException {
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(file))) {
+            return in.readInt() == MAGIC;
+        } catch (EOFException tooShort) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the next event, or null at the end of the file. A record cut short by a crash
+     * is reported as an {@link EOFException}.
+     */
+    public Event next() throws IOException {
+        int length = readRecordLength();
+        if (length < 0) {
+            return null;
+        }
+        if (length > record.length) {
+            record = new byte[Math.max(length, record.length * 2)];
+        }
+        int read = 0;
+        while (read < length) {
+            int n = in.read(record, read, length - read);
+            if (n < 0) {
+                throw new EOFException("Truncated binary event record");
+            }
+            read += n;
+        }
+        pos = 0;
+        return decode();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Event decode() throws IOException {
+        int ordinal = record[pos++];
+        if (ordinal < 0 || ordinal >= TYPES.length) {
+            throw new IOException("Corrupt binary event record: type " + ordinal);
+        }
+        EventType type = TYPES[ordinal];
+        Event event;
+        switch (type) {
+            case OrderCreated:
+                event = new OrderCreatedEvent();
+                break;
+            case PaymentReceived:
+                event = new PaymentReceivedEvent();
+                break;
+            case ShippingScheduled:
+                event = new ShippingScheduledEvent();
+                break;
+            default:
+                event = new OrderCancelledEvent();
+                break;
+        }
+        event.setEventType(type.name());
+        int flags = record[pos++];
+        if ((flags & FLAG_EVENT_ID) != 0) {
+            event.setEventId(readString());
+        }
+        if ((flags & FLAG_TIMESTAMP) != 0) {
+            long millis = previousMillis + unzigzag(readVarLong());
+            previousMillis = millis;
+            Instant timestamp = Instant.ofEpochMilli(millis);
+            if ((flags & FLAG_SUB_MILLIS) != 0) {
+                timestamp = timestamp.plusNanos(readVarLong());
+            }
+            event.setTimestamp(timestamp);
+        }
+        event.setOrderId(readRef());
+        switch (type) {
+            case OrderCreated:
+                OrderCreatedEvent created = (OrderCreatedEvent) event;
+                created.setCustomerId(readRef());
+                long count = readVarLong();
+                if (count > 0) {
+                    List<OrderItem> items = new ArrayList<>((int) (count - 1));
+                    for (long i = 1; i < count; i++) {
+                        String itemId = readRef();
+                        items.add(new OrderItem(itemId, (int) unzigzag(readVarLong())));
+                    }
+                    created.setItems(items);
+                }
+                created.setTotalAmount(readDecimal());
+                break;
+            case PaymentReceived:
+                ((PaymentReceivedEvent) event).setAmountPaid(readDecimal());
+                break;
+            case ShippingScheduled:
+                long day = readVarLong();
+                ((ShippingScheduledEvent) event).setShippingDate(day == 0 ? null : LocalDate.ofEpochDay(unzigzag(day - 1)));
+                break;
+            default:
+                ((OrderCancelledEvent) event).setReason(readRef());
+                break;
+        }
+        return event;
+    }
+
+    private String readRef() throws IOException {
+        long ref = readVarLong();
+        if (ref == REF_NULL) {
+            return null;
+        }
+        if (ref >= REF_BASE) {
+            int index = (int) (ref - REF_BASE);
+            if (index >= dictionary.size()) {
+                throw new IOException("Corrupt binary event record: dictionary index " + index);
+            }
+            return dictionary.get(index);
+        }
+        String value = readString();
+        if (dictionary.size() == dictionaryLimit) {
+            dictionary.clear();
+        }
+        dictionary.add(value);
+        return value;
+    }
+
+    private BigDecimal readDecimal() {
+        int encoding = record[pos++];
+        if (encoding == DECIMAL_NULL) {
+            return null;
+        }
+        if (encoding == DECIMAL_SCALED) {
+            int scale = (int) unzigzag(readVarLong());
+            return BigDecimal.valueOf(unzigzag(readVarLong()), scale);
+        }
+        return new BigDecimal(readString());
+    }
+
+    private String readString() {
+        int length = (int) readVarLong();
+        String value = new String(record, pos, length, StandardCharsets.UTF_8);
+        pos += length;
+        return value;
+    }
+
+    private long readVarLong() {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = record[pos++];
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private int readRecordLength() throws IOException {
+        int value = 0;
+        int shift = 0;
+        while (true) {
+            int b = in.read();
+            if (b < 0) {
+                if (shift == 0) {
+                    return -1;
+                }
+                throw new EOFException("Truncated binary event record length");
+            }
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.orders.ingestion;
+
+import com.example.orders.events.Event;
+import com.example.orders.events.EventType;
+import com.example.orders.events.OrderCancelledEvent;
+import com.example.orders.events.OrderCreatedEvent;
+import com.example.orders.events.PaymentReceivedEvent;
+import com.example.orders.events.ShippingScheduledEvent;
+import com.example.orders.model.OrderItem;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.orders.ingestion.BinaryEventFormat.*;
+
+/**
+ * Writes events in the compact binary format described in {@link BinaryEventFormat}.
+ */
+public class BinaryEventWriter implements Closeable {
+    static final int DEFAULT_DICTIONARY_LIMIT = 1 << 20;
+
+    private final OutputStream out;
+    private final int dictionaryLimit;
+    private final Map<String, Integer> dictionary = new HashMap<>();
+    private byte[] record = new byte[256];
+    private int length;
+    private long previousMillis;
+    private long written;
+
+    public BinaryEventWriter(Path file) throws IOException {
+        this(Files.newOutputStream(file), DEFAULT_DICTIONARY_LIMIT);
+    }
+
+    BinaryEventWriter(OutputStream target, int dictionaryLimit) throws IOException {
+        this.out = new BufferedOutputStream(target, 1 << 16);
+        this.dictionaryLimit = dictionaryLimit;
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeInt(MAGIC);
+        header.writeByte(VERSION);
+        header.writeInt(dictionaryLimit);
+    }
+
+    /**
+     * Appends one event. Only the four known event types can be written.
+     */
+    public void write(Event event) throws IOException {
+        EventType type = EventType.fromName(event.getEventType());
+        if (type == null) {
+            throw new IllegalArgumentException("Cannot encode eventType " + event.getEventType());
+        }
+        length = 0;
+        putByte(type.ordinal());
+        Instant timestamp = event.getTimestamp();
+        int flags = 0;
+        if (event.getEventId() != null) {
+            flags |= FLAG_EVENT_ID;
+        }
+        if (timestamp != null) {
+            flags |= FLAG_TIMESTAMP;
+            if (timestamp.getNano() % 1_000_000 != 0) {
+                flags |= FLAG_SUB_MILLIS;
+            }
+        }
+        putByte(flags);
+        if (event.getEventId() != null) {
+            putString(event.getEventId());
+        }
+        if (timestamp != null) {
+            long millis = timestamp.toEpochMilli();
+            putVarLong(zigzag(millis - previousMillis));
+            previousMillis = millis;
+            if ((flags & FLAG_SUB_MILLIS) != 0) {
+                putVarLong(timestamp.getNano() % 1_000_000);
+            }
+        }
+        putRef(event.getOrderId());
+        switch (type) {
+            case OrderCreated:
+                OrderCreatedEvent created = (OrderCreatedEvent) event;
+                putRef(created.getCustomerId());
+                List<OrderItem> items = created.getItems();
+                putVarLong(items == null ? 0 : items.size() + 1L);
+                if (items != null) {
+                    for (OrderItem item : items) {
+                        putRef(item.getItemId());
+                        putVarLong(zigzag(item.getQty()));
+                    }
+                }
+                putDecimal(created.getTotalAmount());
+                break;
+            case PaymentReceived:
+                putDecimal(((PaymentReceivedEvent) event).getAmountPaid());
+                break;
+            case ShippingScheduled:
+                ShippingScheduledEvent shipped = (ShippingScheduledEvent) event;
+                putVarLong(shipped.getShippingDate() == null ? 0 : zigzag(shipped.getShippingDate().toEpochDay()) + 1);
+                break;
+            case OrderCancelled:
+                putRef(((OrderCancelledEvent) event).getReason());
+                break;
+            default:
+                throw new IllegalStateException("Unhandled event type " + type);
+        }
+        writeVarInt(out, length);
+        out.write(record, 0, length);
+        written++;
+    }
+
+    public long getWritten() {
+        return written;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+    private void putRef(String value) {
+        if (value == null) {
+            putVarLong(REF_NULL);
+            return;
+        }
+        Integer index = dictionary.get(value);
+        if (index != null) {
+            putVarLong(REF_BASE + (long) index);
+            return;
+        }
+        putVarLong(REF_LITERAL);
+        putString(value);
+        if (dictionary.size() == dictionaryLimit) {
+            dictionary.clear();
+        }
+        dictionary.put(value, dictionary.size());
+    }
+
+    private void putDecimal(BigDecimal value) {
+        if (value == null) {
+            putByte(DECIMAL_NULL);
+        } else if (value.unscaledValue().bitLength() < 64) {
+            putByte(DECIMAL_SCALED);
+            putVarLong(zigzag(value.scale()));
+            putVarLong(zigzag(value.unscaledValue().longValue()));
+        } else {
+            putByte(DECIMAL_TEXT);
+            putString(value.toString());
+        }
+    }
+
+    private void putString(String value) {
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        putVarLong(utf8.length);
+        ensure(utf8.length);
+        System.arraycopy(utf8, 0, record, length, utf8.length);
+        length += utf8.length;
+    }
+
+    private void putByte(int value) {
+        ensure(1);
+        record[length++] = (byte) value;
+    }
+
+    private void putVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            record[length++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        record[length++] = (byte) value;
+    }
+
+    private void ensure(int extra) {
+        if (length + extra > record.length) {
+            record = Arrays.copyOf(record, Math.max(record.length * 2, length + extra));
+        }
+    }
+
+    private static void writeVarInt(OutputStream out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.write((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write(value);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.orders.ingestion;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class CheckpointOptions {
+    private Path dir = Paths.get("data");
+    // A checkpoint is written after this many events or this much time, whichever comes first
+    private long intervalEvents = 100_000;
+    private long intervalMillis = 1_000;
+
+    public CheckpointOptions() {}
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public long getIntervalEvents() {
+        return intervalEvents;
+    }
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public void setDir(Path dir) {
+        this.dir = dir;
+    }
+
+    public void setIntervalEvents(long intervalEvents) {
+        if (intervalEvents <= 0) {
+            throw new IllegalArgumentException("intervalEvents must be positive: " + intervalEvents);
+        }
+        this.intervalEvents = intervalEvents;
+    }
+
+    public void setIntervalMillis(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+        }
+        this.intervalMillis = intervalMillis;
+    }
+}
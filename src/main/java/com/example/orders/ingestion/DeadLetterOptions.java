@@ -0,0 +1,45 @@
+package com.example.orders.ingestion;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class DeadLetterOptions {
+    // Rejected lines are appended here, one JSON record per line
+    private Path file = Paths.get("data", "dead-letters.jsonl");
+    // Records are flushed to the file in batches of this many (and when the writer is closed)
+    private int flushRecords = 1000;
+    private int bufferBytes = 64 * 1024;
+
+    public DeadLetterOptions() {}
+
+    public Path getFile() {
+        return file;
+    }
+
+    public int getFlushRecords() {
+        return flushRecords;
+    }
+
+    public int getBufferBytes() {
+        return bufferBytes;
+    }
+
+    public void setFile(Path file) {
+        this.file = file;
+    }
+
+    public void setFlushRecords(int flushRecords) {
+        this.flushRecords = requirePositive("flushRecords", flushRecords);
+    }
+
+    public void setBufferBytes(int bufferBytes) {
+        this.bufferBytes = requirePositive("bufferBytes", bufferBytes);
+    }
+
+    private static int requirePositive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+}
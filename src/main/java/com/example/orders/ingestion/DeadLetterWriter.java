@@ -0,0 +1,87 @@
+package com.example.orders.ingestion;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends rejected input lines to an NDJSON file as
+ * {@code {"reason":"...","detail":"...","line":"..."}} records, keeping the original line as a
+ * JSON string. Records are buffered and flushed every {@code flushRecords} records and on
+ * {@link #close}. Safe for concurrent use.
+ */
+public class DeadLetterWriter implements Closeable {
+    private final Path file;
+    private final int flushRecords;
+    private final OutputStream out;
+    private final JsonGenerator generator;
+    private long written;
+    private int unflushed;
+
+    public DeadLetterWriter(DeadLetterOptions options) throws IOException {
+        this.file = options.getFile();
+        this.flushRecords = options.getFlushRecords();
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) {
+            Files.createDirectories(dir);
+        }
+        this.out = new BufferedOutputStream(Files.newOutputStream(file, StandardOpenOption.CREATE,
+                StandardOpenOption.APPEND), options.getBufferBytes());
+        // Records are separated by the newline written after each one rather than Jackson's root
+        // separator; flushing the generator only empties its own buffer, the file is flushed in batches
+        this.generator = new JsonFactory().setRootValueSeparator(null).createGenerator(out)
+                .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM)
+                .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Records {@code length} bytes of UTF-8 input starting at {@code offset} as rejected.
+     */
+    public synchronized void write(RejectReason reason, String detail, byte[] line, int offset, int length)
+            throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("reason", reason.name());
+        if (detail != null) {
+            generator.writeStringField("detail", detail);
+        }
+        generator.writeFieldName("line");
+        generator.writeUTF8String(line, offset, length);
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+        written++;
+        if (++unflushed >= flushRecords) {
+            flush();
+        }
+    }
+
+    public synchronized void flush() throws IOException {
+        generator.flush();
+        out.flush();
+        unflushed = 0;
+    }
+
+    public synchronized long getWritten() {
+        return written;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+            generator.close();
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.orders.ingestion;
+
+public class DecompressionOptions {
+    // Threads inflating BGZF blocks in parallel; ordinary gzip always uses a single thread
+    private int threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+    // Decompressed chunks (or BGZF blocks) buffered ahead of the parser before decompression stalls
+    private int queueChunks = 16;
+    // Size of each chunk handed over for ordinary gzip; BGZF hands over whole blocks (at most 64 KB)
+    private int chunkBytes = 256 * 1024;
+
+    public DecompressionOptions() {}
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public int getQueueChunks() {
+        return queueChunks;
+    }
+
+    public int getChunkBytes() {
+        return chunkBytes;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = requirePositive("threads", threads);
+    }
+
+    public void setQueueChunks(int queueChunks) {
+        this.queueChunks = requirePositive("queueChunks", queueChunks);
+    }
+
+    public void setChunkBytes(int chunkBytes) {
+        this.chunkBytes = requirePositive("chunkBytes", chunkBytes);
+    }
+
+    private static int requirePositive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+}
@@ -1,16 +1,30 @@
 package com.example.orders.ingestion;
 
 import com.example.orders.events.*;
+import com.example.orders.metrics.PipelineMetrics;
 import com.example.orders.processing.EventProcessor;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.*;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
 
 @Component
 public class EventIngestor {
@@ -18,57 +32,568 @@ public class EventIngestor {
 
     private final EventProcessor processor;
     private final ObjectMapper mapper;
+    // Streams each line straight into the subclass named by eventType, without an intermediate tree
+    private final ObjectReader eventReader;
+    // Rejected lines by RejectReason ordinal
+    private final AtomicLongArray rejections = new AtomicLongArray(RejectReason.values().length);
+
+    private volatile PipelineMetrics metrics;
+    private volatile DecompressionOptions decompression = new DecompressionOptions();
+    private volatile DeadLetterWriter deadLetters;
 
     public EventIngestor(EventProcessor processor) {
         this.processor = processor;
         this.mapper = new ObjectMapper();
         this.mapper.registerModule(new JavaTimeModule());
         this.mapper.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+        this.eventReader = mapper.readerFor(Event.class);
+    }
+
+    /**
+     * Records read and parse timings, parse failures and unknown event types. Call before
+     * ingestion starts; null turns recording off.
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Tunes how gzip input is decompressed ahead of parsing. Call before ingestion starts.
+     */
+    public void setDecompression(DecompressionOptions decompression) {
+        this.decompression = decompression;
+    }
+
+    /**
+     * Sends rejected lines, with the reason, to {@code deadLetters}; null only counts them.
+     * Call before ingestion starts.
+     */
+    public void setDeadLetters(DeadLetterWriter deadLetters) {
+        this.deadLetters = deadLetters;
     }
 
     public void ingest(String filePath) {
+        ingest(filePath, null);
+    }
+
+    /**
+     * Processes the file line by line, resuming from and periodically recording a checkpoint
+     * when {@code checkpoints} is given. Gzip files are decompressed on background threads while
+     * their lines are parsed; they are always read from the start.
+     */
+    public void ingest(String filePath, IngestCheckpoints checkpoints) {
+        if (replayIfBinary(filePath) != null) {
+            if (checkpoints != null) {
+                // The id dictionary is built up from the start of the file, so replay cannot resume mid-way
+                log.warn("Checkpoints are not recorded for binary event file {}", filePath);
+            }
+            return;
+        }
+        Path path = Paths.get(filePath);
         log.info("Ingesting events from {}", filePath);
-        try (java.util.stream.Stream<String> lines = Files.lines(Paths.get(filePath))) {
-            lines.filter(s -> s != null && !s.trim().isEmpty())
-                 .forEach(this::parseAndProcessSafely);
+        try {
+            boolean compressed = GzipPipeline.isGzip(path);
+            if (compressed && checkpoints != null) {
+                // Offsets into the decompressed stream cannot be seeked to
+                log.warn("Checkpoints are not recorded for compressed event file {}", filePath);
+                checkpoints = null;
+            }
+            long startOffset = checkpoints == null ? 0 : checkpoints.begin(path);
+            PipelineMetrics m = metrics;
+            try (OffsetLineReader reader = compressed
+                    ? new OffsetLineReader(new GzipPipeline(path, decompression), 1 << 16)
+                    : new OffsetLineReader(path, startOffset, 1 << 16)) {
+                // Checkpoints stop at the last newline: a final line without one may still be being written
+                long completeOffset = startOffset;
+                while (true) {
+                    long readStart = m == null ? 0 : System.nanoTime();
+                    boolean complete = reader.nextComplete();
+                    if (!complete && !reader.takeRemainder()) {
+                        break;
+                    }
+                    if (m != null) {
+                        m.recordStage(PipelineMetrics.Stage.READ, System.nanoTime() - readStart);
+                    }
+                    if (complete) {
+                        completeOffset = reader.getOffset();
+                    }
+                    if (!isBlank(reader.getBuffer(), reader.getLineStart(), reader.getLineStart() + reader.getLineLength())) {
+                        processLine(reader.getBuffer(), reader.getLineStart(), reader.getLineLength());
+                        if (checkpoints != null && complete) {
+                            checkpoints.advance(completeOffset);
+                        }
+                    }
+                }
+                if (checkpoints != null) {
+                    checkpoints.commit(completeOffset);
+                }
+            }
+        } catch (Exception ex) {
+            log.error("Failed to read events file {}: {}", filePath, ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Converts an NDJSON file to the compact binary format read back by {@link #ingest}.
+     * Lines that cannot be parsed are skipped. Returns the number of events written.
+     */
+    public long convertToBinary(String jsonPath, String binaryPath) throws IOException {
+        long start = System.nanoTime();
+        long skipped = 0;
+        Path source = Paths.get(jsonPath);
+        try (OffsetLineReader reader = GzipPipeline.isGzip(source)
+                ? new OffsetLineReader(new GzipPipeline(source, decompression), 1 << 16)
+                : new OffsetLineReader(source, 0, 1 << 16);
+             BinaryEventWriter writer = new BinaryEventWriter(Paths.get(binaryPath))) {
+            while (reader.next()) {
+                if (isBlank(reader.getBuffer(), reader.getLineStart(), reader.getLineStart() + reader.getLineLength())) {
+                    continue;
+                }
+                Event event = readLine(reader.getBuffer(), reader.getLineStart(), reader.getLineLength());
+                if (event != null) {
+                    writer.write(event);
+                } else {
+                    skipped++;
+                }
+            }
+            log.info("Converted {} events from {} to {} ({} lines skipped) in {} ms", writer.getWritten(), jsonPath,
+                    binaryPath, skipped, (System.nanoTime() - start) / 1_000_000);
+            return writer.getWritten();
+        }
+    }
+
+    private IngestStats ingestBinary(Path path) throws IOException {
+        log.info("Replaying binary events from {}", path);
+        long start = System.nanoTime();
+        long events = 0;
+        long failures = 0;
+        PipelineMetrics m = metrics;
+        try (BinaryEventReader reader = new BinaryEventReader(path)) {
+            while (true) {
+                long decodeStart = m == null ? 0 : System.nanoTime();
+                Event event = reader.next();
+                if (event == null) {
+                    break;
+                }
+                if (m != null) {
+                    m.recordStage(PipelineMetrics.Stage.PARSE, System.nanoTime() - decodeStart);
+                }
+                try {
+                    processor.process(event);
+                } catch (Exception ex) {
+                    failures++;
+                    log.warn("Failed to process {} event for order {}, skipping: {}", event.getEventType(),
+                            event.getOrderId(), ex.getMessage());
+                }
+                events++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        log.info("Replayed {} binary events from {} ({} failed) in {} ms", events, path, failures, elapsed / 1_000_000);
+        return new IngestStats(events, failures, elapsed, new ArrayList<>());
+    }
+
+    private IngestStats replayIfBinary(String filePath) {
+        try {
+            if (BinaryEventReader.isBinary(Paths.get(filePath))) {
+                // Decoding is cheap enough that a single thread replays faster than handing off
+                log.info("{} is a binary event file, replaying it sequentially", filePath);
+                return ingestBinary(Paths.get(filePath));
+            }
         } catch (Exception ex) {
             log.error("Failed to read events file {}: {}", filePath, ex.getMessage(), ex);
+            return new IngestStats(0, 0, 0, new ArrayList<>());
         }
+        return null;
+    }
+
+    /**
+     * Creates a subscriber that processes events pushed by any producer honouring its demand,
+     * with no file involved. See {@link ProcessingSubscriber}.
+     */
+    public ProcessingSubscriber subscriber(SubscriberOptions options) {
+        return new ProcessingSubscriber(processor, options);
     }
 
-    private void parseAndProcessSafely(String jsonLine) {
+    /**
+     * Processes events pulled from {@code events} (for example a generator, or an iterator
+     * draining an in-process queue) through a {@link ProcessingSubscriber}, and returns once
+     * all of them have been processed. Null elements are skipped.
+     */
+    public IngestStats ingest(Iterator<? extends Event> events, SubscriberOptions options) {
+        ProcessingSubscriber subscriber = subscriber(options);
         try {
-            Event event = parseEvent(jsonLine);
-            if (event != null) {
-                processor.process(event);
+            new IteratorPublisher(events).run(subscriber);
+            return subscriber.getCompletion().get();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            subscriber.cancel();
+            log.error("Interrupted while ingesting pushed events");
+        } catch (ExecutionException ee) {
+            log.error("Failed to ingest pushed events: {}", ee.getCause().getMessage());
+        }
+        return new IngestStats(subscriber.getReceived(), 0, 0, new ArrayList<>());
+    }
+
+    /**
+     * Opens a TCP endpoint that accepts newline-delimited JSON events from many connections at
+     * once; run it on a thread of its own and call {@link EventSocketServer#stop} to end it.
+     */
+    public EventSocketServer listen(SocketIngestOptions options) throws IOException {
+        return new EventSocketServer(this, processor, options);
+    }
+
+    /**
+     * Creates a tailer that follows {@code filePath} as it grows; run it on a thread of its own
+     * and call {@link EventTailer#stop} to end it.
+     */
+    public EventTailer tail(String filePath, TailOptions options, IngestCheckpoints checkpoints) {
+        return new EventTailer(this, Paths.get(filePath), options, checkpoints);
+    }
+
+    /**
+     * Parses lines on a worker pool and processes them on shards keyed by orderId, so events
+     * for the same order keep their file order while different orders use all cores.
+     */
+    public IngestStats ingestParallel(String filePath, ParallelIngestOptions options) {
+        IngestStats binary = replayIfBinary(filePath);
+        if (binary != null) {
+            return binary;
+        }
+        log.info("Ingesting events from {} with {} parse workers and {} shards",
+                filePath, options.getWorkers(), options.getShards());
+        long start = System.nanoTime();
+        long lines = 0;
+        LongAdder failures = new LongAdder();
+        List<ShardStats> shards = new ArrayList<>();
+        try (BufferedReader reader = openLines(Paths.get(filePath));
+             ParallelIngestPipeline pipeline = new ParallelIngestPipeline(processor, options)) {
+            List<String> batch = new ArrayList<>(options.getBatchSize());
+            PipelineMetrics m = metrics;
+            while (true) {
+                long readStart = m == null ? 0 : System.nanoTime();
+                String line = reader.readLine();
+                if (line == null) {
+                    break;
+                }
+                if (m != null) {
+                    m.recordStage(PipelineMetrics.Stage.READ, System.nanoTime() - readStart);
+                }
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                lines++;
+                batch.add(line);
+                if (batch.size() == options.getBatchSize()) {
+                    submitBatch(pipeline, batch, failures);
+                    batch = new ArrayList<>(options.getBatchSize());
+                }
             }
+            if (!batch.isEmpty()) {
+                submitBatch(pipeline, batch, failures);
+            }
+            shards = pipeline.finish();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while ingesting events file {}", filePath);
         } catch (Exception ex) {
-            log.warn("Failed to parse/process line, skipping: {}", ex.getMessage());
+            log.error("Failed to read events file {}: {}", filePath, ex.getMessage(), ex);
+        }
+        IngestStats stats = new IngestStats(lines, failures.sum(), System.nanoTime() - start, shards);
+        log.info("Ingested {} lines from {} ({} failed) at {} events/s",
+                stats.getLines(), filePath, stats.getFailures(), String.format("%.0f", stats.getEventsPerSecond()));
+        for (ShardStats s : stats.getShards()) {
+            log.info("  {}", s);
         }
+        return stats;
     }
 
-    private Event parseEvent(String jsonLine) throws JsonProcessingException {
-        JsonNode root = mapper.readTree(jsonLine);
-        if (root == null || !root.hasNonNull("eventType")) {
-            throw new IllegalArgumentException("Missing eventType");
+    /**
+     * Like {@link #ingestParallel}, but reads the file through memory mappings and parses
+     * newline-aligned byte chunks directly, skipping the per-line String decoding. Files larger
+     * than 2 GB are streamed through a sliding window of mappings.
+     */
+    public IngestStats ingestMapped(String filePath, ParallelIngestOptions options) {
+        IngestStats binary = replayIfBinary(filePath);
+        if (binary != null) {
+            return binary;
         }
-        String eventType = root.get("eventType").asText();
-        
         try {
-            if ("OrderCreated".equals(eventType)) {
-                return mapper.treeToValue(root, OrderCreatedEvent.class);
-            } else if ("PaymentReceived".equals(eventType)) {
-                return mapper.treeToValue(root, PaymentReceivedEvent.class);
-            } else if ("ShippingScheduled".equals(eventType)) {
-                return mapper.treeToValue(root, ShippingScheduledEvent.class);
-            } else if ("OrderCancelled".equals(eventType)) {
-                return mapper.treeToValue(root, OrderCancelledEvent.class);
+            if (GzipPipeline.isGzip(Paths.get(filePath))) {
+                log.info("{} is compressed and cannot be memory-mapped, reading it line by line", filePath);
+                return ingestParallel(filePath, options);
+            }
+        } catch (IOException ex) {
+            log.error("Failed to read events file {}: {}", filePath, ex.getMessage(), ex);
+            return new IngestStats(0, 0, 0, new ArrayList<>());
+        }
+        log.info("Ingesting memory-mapped events from {} with {} parse workers and {} shards",
+                filePath, options.getWorkers(), options.getShards());
+        long start = System.nanoTime();
+        LongAdder lines = new LongAdder();
+        LongAdder failures = new LongAdder();
+        List<ShardStats> shards = new ArrayList<>();
+        // One buffer per task that can be in flight, plus one for the reader to fill
+        MappedChunkReader reader = new MappedChunkReader(options.getChunkBytes(),
+                options.getMappingWindowBytes(), options.getWorkers() * 2 + 2);
+        try (ParallelIngestPipeline pipeline = new ParallelIngestPipeline(processor, options)) {
+            reader.read(Paths.get(filePath), (buffer, length) -> pipeline.submit(() -> {
+                try {
+                    return parseChunk(buffer, length, lines, failures);
+                } finally {
+                    reader.release(buffer);
+                }
+            }));
+            shards = pipeline.finish();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            log.error("Interrupted while ingesting events file {}", filePath);
+        } catch (Exception ex) {
+            log.error("Failed to read events file {}: {}", filePath, ex.getMessage(), ex);
+        }
+        IngestStats stats = new IngestStats(lines.sum(), failures.sum(), System.nanoTime() - start, shards);
+        log.info("Ingested {} lines from {} ({} failed) at {} events/s",
+                stats.getLines(), filePath, stats.getFailures(), String.format("%.0f", stats.getEventsPerSecond()));
+        for (ShardStats s : stats.getShards()) {
+            log.info("  {}", s);
+        }
+        return stats;
+    }
+
+    private BufferedReader openLines(Path path) throws IOException {
+        if (GzipPipeline.isGzip(path)) {
+            return new BufferedReader(new InputStreamReader(new GzipPipeline(path, decompression),
+                    StandardCharsets.UTF_8), 1 << 16);
+        }
+        return Files.newBufferedReader(path);
+    }
+
+    private List<Event> parseChunk(byte[] buffer, int length, LongAdder lines, LongAdder failures) {
+        List<Event> events = new ArrayList<>();
+        int lineStart = 0;
+        while (lineStart < length) {
+            int lineEnd = lineStart;
+            while (lineEnd < length && buffer[lineEnd] != '\n') {
+                lineEnd++;
+            }
+            if (!isBlank(buffer, lineStart, lineEnd)) {
+                lines.increment();
+                Event event = readLine(buffer, lineStart, lineEnd - lineStart);
+                if (event != null) {
+                    events.add(event);
+                } else {
+                    failures.increment();
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return events;
+    }
+
+    static boolean isBlank(byte[] buffer, int from, int to) {
+        for (int i = from; i < to; i++) {
+            byte b = buffer[i];
+            if (b != ' ' && b != '\t' && b != '\r') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void submitBatch(ParallelIngestPipeline pipeline, List<String> lines, LongAdder failures)
+            throws InterruptedException {
+        pipeline.submit(() -> {
+            List<Event> events = new ArrayList<>(lines.size());
+            for (String line : lines) {
+                Event event = readLine(line);
+                if (event != null) {
+                    events.add(event);
+                } else {
+                    failures.increment();
+                }
+            }
+            return events;
+        });
+    }
+
+    void processLine(byte[] buffer, int offset, int length) {
+        Event event = readLine(buffer, offset, length);
+        if (event == null) {
+            return;
+        }
+        try {
+            processor.process(event);
+        } catch (Exception ex) {
+            log.warn("Failed to process {} event for order {}, skipping: {}", event.getEventType(),
+                    event.getOrderId(), ex.getMessage());
+        }
+    }
+
+    /**
+     * Lines rejected for {@code reason} so far, by any ingestion path of this ingestor.
+     */
+    public long getRejected(RejectReason reason) {
+        return rejections.get(reason.ordinal());
+    }
+
+    public long getRejected() {
+        long total = 0;
+        for (int i = 0; i < rejections.length(); i++) {
+            total += rejections.get(i);
+        }
+        return total;
+    }
+
+    /**
+     * Why {@code event} cannot be processed, or null if it can. Only a line that is not a JSON
+     * object at all yields a null event.
+     */
+    public static RejectReason validate(Event event) {
+        if (event == null) {
+            return RejectReason.MALFORMED_JSON;
+        }
+        if (event instanceof UnknownEvent) {
+            String type = event.getEventType();
+            return type == null || type.isEmpty() ? RejectReason.MISSING_EVENT_TYPE : RejectReason.UNKNOWN_EVENT_TYPE;
+        }
+        if (event.getOrderId() == null || event.getOrderId().isEmpty()) {
+            return RejectReason.MISSING_ORDER_ID;
+        }
+        return null;
+    }
+
+    /**
+     * Parses and validates one line. Returns null if the line was rejected, after counting it
+     * and passing it to the dead-letter file; bad input never throws.
+     */
+    Event readLine(byte[] buffer, int offset, int length) {
+        PipelineMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        Event event;
+        try {
+            event = parseEvent(buffer, offset, length);
+        } catch (IOException ex) {
+            reject(RejectReason.MALFORMED_JSON, describe(ex), buffer, offset, length);
+            return null;
+        }
+        RejectReason reason = validate(event);
+        if (reason != null) {
+            reject(reason, event == null ? null : event.getEventType(), buffer, offset, length);
+            return null;
+        }
+        if (m != null) {
+            m.recordStage(PipelineMetrics.Stage.PARSE, System.nanoTime() - start);
+        }
+        return event;
+    }
+
+    /**
+     * Like {@link #readLine(byte[], int, int)} for the bytes between the buffer's position and
+     * limit, which are read in place.
+     */
+    Event readLine(ByteBuffer line) {
+        PipelineMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        int position = line.position();
+        Event event;
+        RejectReason reason;
+        String detail;
+        try {
+            event = parseEvent(line);
+            reason = validate(event);
+            detail = event == null ? null : event.getEventType();
+        } catch (IOException ex) {
+            event = null;
+            reason = RejectReason.MALFORMED_JSON;
+            detail = describe(ex);
+        }
+        if (reason != null) {
+            // Only rejected lines are copied out of the buffer
+            line.position(position);
+            byte[] bytes = new byte[line.remaining()];
+            line.get(bytes);
+            reject(reason, detail, bytes, 0, bytes.length);
+            return null;
+        }
+        if (m != null) {
+            m.recordStage(PipelineMetrics.Stage.PARSE, System.nanoTime() - start);
+        }
+        return event;
+    }
+
+    private Event readLine(String line) {
+        PipelineMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        Event event;
+        RejectReason reason;
+        String detail;
+        try {
+            event = parseEvent(line);
+            reason = validate(event);
+            detail = event == null ? null : event.getEventType();
+        } catch (IOException ex) {
+            event = null;
+            reason = RejectReason.MALFORMED_JSON;
+            detail = describe(ex);
+        }
+        if (reason != null) {
+            byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+            reject(reason, detail, bytes, 0, bytes.length);
+            return null;
+        }
+        if (m != null) {
+            m.recordStage(PipelineMetrics.Stage.PARSE, System.nanoTime() - start);
+        }
+        return event;
+    }
+
+    private void reject(RejectReason reason, String detail, byte[] line, int offset, int length) {
+        long count = rejections.incrementAndGet(reason.ordinal());
+        PipelineMetrics m = metrics;
+        if (m != null) {
+            if (reason == RejectReason.MALFORMED_JSON || reason == RejectReason.MISSING_ORDER_ID) {
+                m.recordParseFailure();
             } else {
-                throw new IllegalArgumentException("Unknown eventType: " + eventType);
+                m.recordUnknownEventType();
             }
-        } catch (Exception e) {
-            log.error("Error parsing event: {}", e.getMessage());
-            throw e;
         }
+        // A corrupt input can reject millions of lines; only the first of each kind is logged
+        if (count == 1) {
+            log.warn("Rejected line ({}{}); further {} rejections are only counted{}", reason,
+                    detail == null ? "" : ": " + detail, reason, deadLetters == null ? "" : " and dead-lettered");
+        } else if (log.isDebugEnabled()) {
+            log.debug("Rejected line ({}{})", reason, detail == null ? "" : ": " + detail);
+        }
+        DeadLetterWriter writer = deadLetters;
+        if (writer != null) {
+            try {
+                writer.write(reason, detail, line, offset, length);
+            } catch (IOException ex) {
+                log.error("Failed to write dead letter to {}: {}", writer.getFile(), ex.getMessage());
+            }
+        }
+    }
+
+    private static String describe(IOException ex) {
+        return ex instanceof JsonProcessingException ? ((JsonProcessingException) ex).getOriginalMessage() : ex.getMessage();
+    }
+
+    public Event parseEvent(byte[] buffer, int offset, int length) throws IOException {
+        return eventReader.readValue(buffer, offset, length);
+    }
+
+    /**
+     * Parses the event between the buffer's position and limit, reading the buffer in place.
+     */
+    public Event parseEvent(ByteBuffer line) throws IOException {
+        return eventReader.readValue(new ByteBufferBackedInputStream(line));
+    }
+
+    /**
+     * Parses one line; an unknown or missing eventType gives an {@link UnknownEvent} (see
+     * {@link #validate}). Throws only for input that is not JSON.
+     */
+    public Event parseEvent(String jsonLine) throws JsonProcessingException {
+        return eventReader.readValue(jsonLine);
     }
 }
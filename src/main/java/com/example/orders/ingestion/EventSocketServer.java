@@ -0,0 +1,394 @@
+package com.example.orders.ingestion;
+
+import com.example.orders.events.Event;
+import com.example.orders.processing.EventProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Accepts newline-delimited JSON events over TCP from many connections at once.
+ *
+ * <p>Clients send one event per line. The server answers with lines of the form
+ * {@code ACK <lines> <rejected>}, the number of lines received on the connection that have been
+ * fully processed and how many of those were rejected (see {@link EventIngestor#validate}). Acknowledgements are batched: each
+ * one covers everything that finished since the previous one. A client that shuts down its
+ * output receives a final acknowledgement covering every line, after which the server closes
+ * the connection.
+ *
+ * <p>A single selector thread reads every connection into a direct buffer, frames lines in
+ * place and parses them from that buffer, then hands the events to processing shards keyed by
+ * orderId. Reading from a connection pauses while it has {@code maxInFlightLines} lines
+ * unacknowledged, so a fast client is held back by TCP flow control instead of by buffering
+ * here. If the shards fall behind on all connections together, the selector thread waits for
+ * room in their queues, which pauses reading everywhere.
+ */
+public class EventSocketServer implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(EventSocketServer.class);
+
+    private final EventIngestor ingestor;
+    private final EventProcessor processor;
+    private final SocketIngestOptions options;
+    private final ServerSocketChannel server;
+    private final Selector selector;
+    private final int port;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    // Connections with lines or an acknowledgement still outstanding; selector thread only
+    private final Set<Connection> awaiting = new LinkedHashSet<>();
+    private volatile boolean running = true;
+    private ShardedEventDispatcher dispatcher;
+    // Written only by the selector thread
+    private volatile long lines;
+    private volatile long rejected;
+
+    EventSocketServer(EventIngestor ingestor, EventProcessor processor, SocketIngestOptions options)
+            throws IOException {
+        this.ingestor = ingestor;
+        this.processor = processor;
+        this.options = options;
+        ServerSocketChannel channel = ServerSocketChannel.open();
+        try {
+            channel.bind(new InetSocketAddress(options.getBindAddress(), options.getPort()));
+            channel.configureBlocking(false);
+            this.selector = Selector.open();
+        } catch (IOException ex) {
+            channel.close();
+            throw ex;
+        }
+        this.server = channel;
+        this.port = channel.socket().getLocalPort();
+    }
+
+    /**
+     * Serves connections until {@link #stop} is called or the thread is interrupted.
+     */
+    @Override
+    public void run() {
+        // Finished batches wake the selector so their acknowledgements go out promptly
+        dispatcher = new ShardedEventDispatcher(processor, options.getShards(), options.getQueueDepth(),
+                options.getProcessBatchSize(), processed -> selector.wakeup());
+        log.info("Accepting events on {}:{}", options.getBindAddress(), port);
+        try {
+            server.register(selector, SelectionKey.OP_ACCEPT);
+            while (running && !Thread.currentThread().isInterrupted()) {
+                selector.select();
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    handle(key);
+                }
+                acknowledge();
+            }
+        } catch (ClosedSelectorException e) {
+            // Closed underneath us; nothing left to serve
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            log.error("Event socket on port {} failed: {}", port, ex.getMessage(), ex);
+        } finally {
+            shutdown();
+        }
+    }
+
+    /**
+     * Stops accepting and reading, and waits up to {@code timeoutMillis} for events already
+     * received to be processed and acknowledged.
+     */
+    public void stop(long timeoutMillis) throws InterruptedException {
+        running = false;
+        selector.wakeup();
+        stopped.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    private void handle(SelectionKey key) throws IOException, InterruptedException {
+        if (!key.isValid()) {
+            return;
+        }
+        if (key.isAcceptable()) {
+            accept();
+            return;
+        }
+        Connection connection = (Connection) key.attachment();
+        try {
+            if (key.isWritable()) {
+                connection.flush();
+            }
+            if (key.isValid() && key.isReadable()) {
+                connection.read();
+            }
+        } catch (IOException ex) {
+            log.warn("Dropping connection from {}: {}", connection.remote, ex.getMessage());
+            close(connection);
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.setOption(StandardSocketOptions.TCP_NODELAY, true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            log.debug("Accepted connection from {}", connection.remote);
+        }
+    }
+
+    private void acknowledge() {
+        Iterator<Connection> it = awaiting.iterator();
+        while (it.hasNext()) {
+            Connection connection = it.next();
+            try {
+                if (connection.acknowledge()) {
+                    it.remove();
+                    if (connection.eof) {
+                        close(connection);
+                    }
+                }
+            } catch (IOException ex) {
+                log.warn("Dropping connection from {}: {}", connection.remote, ex.getMessage());
+                it.remove();
+                close(connection);
+            }
+        }
+    }
+
+    private void close(Connection connection) {
+        awaiting.remove(connection);
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException ignored) {
+            // already gone
+        }
+        log.debug("Closed connection from {} after {} lines ({} rejected)", connection.remote,
+                connection.received, connection.rejected);
+    }
+
+    private void shutdown() {
+        try {
+            server.close();
+        } catch (IOException ex) {
+            log.warn("Failed to close event socket on port {}: {}", port, ex.getMessage());
+        }
+        if (dispatcher != null) {
+            dispatcher.shutdown();
+        }
+        // Everything received has been processed now; tell clients so where the socket allows
+        List<Connection> open = new ArrayList<>();
+        for (SelectionKey key : selector.keys()) {
+            if (key.attachment() instanceof Connection) {
+                open.add((Connection) key.attachment());
+            }
+        }
+        for (Connection connection : open) {
+            try {
+                connection.acknowledge();
+            } catch (IOException ignored) {
+                // closing anyway
+            }
+            close(connection);
+        }
+        try {
+            selector.close();
+        } catch (IOException ex) {
+            log.warn("Failed to close selector: {}", ex.getMessage());
+        }
+        log.info("Stopped accepting events on port {} after {} lines ({} rejected)", port, lines, rejected);
+        stopped.countDown();
+    }
+
+    private static final class Pending {
+        final long lines;
+        final long rejected;
+        final long[] marks;
+
+        Pending(long lines, long rejected, long[] marks) {
+            this.lines = lines;
+            this.rejected = rejected;
+            this.marks = marks;
+        }
+    }
+
+    private final class Connection {
+        final SocketChannel channel;
+        final String remote;
+        SelectionKey key;
+        // Write mode: bytes [0, position) hold received data not yet framed into lines
+        ByteBuffer in;
+        // Bytes before this index are known to contain no newline
+        int scanned;
+        // Read mode: the acknowledgement being written, if any
+        final ByteBuffer out = ByteBuffer.allocateDirect(64);
+        // Lines received, in order, each waiting for the shards to pass its marks
+        final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        long received;
+        long rejected;
+        long processed;
+        long processedRejected;
+        long acknowledged = -1;
+        boolean paused;
+        boolean eof;
+
+        Connection(SocketChannel channel) throws IOException {
+            this.channel = channel;
+            this.remote = String.valueOf(channel.getRemoteAddress());
+            this.in = ByteBuffer.allocateDirect(options.getReadBufferBytes());
+            out.flip();
+        }
+
+        void read() throws IOException, InterruptedException {
+            long before = received;
+            int n;
+            while ((n = channel.read(in)) > 0) {
+                frame();
+                if (!in.hasRemaining()) {
+                    grow();
+                }
+                if (received - processed >= options.getMaxInFlightLines()) {
+                    break;
+                }
+            }
+            if (n < 0) {
+                // The client is done sending; an unterminated last line still counts
+                if (in.position() > 0) {
+                    line(0, in.position());
+                    in.clear();
+                }
+                eof = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+            if (received > before) {
+                pending.addLast(new Pending(received, rejected, dispatcher.marks()));
+            }
+            if (received > before || eof) {
+                awaiting.add(this);
+            }
+            if (!eof && received - processed >= options.getMaxInFlightLines()) {
+                paused = true;
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_READ);
+            }
+        }
+
+        private void frame() throws InterruptedException {
+            int end = in.position();
+            int lineStart = 0;
+            for (int i = scanned; i < end; i++) {
+                if (in.get(i) == '\n') {
+                    line(lineStart, i);
+                    lineStart = i + 1;
+                }
+            }
+            // Move the partial last line to the front; only it is ever copied
+            in.limit(end);
+            in.position(lineStart);
+            in.compact();
+            scanned = in.position();
+        }
+
+        private void grow() throws IOException {
+            if (in.capacity() >= options.getMaxLineBytes()) {
+                throw new IOException("Line longer than " + options.getMaxLineBytes() + " bytes");
+            }
+            ByteBuffer larger = ByteBuffer.allocateDirect((int) Math.min((long) in.capacity() * 2,
+                    options.getMaxLineBytes()));
+            in.flip();
+            larger.put(in);
+            in = larger;
+        }
+
+        private void line(int start, int end) throws InterruptedException {
+            received++;
+            lines++;
+            if (isBlank(start, end)) {
+                return;
+            }
+            ByteBuffer view = in.duplicate();
+            view.limit(end);
+            view.position(start);
+            Event event = ingestor.readLine(view);
+            if (event == null) {
+                rejected++;
+                EventSocketServer.this.rejected++;
+                return;
+            }
+            dispatcher.dispatch(event);
+        }
+
+        private boolean isBlank(int from, int to) {
+            for (int i = from; i < to; i++) {
+                byte b = in.get(i);
+                if (b != ' ' && b != '\t' && b != '\r') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Sends an acknowledgement for whatever has finished processing and resumes reading if
+         * that brought the connection under its in-flight limit. Returns true once nothing is
+         * outstanding, at which point a connection the client has finished with can be closed.
+         */
+        boolean acknowledge() throws IOException {
+            while (!pending.isEmpty() && dispatcher.isProcessed(pending.peekFirst().marks)) {
+                Pending done = pending.removeFirst();
+                processed = done.lines;
+                processedRejected = done.rejected;
+            }
+            // A newer acknowledgement replaces one that has not been written yet
+            if (processed > acknowledged && !out.hasRemaining()) {
+                out.clear();
+                out.put(("ACK " + processed + " " + processedRejected + "\n").getBytes(StandardCharsets.US_ASCII));
+                out.flip();
+                acknowledged = processed;
+                flush();
+            }
+            if (paused && received - processed < options.getMaxInFlightLines()) {
+                paused = false;
+                key.interestOps(key.interestOps() | SelectionKey.OP_READ);
+            }
+            return pending.isEmpty() && !out.hasRemaining();
+        }
+
+        void flush() throws IOException {
+            channel.write(out);
+            if (out.hasRemaining()) {
+                key.interestOps(key.interestOps() | SelectionKey.OP_WRITE);
+            } else {
+                key.interestOps(key.interestOps() & ~SelectionKey.OP_WRITE);
+                awaiting.add(this);
+            }
+        }
+    }
+}
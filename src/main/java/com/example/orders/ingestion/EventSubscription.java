@@ -0,0 +1,19 @@
+package com.example.orders.ingestion;
+
+/**
+ * Link between a producer and a {@link ProcessingSubscriber}, with the same contract as a
+ * Reactive Streams {@code Subscription}: the producer may emit at most as many events as have
+ * been requested in total.
+ */
+public interface EventSubscription {
+
+    /**
+     * Adds {@code n} to the number of events the subscriber is ready to receive.
+     */
+    void request(long n);
+
+    /**
+     * Asks the producer to stop emitting; events already in flight may still arrive.
+     */
+    void cancel();
+}
@@ -0,0 +1,196 @@
+package com.example.orders.ingestion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Follows a file that keeps growing, processing each line once it is complete.
+ *
+ * <p>New data is picked up through a {@link WatchService} on the parent directory; as a
+ * fallback for file systems without native notifications, idle waits back off from
+ * {@code minPollMillis} to {@code maxPollMillis}. When the file is truncated it is re-read from
+ * the start; when it is rotated (the path now names a different file) the old file is drained,
+ * including a final unterminated line, and the new file is followed from its beginning.
+ */
+public class EventTailer implements Runnable {
+    private static final Logger log = LoggerFactory.getLogger(EventTailer.class);
+
+    private final EventIngestor ingestor;
+    private final Path file;
+    private final TailOptions options;
+    private final IngestCheckpoints checkpoints;
+    private final CountDownLatch stopped = new CountDownLatch(1);
+    private volatile boolean running = true;
+    private volatile WatchService watcher;
+
+    private OffsetLineReader reader;
+    private Object fileKey;
+    private long lines;
+    // Offset to checkpoint once the tail catches up, or -1 when already recorded
+    private long pendingCheckpoint = -1;
+
+    EventTailer(EventIngestor ingestor, Path file, TailOptions options, IngestCheckpoints checkpoints) {
+        this.ingestor = ingestor;
+        this.file = file;
+        this.options = options;
+        this.checkpoints = checkpoints;
+    }
+
+    /**
+     * Follows the file until {@link #stop()} is called or the thread is interrupted.
+     */
+    @Override
+    public void run() {
+        log.info("Following {}", file);
+        try (WatchService watchService = FileSystems.getDefault().newWatchService()) {
+            watcher = watchService;
+            Path dir = file.toAbsolutePath().getParent();
+            dir.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            long backoff = options.getMinPollMillis();
+            while (running && !Thread.currentThread().isInterrupted()) {
+                if (drain()) {
+                    backoff = options.getMinPollMillis();
+                    continue;
+                }
+                commitCheckpoint();
+                WatchKey key = watchService.poll(backoff, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    key.pollEvents();
+                    key.reset();
+                    backoff = options.getMinPollMillis();
+                } else {
+                    backoff = Math.min(backoff * 2, options.getMaxPollMillis());
+                }
+            }
+        } catch (ClosedWatchServiceException | InterruptedException e) {
+            // stop() closes the watcher to wake the loop
+        } catch (Exception ex) {
+            log.error("Stopped following {}: {}", file, ex.getMessage(), ex);
+        } finally {
+            try {
+                commitCheckpoint();
+                closeReader();
+            } catch (IOException ex) {
+                log.error("Failed to close {}: {}", file, ex.getMessage(), ex);
+            }
+            log.info("Stopped following {} after {} lines", file, lines);
+            stopped.countDown();
+        }
+    }
+
+    /**
+     * Stops following and waits up to {@code timeoutMillis} for the current line to finish.
+     */
+    public void stop(long timeoutMillis) throws InterruptedException {
+        running = false;
+        WatchService w = watcher;
+        if (w != null) {
+            try {
+                w.close();
+            } catch (IOException ignored) {
+                // already closing
+            }
+        }
+        stopped.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    /**
+     * Processes every complete line available now. Returns true if anything was read.
+     */
+    private boolean drain() throws IOException {
+        if (reader == null && !open()) {
+            return false;
+        }
+        boolean progressed = false;
+        while (running && reader.nextComplete()) {
+            process();
+            progressed = true;
+        }
+        if (progressed) {
+            return true;
+        }
+        Object currentKey;
+        long size;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            currentKey = attributes.fileKey();
+            size = attributes.size();
+        } catch (NoSuchFileException e) {
+            // Rotated away and not recreated yet; keep the old file open in case it is still written
+            return false;
+        }
+        if (!Objects.equals(currentKey, fileKey)) {
+            log.info("{} was rotated, finishing the old file", file);
+            if (reader.takeRemainder()) {
+                process();
+            }
+            closeReader();
+            return open();
+        }
+        if (size < reader.getReadPosition()) {
+            log.warn("{} was truncated to {} bytes, reading it again from the start", file, size);
+            closeReader();
+            if (checkpoints != null) {
+                checkpoints.commit(0);
+            }
+            return open();
+        }
+        return false;
+    }
+
+    private boolean open() throws IOException {
+        try {
+            fileKey = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+            long offset = checkpoints == null ? 0 : checkpoints.begin(file);
+            reader = new OffsetLineReader(file, offset, 1 << 16);
+            pendingCheckpoint = -1;
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    private void process() throws IOException {
+        if (!EventIngestor.isBlank(reader.getBuffer(), reader.getLineStart(), reader.getLineStart() + reader.getLineLength())) {
+            ingestor.processLine(reader.getBuffer(), reader.getLineStart(), reader.getLineLength());
+            lines++;
+            if (checkpoints != null) {
+                checkpoints.advance(reader.getOffset());
+            }
+        }
+        pendingCheckpoint = reader.getOffset();
+    }
+
+    private void commitCheckpoint() throws IOException {
+        // Record the position once the tail catches up, so idle periods do not leave it stale
+        if (checkpoints != null && reader != null && pendingCheckpoint >= 0) {
+            checkpoints.commit(pendingCheckpoint);
+            pendingCheckpoint = -1;
+        }
+    }
+
+    private void closeReader() throws IOException {
+        if (reader != null) {
+            reader.close();
+            reader = null;
+        }
+    }
+}
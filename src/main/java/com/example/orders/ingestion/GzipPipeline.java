@@ -0,0 +1,294 @@
+package com.example.orders.ingestion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses a gzip file on background threads and serves the result as a stream, so
+ * inflating and parsing overlap instead of taking turns. Decompressed chunks are handed over
+ * through a bounded queue; decompression stalls once the reader falls that far behind.
+ *
+ * <p>Ordinary gzip, including files of several concatenated members, is inflated by one thread.
+ * BGZF files record the compressed size of every member, so their blocks are inflated in
+ * parallel and handed over in file order.
+ */
+final class GzipPipeline extends InputStream {
+    private static final Logger log = LoggerFactory.getLogger(GzipPipeline.class);
+
+    private static final byte[] END = new byte[0];
+    private static final int MAX_BLOCK_SIZE = 1 << 16;
+    private static final ThreadLocal<Inflater> INFLATERS = ThreadLocal.withInitial(() -> new Inflater(true));
+
+    private final BlockingQueue<Future<byte[]>> chunks;
+    private final ExecutorService inflaters;
+    private final Thread reader;
+    private byte[] current = END;
+    private int position;
+    private boolean finished;
+    private boolean closed;
+
+    GzipPipeline(Path file, DecompressionOptions options) throws IOException {
+        this.chunks = new ArrayBlockingQueue<>(options.getQueueChunks());
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+        boolean bgzf;
+        try {
+            bgzf = startsWithBgzfBlock(in);
+        } catch (IOException ex) {
+            in.close();
+            throw ex;
+        }
+        if (bgzf) {
+            log.debug("{} is block-gzipped, inflating with {} threads", file, options.getThreads());
+            this.inflaters = Executors.newFixedThreadPool(options.getThreads(),
+                    ParallelIngestPipeline.daemonThreads("ingest-inflate-"));
+            this.reader = new Thread(() -> produce(in, () -> readBlocks(in)), "ingest-gunzip");
+        } else {
+            this.inflaters = null;
+            int chunkBytes = options.getChunkBytes();
+            this.reader = new Thread(() -> produce(in, () -> inflateStream(in, chunkBytes)), "ingest-gunzip");
+        }
+        this.reader.setDaemon(true);
+        this.reader.start();
+    }
+
+    /**
+     * True if the file starts with the gzip magic bytes.
+     */
+    static boolean isGzip(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return in.read() == 0x1f && in.read() == 0x8b;
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!advance()) {
+            return -1;
+        }
+        return current[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!advance()) {
+            return -1;
+        }
+        int n = Math.min(len, current.length - position);
+        System.arraycopy(current, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        finished = true;
+        reader.interrupt();
+        if (inflaters != null) {
+            inflaters.shutdownNow();
+        }
+        chunks.clear();
+    }
+
+    private boolean advance() throws IOException {
+        while (position == current.length) {
+            if (finished) {
+                return false;
+            }
+            byte[] next;
+            try {
+                next = chunks.take().get();
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for decompressed data");
+            } catch (ExecutionException ee) {
+                finished = true;
+                Throwable cause = ee.getCause();
+                throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+            }
+            if (next == END) {
+                finished = true;
+                return false;
+            }
+            current = next;
+            position = 0;
+        }
+        return true;
+    }
+
+    private interface Producer {
+        void run() throws IOException, InterruptedException;
+    }
+
+    private void produce(InputStream in, Producer producer) {
+        try {
+            try {
+                producer.run();
+            } finally {
+                in.close();
+            }
+            chunks.put(CompletableFuture.completedFuture(END));
+        } catch (InterruptedException ie) {
+            // Closed by the consumer
+        } catch (Exception ex) {
+            CompletableFuture<byte[]> failed = new CompletableFuture<>();
+            failed.completeExceptionally(ex);
+            try {
+                chunks.put(failed);
+            } catch (InterruptedException ie) {
+                // Closed by the consumer
+            }
+        }
+    }
+
+    private void inflateStream(InputStream in, int chunkBytes) throws IOException, InterruptedException {
+        // GZIPInputStream carries on into the next member of a concatenated file by itself
+        try (GZIPInputStream gzip = new GZIPInputStream(in, 1 << 16)) {
+            while (true) {
+                byte[] chunk = new byte[chunkBytes];
+                int n = 0;
+                int read;
+                while (n < chunk.length && (read = gzip.read(chunk, n, chunk.length - n)) > 0) {
+                    n += read;
+                }
+                if (n > 0) {
+                    chunks.put(CompletableFuture.completedFuture(n == chunk.length ? chunk : Arrays.copyOf(chunk, n)));
+                }
+                if (n < chunk.length) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void readBlocks(DataInputStream in) throws IOException, InterruptedException {
+        byte[] header = new byte[12];
+        long offset = 0;
+        while (true) {
+            int first = in.read();
+            if (first < 0) {
+                return;
+            }
+            header[0] = (byte) first;
+            in.readFully(header, 1, header.length - 1);
+            int extraLength = u16(header, 10);
+            byte[] extra = new byte[extraLength];
+            in.readFully(extra);
+            int blockSize = bgzfBlockSize(header, extra);
+            if (blockSize < 0) {
+                throw new ZipException("Not a BGZF block at offset " + offset);
+            }
+            if (blockSize < header.length + extraLength + 8) {
+                throw new ZipException("Invalid BGZF block size " + blockSize + " at offset " + offset);
+            }
+            // Compressed data followed by the CRC32 and uncompressed size of the member
+            byte[] body = new byte[blockSize - header.length - extraLength];
+            in.readFully(body);
+            long blockOffset = offset;
+            chunks.put(inflaters.submit(() -> inflateBlock(body, blockOffset)));
+            offset += blockSize;
+        }
+    }
+
+    private static byte[] inflateBlock(byte[] body, long offset) throws IOException {
+        int dataLength = body.length - 8;
+        int expectedCrc = s32(body, dataLength);
+        int size = s32(body, dataLength + 4);
+        if (size < 0 || size > MAX_BLOCK_SIZE) {
+            throw new ZipException("Invalid BGZF block at offset " + offset);
+        }
+        byte[] out = new byte[size];
+        Inflater inflater = INFLATERS.get();
+        inflater.reset();
+        inflater.setInput(body, 0, dataLength);
+        try {
+            int n = 0;
+            while (n < size) {
+                int read = inflater.inflate(out, n, size - n);
+                if (read == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new ZipException("Corrupt BGZF block at offset " + offset);
+                }
+                n += read;
+            }
+        } catch (DataFormatException ex) {
+            throw new ZipException("Corrupt BGZF block at offset " + offset + ": " + ex.getMessage());
+        }
+        CRC32 crc = new CRC32();
+        crc.update(out, 0, size);
+        if ((int) crc.getValue() != expectedCrc) {
+            throw new ZipException("CRC mismatch in BGZF block at offset " + offset);
+        }
+        return out;
+    }
+
+    private static boolean startsWithBgzfBlock(DataInputStream in) throws IOException {
+        in.mark(12 + 0xffff);
+        try {
+            byte[] header = new byte[12];
+            in.readFully(header);
+            byte[] extra = new byte[u16(header, 10)];
+            in.readFully(extra);
+            return bgzfBlockSize(header, extra) > 0;
+        } catch (EOFException eof) {
+            return false;
+        } finally {
+            in.reset();
+        }
+    }
+
+    /**
+     * Total size of the BGZF member starting with {@code header}, taken from its "BC" extra
+     * subfield, or -1 if the member is not a BGZF block.
+     */
+    private static int bgzfBlockSize(byte[] header, byte[] extra) {
+        // Magic, deflate, and FEXTRA as the only flag
+        if ((header[0] & 0xff) != 0x1f || (header[1] & 0xff) != 0x8b || header[2] != 8 || header[3] != 4) {
+            return -1;
+        }
+        int pos = 0;
+        while (pos + 4 <= extra.length) {
+            int length = u16(extra, pos + 2);
+            if (extra[pos] == 'B' && extra[pos + 1] == 'C' && length == 2 && pos + 6 <= extra.length) {
+                return u16(extra, pos + 4) + 1;
+            }
+            pos += 4 + length;
+        }
+        return -1;
+    }
+
+    private static int u16(byte[] b, int pos) {
+        return (b[pos] & 0xff) | (b[pos + 1] & 0xff) << 8;
+    }
+
+    private static int s32(byte[] b, int pos) {
+        return u16(b, pos) | u16(b, pos + 2) << 16;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.orders.ingestion;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Properties;
+import java.util.zip.CRC32;
+
+/**
+ * Records how far into an input file ingestion has got, so a restarted ingest can seek past
+ * events that were already processed.
+ *
+ * <p>A checkpoint holds the byte offset just after the last fully processed event plus the
+ * file's identity (file key and a checksum of its first bytes); a checkpoint for a different or
+ * rewritten file is ignored. Before each checkpoint the durable state it depends on (usually the
+ * persistent order repository) is flushed, and the file is replaced atomically. Events after the
+ * last checkpoint are processed again after a crash.
+ *
+ * <p>Tracks one input at a time and is not thread-safe.
+ */
+public class IngestCheckpoints {
+    private static final Logger log = LoggerFactory.getLogger(IngestCheckpoints.class);
+
+    private static final int FINGERPRINT_BYTES = 4096;
+
+    private final CheckpointOptions options;
+    private final Flushable durableState;
+
+    private Path input;
+    private String fileKey;
+    private long fingerprint;
+    private int fingerprintLength;
+    private long eventsSinceCheckpoint;
+    private long lastCheckpointNanos;
+    private long checkpoints;
+
+    /**
+     * @param durableState flushed before every checkpoint so the checkpoint never gets ahead of
+     *                     the state it describes; may be null
+     */
+    public IngestCheckpoints(CheckpointOptions options, Flushable durableState) {
+        this.options = options;
+        this.durableState = durableState;
+    }
+
+    /**
+     * Starts tracking {@code file} and returns the offset ingestion should resume from: the
+     * checkpointed offset if it belongs to this file, otherwise 0.
+     */
+    public long begin(Path file) throws IOException {
+        input = file;
+        fileKey = fileKey(file);
+        fingerprintLength = (int) Math.min(Files.size(file), FINGERPRINT_BYTES);
+        fingerprint = fingerprint(file, fingerprintLength);
+        eventsSinceCheckpoint = 0;
+        lastCheckpointNanos = System.nanoTime();
+
+        Properties saved = load(checkpointPath(file));
+        if (saved == null) {
+            return 0;
+        }
+        long offset = Long.parseLong(saved.getProperty("offset", "0"));
+        int savedLength = Integer.parseInt(saved.getProperty("fingerprintLength", "0"));
+        boolean sameFile = fileKey.equals(saved.getProperty("fileKey", ""))
+                && savedLength <= Files.size(file)
+                && Long.parseLong(saved.getProperty("fingerprint", "0")) == fingerprint(file, savedLength)
+                && offset <= Files.size(file);
+        if (!sameFile) {
+            log.warn("Ignoring checkpoint for {}: the file was replaced or rewritten", file);
+            return 0;
+        }
+        log.info("Resuming {} from byte offset {}", file, offset);
+        return offset;
+    }
+
+    /**
+     * Notes that every event before {@code offset} has been processed, writing a checkpoint
+     * when the configured interval has passed.
+     */
+    public void advance(long offset) throws IOException {
+        eventsSinceCheckpoint++;
+        if (eventsSinceCheckpoint >= options.getIntervalEvents()
+                || System.nanoTime() - lastCheckpointNanos >= options.getIntervalMillis() * 1_000_000L) {
+            commit(offset);
+        }
+    }
+
+    /**
+     * Writes a checkpoint at {@code offset} now.
+     */
+    public void commit(long offset) throws IOException {
+        if (durableState != null) {
+            durableState.flush();
+        }
+        Properties checkpoint = new Properties();
+        checkpoint.setProperty("path", input.toAbsolutePath().toString());
+        checkpoint.setProperty("fileKey", fileKey);
+        checkpoint.setProperty("fingerprint", Long.toString(fingerprint));
+        checkpoint.setProperty("fingerprintLength", Integer.toString(fingerprintLength));
+        checkpoint.setProperty("offset", Long.toString(offset));
+        write(checkpointPath(input), checkpoint);
+        eventsSinceCheckpoint = 0;
+        lastCheckpointNanos = System.nanoTime();
+        checkpoints++;
+    }
+
+    public long getCheckpoints() {
+        return checkpoints;
+    }
+
+    Path checkpointPath(Path file) {
+        // Distinguish inputs that share a file name but live in different directories
+        CRC32 crc = new CRC32();
+        byte[] absolute = file.toAbsolutePath().normalize().toString().getBytes(StandardCharsets.UTF_8);
+        crc.update(absolute, 0, absolute.length);
+        return options.getDir().resolve(String.format("ingest-%s-%08x.checkpoint", file.getFileName(), crc.getValue()));
+    }
+
+    private static Properties load(Path checkpoint) throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(checkpoint)) {
+            properties.load(in);
+            return properties;
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+
+    private static void write(Path checkpoint, Properties properties) throws IOException {
+        Files.createDirectories(checkpoint.getParent());
+        Path tmp = checkpoint.resolveSibling(checkpoint.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream out = Channels.newOutputStream(channel);
+            properties.store(out, null);
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, checkpoint, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String fileKey(Path file) throws IOException {
+        Object key = Files.readAttributes(file, BasicFileAttributes.class).fileKey();
+        return key == null ? "" : key.toString();
+    }
+
+    private static long fingerprint(Path file, int length) throws IOException {
+        ByteBuffer head = ByteBuffer.allocate(length);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int read = 0;
+            while (head.hasRemaining() && read >= 0) {
+                read = channel.read(head);
+            }
+        }
+        CRC32 crc = new CRC32();
+        crc.update(head.array(), 0, head.position());
+        return crc.getValue();
+    }
+}
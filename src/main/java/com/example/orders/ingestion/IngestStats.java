@@ -0,0 +1,46 @@
+package com.example.orders.ingestion;
+
+import java.util.Collections;
+import java.util.List;
+
+public class IngestStats {
+    private final long lines;
+    private final long failures;
+    private final long elapsedNanos;
+    private final List<ShardStats> shards;
+
+    public IngestStats(long lines, long failures, long elapsedNanos, List<ShardStats> shards) {
+        this.lines = lines;
+        this.failures = failures;
+        this.elapsedNanos = elapsedNanos;
+        this.shards = Collections.unmodifiableList(shards);
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public List<ShardStats> getShards() {
+        return shards;
+    }
+
+    public long getEvents() {
+        long total = 0;
+        for (ShardStats s : shards) {
+            total += s.getEvents();
+        }
+        return total;
+    }
+
+    public double getEventsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : getEvents() * 1_000_000_000.0 / elapsedNanos;
+    }
+}
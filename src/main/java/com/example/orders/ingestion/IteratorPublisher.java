@@ -0,0 +1,71 @@
+package com.example.orders.ingestion;
+
+import com.example.orders.events.Event;
+
+import java.util.Iterator;
+
+/**
+ * Feeds events from an iterator to a {@link ProcessingSubscriber} on the calling thread,
+ * emitting only as far as the subscriber's demand allows and waiting for more otherwise.
+ */
+final class IteratorPublisher implements EventSubscription {
+    private final Iterator<? extends Event> source;
+    private final Object lock = new Object();
+    private long demand;
+    private boolean cancelled;
+
+    IteratorPublisher(Iterator<? extends Event> source) {
+        this.source = source;
+    }
+
+    @Override
+    public void request(long n) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("Demand must be positive: " + n);
+        }
+        synchronized (lock) {
+            // Saturate instead of overflowing, as Reactive Streams requires
+            demand = demand + n < 0 ? Long.MAX_VALUE : demand + n;
+            lock.notifyAll();
+        }
+    }
+
+    @Override
+    public void cancel() {
+        synchronized (lock) {
+            cancelled = true;
+            lock.notifyAll();
+        }
+    }
+
+    void run(ProcessingSubscriber subscriber) throws InterruptedException {
+        subscriber.onSubscribe(this);
+        try {
+            while (true) {
+                synchronized (lock) {
+                    while (demand == 0 && !cancelled) {
+                        lock.wait();
+                    }
+                    if (cancelled) {
+                        return;
+                    }
+                }
+                if (!source.hasNext()) {
+                    break;
+                }
+                Event event = source.next();
+                if (event == null) {
+                    continue;
+                }
+                synchronized (lock) {
+                    demand--;
+                }
+                subscriber.onNext(event);
+            }
+        } catch (RuntimeException ex) {
+            subscriber.onError(ex);
+            return;
+        }
+        subscriber.onComplete();
+    }
+}
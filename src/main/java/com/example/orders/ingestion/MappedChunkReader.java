@@ -0,0 +1,104 @@
+package com.example.orders.ingestion;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Reads an NDJSON file through a sliding window of read-only memory mappings and cuts it into
+ * chunks that always end on a line boundary. Chunk bytes are copied into pooled arrays so the
+ * parser can work on byte slices without decoding lines into Strings first.
+ */
+class MappedChunkReader {
+
+    interface ChunkHandler {
+        /**
+         * Receives a chunk of whole lines in {@code buffer[0, length)}. The handler owns the buffer
+         * until it passes it back to {@link MappedChunkReader#release(byte[])}.
+         */
+        void onChunk(byte[] buffer, int length) throws IOException, InterruptedException;
+    }
+
+    private final int chunkBytes;
+    private final long windowBytes;
+    private final BlockingQueue<byte[]> pool;
+
+    MappedChunkReader(int chunkBytes, long windowBytes, int pooledBuffers) {
+        if (windowBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Mapping window cannot exceed 2 GB: " + windowBytes);
+        }
+        this.chunkBytes = chunkBytes;
+        this.windowBytes = windowBytes;
+        this.pool = new ArrayBlockingQueue<>(pooledBuffers);
+        for (int i = 0; i < pooledBuffers; i++) {
+            pool.add(new byte[chunkBytes]);
+        }
+    }
+
+    void read(Path file, ChunkHandler handler) throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                long mapped = Math.min(windowBytes, size - position);
+                ByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, mapped);
+                boolean lastWindow = position + mapped == size;
+                int end = lastWindow ? (int) mapped : lastNewline(window, (int) mapped) + 1;
+                if (end == 0) {
+                    throw new IOException("Line at offset " + position + " is longer than the mapping window of "
+                            + windowBytes + " bytes");
+                }
+                emitChunks(window, end, handler);
+                position += end;
+            }
+        }
+    }
+
+    void release(byte[] buffer) {
+        // Oversized buffers for unusually long lines are dropped rather than pooled
+        if (buffer.length == chunkBytes) {
+            pool.offer(buffer);
+        }
+    }
+
+    private void emitChunks(ByteBuffer window, int end, ChunkHandler handler)
+            throws IOException, InterruptedException {
+        int start = 0;
+        while (start < end) {
+            int cut = Math.min(start + chunkBytes, end);
+            if (cut < end) {
+                cut = nextNewline(window, cut - 1, end) + 1;
+            }
+            int length = cut - start;
+            byte[] buffer = length <= chunkBytes ? pool.take() : new byte[length];
+            ByteBuffer view = window.duplicate();
+            view.position(start);
+            view.get(buffer, 0, length);
+            handler.onChunk(buffer, length);
+            start = cut;
+        }
+    }
+
+    private static int lastNewline(ByteBuffer window, int limit) {
+        for (int i = limit - 1; i >= 0; i--) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // The caller guarantees a newline at or before end - 1
+    private static int nextNewline(ByteBuffer window, int from, int end) {
+        for (int i = from; i < end; i++) {
+            if (window.get(i) == '\n') {
+                return i;
+            }
+        }
+        return end - 1;
+    }
+}
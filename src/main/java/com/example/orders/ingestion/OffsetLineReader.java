@@ -0,0 +1,150 @@
+package com.example.orders.ingestion;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Reads newline-delimited records as raw bytes while tracking the file offset just past the
+ * current line, so a reader can be reopened exactly where an earlier one stopped.
+ */
+final class OffsetLineReader implements Closeable {
+    // Exactly one source is set: a file channel, or a stream such as decompressed input
+    private final FileChannel channel;
+    private final InputStream stream;
+    private byte[] buffer;
+    private int start;
+    private int end;
+    private boolean eof;
+
+    private int lineStart;
+    private int lineLength;
+    private long offset;
+
+    OffsetLineReader(Path file, long startOffset, int bufferSize) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.channel.position(startOffset);
+        this.stream = null;
+        this.buffer = new byte[bufferSize];
+        this.offset = startOffset;
+    }
+
+    /**
+     * Reads lines from a stream; offsets then count bytes from the start of the stream.
+     */
+    OffsetLineReader(InputStream stream, int bufferSize) {
+        this.channel = null;
+        this.stream = stream;
+        this.buffer = new byte[bufferSize];
+    }
+
+    /**
+     * Advances to the next line. A final line without a trailing newline is still returned.
+     */
+    boolean next() throws IOException {
+        return next(true);
+    }
+
+    /**
+     * Advances to the next newline-terminated line. At the end of the file a partial line stays
+     * buffered and false is returned; a later call picks up whatever has been appended since.
+     */
+    boolean nextComplete() throws IOException {
+        boolean found = next(false);
+        eof = false;
+        return found;
+    }
+
+    /**
+     * Returns a buffered partial line as the current line, for when no more data will arrive.
+     */
+    boolean takeRemainder() {
+        return start < end && take(end - start, end);
+    }
+
+    /**
+     * File position up to which data has been read, including a buffered partial line.
+     */
+    long getReadPosition() {
+        return offset + (end - start);
+    }
+
+    private boolean next(boolean allowPartial) throws IOException {
+        int scan = start;
+        while (true) {
+            for (int i = scan; i < end; i++) {
+                if (buffer[i] == '\n') {
+                    return take(i - start, i + 1);
+                }
+            }
+            if (eof) {
+                return allowPartial && takeRemainder();
+            }
+            scan = end - start;
+            fill();
+            scan += start;
+        }
+    }
+
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int getLineStart() {
+        return lineStart;
+    }
+
+    int getLineLength() {
+        return lineLength;
+    }
+
+    /**
+     * File offset of the first byte after the current line (and its newline).
+     */
+    long getOffset() {
+        return offset;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        } else {
+            stream.close();
+        }
+    }
+
+    private boolean take(int length, int next) {
+        lineStart = start;
+        lineLength = length;
+        offset += next - start;
+        start = next;
+        return true;
+    }
+
+    private void fill() throws IOException {
+        // Keep the unfinished line at the front, growing the buffer for lines longer than it
+        int remaining = end - start;
+        if (remaining == buffer.length) {
+            byte[] larger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, start, larger, 0, remaining);
+            buffer = larger;
+        } else if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, remaining);
+        }
+        start = 0;
+        end = remaining;
+        int read = channel != null
+                ? channel.read(ByteBuffer.wrap(buffer, end, buffer.length - end))
+                : stream.read(buffer, end, buffer.length - end);
+        if (read <= 0) {
+            eof = true;
+        } else {
+            end += read;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.orders.ingestion;
+
+public class ParallelIngestOptions {
+    private int workers = Runtime.getRuntime().availableProcessors();
+    private int shards = Runtime.getRuntime().availableProcessors();
+    // Capacity of each shard's event queue; the reader blocks once a shard falls this far behind
+    private int queueDepth = 4096;
+    // Number of lines handed to a parse worker as one task
+    private int batchSize = 512;
+    // Most queued events a shard applies as one EventProcessor.processBatch call; 1 processes them one by one
+    private int processBatchSize = 256;
+    // Memory-mapped reader: bytes per parse task and size of each file mapping
+    private int chunkBytes = 1 << 20;
+    private long mappingWindowBytes = 256L << 20;
+
+    public ParallelIngestOptions() {}
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getProcessBatchSize() {
+        return processBatchSize;
+    }
+
+    public int getChunkBytes() {
+        return chunkBytes;
+    }
+
+    public long getMappingWindowBytes() {
+        return mappingWindowBytes;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = requirePositive("workers", workers);
+    }
+
+    public void setShards(int shards) {
+        this.shards = requirePositive("shards", shards);
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = requirePositive("queueDepth", queueDepth);
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = requirePositive("batchSize", batchSize);
+    }
+
+    public void setProcessBatchSize(int processBatchSize) {
+        this.processBatchSize = requirePositive("processBatchSize", processBatchSize);
+    }
+
+    public void setChunkBytes(int chunkBytes) {
+        this.chunkBytes = requirePositive("chunkBytes", chunkBytes);
+    }
+
+    public void setMappingWindowBytes(long mappingWindowBytes) {
+        if (mappingWindowBytes <= 0 || mappingWindowBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("mappingWindowBytes must be between 1 and 2 GB: " + mappingWindowBytes);
+        }
+        this.mappingWindowBytes = mappingWindowBytes;
+    }
+
+    private static int requirePositive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.orders.ingestion;
+
+import com.example.orders.events.Event;
+import com.example.orders.processing.EventProcessor;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parses batches on a worker pool and hands the results to a {@link ShardedEventDispatcher}
+ * in submission order, so per-order ordering from the input survives parallel parsing.
+ */
+class ParallelIngestPipeline implements AutoCloseable {
+    private final ExecutorService parsers;
+    private final ShardedEventDispatcher dispatcher;
+    private final ArrayDeque<Future<List<Event>>> pending = new ArrayDeque<>();
+    private final int maxPending;
+    private boolean closed;
+
+    ParallelIngestPipeline(EventProcessor processor, ParallelIngestOptions options) {
+        this.parsers = Executors.newFixedThreadPool(options.getWorkers(), daemonThreads("ingest-parse-"));
+        this.dispatcher = new ShardedEventDispatcher(processor, options.getShards(), options.getQueueDepth(),
+                options.getProcessBatchSize());
+        // Enough work in flight to keep every parser busy without buffering the whole file
+        this.maxPending = options.getWorkers() * 2;
+    }
+
+    /**
+     * Queues a parse task. Blocks while too many tasks are in flight, forwarding completed
+     * batches to the shards in the order they were submitted.
+     */
+    void submit(Callable<List<Event>> parseTask) throws InterruptedException {
+        pending.addLast(parsers.submit(parseTask));
+        while (pending.size() > maxPending) {
+            forward(pending.removeFirst());
+        }
+    }
+
+    /**
+     * Forwards all outstanding batches and waits for the shards to drain.
+     */
+    List<ShardStats> finish() throws InterruptedException {
+        while (!pending.isEmpty()) {
+            forward(pending.removeFirst());
+        }
+        return shutdown();
+    }
+
+    @Override
+    public void close() {
+        for (Future<List<Event>> f : pending) {
+            f.cancel(true);
+        }
+        pending.clear();
+        shutdown();
+    }
+
+    private List<ShardStats> shutdown() {
+        if (!closed) {
+            closed = true;
+            parsers.shutdownNow();
+        }
+        return dispatcher.shutdown();
+    }
+
+    private void forward(Future<List<Event>> batch) throws InterruptedException {
+        List<Event> events;
+        try {
+            events = batch.get();
+        } catch (ExecutionException ee) {
+            // Parse tasks handle their own per-line failures; anything else is a bug in the task
+            throw new IllegalStateException("Parse task failed", ee.getCause());
+        }
+        for (Event event : events) {
+            dispatcher.dispatch(event);
+        }
+    }
+
+    static ThreadFactory daemonThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.orders.ingestion;
+
+import com.example.orders.events.Event;
+import com.example.orders.processing.EventProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entry point for producers that are not files (an in-process queue, a socket, a generator),
+ * following the Reactive Streams {@code Subscriber} contract. The producer calls
+ * {@link #onSubscribe}, emits events with {@link #onNext} while it has demand and ends with
+ * {@link #onComplete} or {@link #onError}; signals must not overlap, as in Reactive Streams.
+ *
+ * <p>The whole buffer is requested up front and topped up as processing threads finish
+ * events, so no more than {@code bufferSize} events are ever held. Events are processed on
+ * {@code parallelism} threads keyed by orderId, keeping each order's events in arrival order.
+ */
+public class ProcessingSubscriber {
+    private static final Logger log = LoggerFactory.getLogger(ProcessingSubscriber.class);
+
+    private final EventProcessor processor;
+    private final SubscriberOptions options;
+    // Processed events are returned to the producer as demand in chunks of this size
+    private final long replenishThreshold;
+    private final AtomicLong credit = new AtomicLong();
+    private final AtomicLong requested = new AtomicLong();
+    private final CompletableFuture<IngestStats> completion = new CompletableFuture<>();
+    private final Object subscriptionLock = new Object();
+    private EventSubscription subscription;
+    private ShardedEventDispatcher dispatcher;
+    private long startNanos;
+    private volatile long received;
+    private final AtomicBoolean done = new AtomicBoolean();
+
+    public ProcessingSubscriber(EventProcessor processor, SubscriberOptions options) {
+        this.processor = processor;
+        this.options = options;
+        this.replenishThreshold = Math.max(1, options.getBufferSize() / 4);
+    }
+
+    public void onSubscribe(EventSubscription s) {
+        Objects.requireNonNull(s, "subscription");
+        synchronized (subscriptionLock) {
+            if (subscription != null) {
+                // Only one producer per subscriber
+                s.cancel();
+                return;
+            }
+            subscription = s;
+            startNanos = System.nanoTime();
+            dispatcher = new ShardedEventDispatcher(processor, options.getParallelism(), options.getBufferSize(),
+                    options.getProcessBatchSize(), this::processed);
+        }
+        request(options.getBufferSize());
+    }
+
+    public void onNext(Event event) {
+        Objects.requireNonNull(event, "event");
+        if (done.get()) {
+            return;
+        }
+        long count = received + 1;
+        received = count;
+        if (count > requested.get()) {
+            fail(new IllegalStateException("Producer emitted " + count + " events but only "
+                    + requested.get() + " were requested"));
+            return;
+        }
+        try {
+            // Never blocks: every shard queue can hold the whole outstanding demand
+            dispatcher.dispatch(event);
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            fail(ie);
+        }
+    }
+
+    public void onError(Throwable error) {
+        Objects.requireNonNull(error, "error");
+        if (done.get()) {
+            return;
+        }
+        log.error("Event producer failed after {} events: {}", received, error.getMessage(), error);
+        finish(error);
+    }
+
+    public void onComplete() {
+        finish(null);
+    }
+
+    /**
+     * Cancels the subscription; events already buffered are still processed.
+     */
+    public void cancel() {
+        if (done.get()) {
+            return;
+        }
+        synchronized (subscriptionLock) {
+            if (subscription != null) {
+                subscription.cancel();
+            }
+        }
+        finish(null);
+    }
+
+    /**
+     * Completes once every received event has been processed, after {@link #onComplete},
+     * {@link #onError} or {@link #cancel}. Fails if the producer reported an error.
+     */
+    public CompletableFuture<IngestStats> getCompletion() {
+        return completion;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    private void processed(long count) {
+        if (credit.addAndGet(count) >= replenishThreshold && !done.get()) {
+            long amount = credit.getAndSet(0);
+            if (amount > 0) {
+                request(amount);
+            }
+        }
+    }
+
+    private void request(long n) {
+        synchronized (subscriptionLock) {
+            requested.addAndGet(n);
+            subscription.request(n);
+        }
+    }
+
+    private void fail(Throwable error) {
+        log.error("Cancelling event subscription: {}", error.getMessage());
+        synchronized (subscriptionLock) {
+            subscription.cancel();
+        }
+        finish(error);
+    }
+
+    private void finish(Throwable error) {
+        if (!done.compareAndSet(false, true)) {
+            return;
+        }
+        ShardedEventDispatcher shards;
+        synchronized (subscriptionLock) {
+            shards = dispatcher;
+        }
+        if (shards == null) {
+            complete(error, new ArrayList<>());
+            return;
+        }
+        // Draining the shards can take a while; keep it off the producer's thread
+        Thread drain = new Thread(() -> complete(error, shards.shutdown()), "subscriber-drain");
+        drain.setDaemon(true);
+        drain.start();
+    }
+
+    private void complete(Throwable error, List<ShardStats> shards) {
+        if (error != null) {
+            completion.completeExceptionally(error);
+            return;
+        }
+        IngestStats stats = new IngestStats(received, 0, System.nanoTime() - startNanos, shards);
+        log.info("Processed {} pushed events at {} events/s", stats.getLines(),
+                String.format("%.0f", stats.getEventsPerSecond()));
+        completion.complete(stats);
+    }
+}
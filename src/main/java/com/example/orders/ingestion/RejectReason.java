@@ -0,0 +1,11 @@
+package com.example.orders.ingestion;
+
+/**
+ * Why an input line was not processed.
+ */
+public enum RejectReason {
+    MALFORMED_JSON,
+    MISSING_EVENT_TYPE,
+    UNKNOWN_EVENT_TYPE,
+    MISSING_ORDER_ID
+}
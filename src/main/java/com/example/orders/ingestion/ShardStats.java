@@ -0,0 +1,45 @@
+package com.example.orders.ingestion;
+
+public class ShardStats {
+    private final int shard;
+    private final long events;
+    private final long busyNanos;
+    private final long elapsedNanos;
+
+    public ShardStats(int shard, long events, long busyNanos, long elapsedNanos) {
+        this.shard = shard;
+        this.events = events;
+        this.busyNanos = busyNanos;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public long getEvents() {
+        return events;
+    }
+
+    public long getBusyNanos() {
+        return busyNanos;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    public double getEventsPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : events * 1_000_000_000.0 / elapsedNanos;
+    }
+
+    public double getUtilization() {
+        return elapsedNanos == 0 ? 0.0 : (double) busyNanos / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("shard=%d events=%d rate=%.0f/s utilization=%.0f%%",
+                shard, events, getEventsPerSecond(), getUtilization() * 100);
+    }
+}
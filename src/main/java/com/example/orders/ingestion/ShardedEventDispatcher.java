@@ -0,0 +1,192 @@
+package com.example.orders.ingestion;
+
+import com.example.orders.events.Event;
+import com.example.orders.processing.EventProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.function.LongConsumer;
+
+/**
+ * Routes events to single-threaded shards by orderId hash, so events for one order are
+ * processed in arrival order while different orders proceed in parallel. A shard that finds
+ * several events queued hands them to {@link EventProcessor#processBatch} together.
+ */
+class ShardedEventDispatcher {
+    private static final Logger log = LoggerFactory.getLogger(ShardedEventDispatcher.class);
+
+    private static final Event POISON = new Event() {};
+
+    private final Shard[] shards;
+    private final long startNanos = System.nanoTime();
+    private List<ShardStats> stats;
+
+    ShardedEventDispatcher(EventProcessor processor, int shardCount, int queueDepth, int processBatchSize) {
+        this(processor, shardCount, queueDepth, processBatchSize, null);
+    }
+
+    /**
+     * Like the constructor above, but each shard also reports to {@code onProcessed} (on its own
+     * thread) how many events it has just taken off its queue and processed.
+     */
+    ShardedEventDispatcher(EventProcessor processor, int shardCount, int queueDepth, int processBatchSize,
+                           LongConsumer onProcessed) {
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(i, processor, queueDepth, processBatchSize, onProcessed);
+            shards[i].thread.start();
+        }
+    }
+
+    static int shardFor(String orderId, int shardCount) {
+        if (orderId == null) {
+            return 0;
+        }
+        int h = orderId.hashCode();
+        h ^= (h >>> 16);
+        return (h & 0x7fffffff) % shardCount;
+    }
+
+    int shardCount() {
+        return shards.length;
+    }
+
+    void dispatch(Event event) throws InterruptedException {
+        Shard shard = shards[shardFor(event.getOrderId(), shards.length)];
+        shard.queue.put(event);
+        shard.dispatched++;
+    }
+
+    /**
+     * How many events have been dispatched to each shard so far. Once {@link #isProcessed}
+     * returns true for these marks, every event dispatched before the call has been processed.
+     * Only exact when a single thread dispatches.
+     */
+    long[] marks() {
+        long[] marks = new long[shards.length];
+        for (int i = 0; i < shards.length; i++) {
+            marks[i] = shards[i].dispatched;
+        }
+        return marks;
+    }
+
+    boolean isProcessed(long[] marks) {
+        for (int i = 0; i < shards.length; i++) {
+            if (shards[i].completed < marks[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Drains every shard, stops the shard threads and returns per-shard throughput.
+     */
+    synchronized List<ShardStats> shutdown() {
+        if (stats != null) {
+            return stats;
+        }
+        boolean interrupted = false;
+        for (Shard shard : shards) {
+            while (true) {
+                try {
+                    shard.queue.put(POISON);
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        }
+        for (Shard shard : shards) {
+            while (true) {
+                try {
+                    shard.thread.join();
+                    break;
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        long elapsed = System.nanoTime() - startNanos;
+        List<ShardStats> result = new ArrayList<>(shards.length);
+        for (Shard shard : shards) {
+            result.add(new ShardStats(shard.index, shard.events, shard.busyNanos, elapsed));
+        }
+        stats = result;
+        return result;
+    }
+
+    private static final class Shard implements Runnable {
+        final int index;
+        final EventProcessor processor;
+        final BlockingQueue<Event> queue;
+        final int processBatchSize;
+        final LongConsumer onProcessed;
+        final Thread thread;
+        // Written only by the shard thread; read after join()
+        long events;
+        long busyNanos;
+        // Written by the dispatching thread and the shard thread respectively, for marks()
+        long dispatched;
+        volatile long completed;
+
+        Shard(int index, EventProcessor processor, int queueDepth, int processBatchSize, LongConsumer onProcessed) {
+            this.index = index;
+            this.processor = processor;
+            this.queue = new ArrayBlockingQueue<>(queueDepth);
+            this.processBatchSize = processBatchSize;
+            this.onProcessed = onProcessed;
+            this.thread = new Thread(this, "ingest-shard-" + index);
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            List<Event> batch = new ArrayList<>(processBatchSize);
+            while (true) {
+                Event event;
+                try {
+                    event = queue.take();
+                } catch (InterruptedException ie) {
+                    log.warn("Shard {} interrupted, stopping with {} events queued", index, queue.size());
+                    return;
+                }
+                if (event == POISON) {
+                    return;
+                }
+                batch.add(event);
+                // Take whatever else is already queued, without waiting for more
+                queue.drainTo(batch, processBatchSize - 1);
+                int poison = batch.indexOf(POISON);
+                List<Event> work = poison < 0 ? batch : batch.subList(0, poison);
+                long start = System.nanoTime();
+                try {
+                    if (work.size() == 1) {
+                        processor.process(work.get(0));
+                    } else {
+                        processor.processBatch(work);
+                    }
+                } catch (Exception ex) {
+                    log.warn("Failed to process {} events on shard {}: {}", work.size(), index, ex.getMessage());
+                }
+                busyNanos += System.nanoTime() - start;
+                events += work.size();
+                completed = events;
+                if (onProcessed != null && !work.isEmpty()) {
+                    onProcessed.accept(work.size());
+                }
+                if (poison >= 0) {
+                    return;
+                }
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.orders.ingestion;
+
+public class SocketIngestOptions {
+    // Loopback only by default; the endpoint has no authentication
+    private String bindAddress = "127.0.0.1";
+    // 0 picks a free port (see EventSocketServer#getPort)
+    private int port = 7070;
+    // Processing threads; events are routed by orderId so each order keeps its arrival order
+    private int shards = Runtime.getRuntime().availableProcessors();
+    private int queueDepth = 4096;
+    // Most queued events one shard applies as a single micro-batch
+    private int processBatchSize = 256;
+    // Lines a connection may have outstanding (received but not acknowledged) before reading from it pauses
+    private int maxInFlightLines = 8192;
+    // Initial direct read buffer per connection; it grows for longer lines up to maxLineBytes
+    private int readBufferBytes = 64 * 1024;
+    private int maxLineBytes = 1024 * 1024;
+
+    public SocketIngestOptions() {}
+
+    public String getBindAddress() {
+        return bindAddress;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public int getShards() {
+        return shards;
+    }
+
+    public int getQueueDepth() {
+        return queueDepth;
+    }
+
+    public int getProcessBatchSize() {
+        return processBatchSize;
+    }
+
+    public int getMaxInFlightLines() {
+        return maxInFlightLines;
+    }
+
+    public int getReadBufferBytes() {
+        return readBufferBytes;
+    }
+
+    public int getMaxLineBytes() {
+        return maxLineBytes;
+    }
+
+    public void setBindAddress(String bindAddress) {
+        if (bindAddress == null || bindAddress.isEmpty()) {
+            throw new IllegalArgumentException("bindAddress must not be empty");
+        }
+        this.bindAddress = bindAddress;
+    }
+
+    public void setPort(int port) {
+        if (port < 0 || port > 65535) {
+            throw new IllegalArgumentException("port must be between 0 and 65535: " + port);
+        }
+        this.port = port;
+    }
+
+    public void setShards(int shards) {
+        this.shards = requirePositive("shards", shards);
+    }
+
+    public void setQueueDepth(int queueDepth) {
+        this.queueDepth = requirePositive("queueDepth", queueDepth);
+    }
+
+    public void setProcessBatchSize(int processBatchSize) {
+        this.processBatchSize = requirePositive("processBatchSize", processBatchSize);
+    }
+
+    public void setMaxInFlightLines(int maxInFlightLines) {
+        this.maxInFlightLines = requirePositive("maxInFlightLines", maxInFlightLines);
+    }
+
+    public void setReadBufferBytes(int readBufferBytes) {
+        this.readBufferBytes = requirePositive("readBufferBytes", readBufferBytes);
+    }
+
+    public void setMaxLineBytes(int maxLineBytes) {
+        this.maxLineBytes = requirePositive("maxLineBytes", maxLineBytes);
+    }
+
+    private static int requirePositive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+}
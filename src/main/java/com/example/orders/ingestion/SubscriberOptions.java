@@ -0,0 +1,43 @@
+package com.example.orders.ingestion;
+
+public class SubscriberOptions {
+    // Events requested but not yet processed; this is all the subscriber ever buffers
+    private int bufferSize = 4096;
+    // Processing threads; events are routed by orderId so each order keeps its arrival order
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+    // Most buffered events one processing thread applies as a single micro-batch
+    private int processBatchSize = 256;
+
+    public SubscriberOptions() {}
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public int getProcessBatchSize() {
+        return processBatchSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = requirePositive("bufferSize", bufferSize);
+    }
+
+    public void setParallelism(int parallelism) {
+        this.parallelism = requirePositive("parallelism", parallelism);
+    }
+
+    public void setProcessBatchSize(int processBatchSize) {
+        this.processBatchSize = requirePositive("processBatchSize", processBatchSize);
+    }
+
+    private static int requirePositive(String name, int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException(name + " must be positive: " + value);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.orders.ingestion;
+
+public class TailOptions {
+    // Idle polling backs off from the minimum to the maximum interval; file-system events cut the wait short
+    private long minPollMillis = 1;
+    private long maxPollMillis = 250;
+
+    public TailOptions() {}
+
+    public long getMinPollMillis() {
+        return minPollMillis;
+    }
+
+    public long getMaxPollMillis() {
+        return maxPollMillis;
+    }
+
+    public void setMinPollMillis(long minPollMillis) {
+        if (minPollMillis <= 0) {
+            throw new IllegalArgumentException("minPollMillis must be positive: " + minPollMillis);
+        }
+        this.minPollMillis = minPollMillis;
+    }
+
+    public void setMaxPollMillis(long maxPollMillis) {
+        if (maxPollMillis <= 0) {
+            throw new IllegalArgumentException("maxPollMillis must be positive: " + maxPollMillis);
+        }
+        this.maxPollMillis = maxPollMillis;
+    }
+}
@@ -0,0 +1,216 @@
+package com.example.orders.metrics;
+
+import com.example.orders.events.EventType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latency and throughput of each ingestion stage: reading, JSON parsing, event handlers and
+ * observer callbacks. Recording only touches preallocated atomics, so it adds no allocation
+ * to the hot path; the JMX getters compute summaries on demand.
+ */
+public class PipelineMetrics implements PipelineMetricsMXBean {
+    private static final Logger log = LoggerFactory.getLogger(PipelineMetrics.class);
+    private static final EventType[] TYPES = EventType.values();
+
+    public enum Stage {
+        READ,
+        PARSE,
+        PROCESS,
+        OBSERVERS
+    }
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[Stage.values().length];
+    // One counter per EventType; the extra last slot counts events of other types
+    private final AtomicLongArray eventsByType = new AtomicLongArray(TYPES.length + 1);
+    private final LongAdder parseFailures = new LongAdder();
+    private final LongAdder unknownEventTypes = new LongAdder();
+    private final LongAdder rejectedTransitions = new LongAdder();
+    private volatile LongSupplier repositorySize = () -> 0;
+    private volatile long startedNanos = System.nanoTime();
+    private ObjectName registeredAs;
+
+    public PipelineMetrics() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+    }
+
+    public void recordStage(Stage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    public void recordEvent(EventType type) {
+        eventsByType.incrementAndGet(type == null ? TYPES.length : type.ordinal());
+    }
+
+    public void recordParseFailure() {
+        parseFailures.increment();
+    }
+
+    public void recordUnknownEventType() {
+        unknownEventTypes.increment();
+    }
+
+    public void recordRejectedTransition() {
+        rejectedTransitions.increment();
+    }
+
+    public void setRepositorySize(LongSupplier repositorySize) {
+        this.repositorySize = repositorySize;
+    }
+
+    public LatencyHistogram getHistogram(Stage stage) {
+        return stages[stage.ordinal()];
+    }
+
+    /**
+     * Registers this instance with the platform MBean server under
+     * {@code com.example.orders:type=PipelineMetrics}.
+     */
+    public synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.example.orders:type=PipelineMetrics");
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registeredAs = name;
+        } catch (JMException ex) {
+            log.warn("Could not register pipeline metrics MBean: {}", ex.getMessage());
+        }
+    }
+
+    public synchronized void unregister() {
+        if (registeredAs == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs);
+        } catch (JMException ex) {
+            log.debug("Pipeline metrics MBean was already unregistered: {}", ex.getMessage());
+        }
+        registeredAs = null;
+    }
+
+    @Override
+    public LatencySummary getReadLatency() {
+        return stages[Stage.READ.ordinal()].summarize();
+    }
+
+    @Override
+    public LatencySummary getParseLatency() {
+        return stages[Stage.PARSE.ordinal()].summarize();
+    }
+
+    @Override
+    public LatencySummary getProcessLatency() {
+        return stages[Stage.PROCESS.ordinal()].summarize();
+    }
+
+    @Override
+    public LatencySummary getObserverLatency() {
+        return stages[Stage.OBSERVERS.ordinal()].summarize();
+    }
+
+    @Override
+    public long getEventsProcessed() {
+        long total = 0;
+        for (int i = 0; i < eventsByType.length(); i++) {
+            total += eventsByType.get(i);
+        }
+        return total;
+    }
+
+    @Override
+    public double getEventsPerSecond() {
+        return perSecond(getEventsProcessed());
+    }
+
+    @Override
+    public Map<String, Long> getEventsByType() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (EventType type : TYPES) {
+            result.put(type.name(), eventsByType.get(type.ordinal()));
+        }
+        result.put("Other", eventsByType.get(TYPES.length));
+        return result;
+    }
+
+    @Override
+    public Map<String, Double> getEventsPerSecondByType() {
+        Map<String, Double> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> e : getEventsByType().entrySet()) {
+            result.put(e.getKey(), perSecond(e.getValue()));
+        }
+        return result;
+    }
+
+    @Override
+    public long getParseFailures() {
+        return parseFailures.sum();
+    }
+
+    @Override
+    public long getUnknownEventTypes() {
+        return unknownEventTypes.sum();
+    }
+
+    @Override
+    public long getRejectedTransitions() {
+        return rejectedTransitions.sum();
+    }
+
+    @Override
+    public long getRepositorySize() {
+        return repositorySize.getAsLong();
+    }
+
+    /**
+     * Clears all counters and histograms and restarts the throughput clock. Values recorded
+     * while the reset is in progress may be lost.
+     */
+    @Override
+    public void reset() {
+        for (LatencyHistogram stage : stages) {
+            stage.reset();
+        }
+        for (int i = 0; i < eventsByType.length(); i++) {
+            eventsByType.set(i, 0);
+        }
+        parseFailures.reset();
+        unknownEventTypes.reset();
+        rejectedTransitions.reset();
+        startedNanos = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("events=%d (%.0f/s) byType=%s parseFailures=%d unknownTypes=%d "
+                        + "rejectedTransitions=%d repositorySize=%d",
+                getEventsProcessed(), getEventsPerSecond(), getEventsByType(), getParseFailures(),
+                getUnknownEventTypes(), getRejectedTransitions(), getRepositorySize()));
+        for (Stage stage : Stage.values()) {
+            sb.append(System.lineSeparator()).append("  ").append(stage).append(": ")
+              .append(stages[stage.ordinal()].summarize());
+        }
+        return sb.toString();
+    }
+
+    private double perSecond(long count) {
+        double seconds = (System.nanoTime() - startedNanos) / 1e9;
+        return seconds <= 0 ? 0 : count / seconds;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.orders.metrics;
+
+import java.util.Map;
+
+public interface PipelineMetricsMXBean {
+
+    LatencySummary getReadLatency();
+
+    LatencySummary getParseLatency();
+
+    LatencySummary getProcessLatency();
+
+    LatencySummary getObserverLatency();
+
+    long getEventsProcessed();
+
+    double getEventsPerSecond();
+
+    Map<String, Long> getEventsByType();
+
+    Map<String, Double> getEventsPerSecondByType();
+
+    long getParseFailures();
+
+    long getUnknownEventTypes();
+
+    long getRejectedTransitions();
+
+    long getRepositorySize();
+
+    void reset();
+}
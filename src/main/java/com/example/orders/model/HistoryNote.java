@@ -0,0 +1,39 @@
+package com.example.orders.model;
+
+/**
+ * The fixed wording of each kind of order history entry. Only the variable part (an amount, a
+ * date or free text) is stored per entry.
+ */
+public enum HistoryNote {
+    ORDER_CREATED("Order created", Payload.NONE),
+    PAID_IN_FULL("Payment received in full: ", Payload.AMOUNT),
+    PARTIAL_PAYMENT("Partial payment received: ", Payload.AMOUNT),
+    INVALID_PAYMENT("Payment event with zero/invalid amount", Payload.NONE),
+    SHIPPING_SCHEDULED("Shipping scheduled for ", Payload.DATE),
+    ORDER_CANCELLED("Order cancelled: ", Payload.TEXT),
+    // A complete, pre-rendered line
+    RAW("", Payload.TEXT);
+
+    public enum Payload {
+        NONE,
+        AMOUNT,
+        DATE,
+        TEXT
+    }
+
+    private final String text;
+    private final Payload payload;
+
+    HistoryNote(String text, Payload payload) {
+        this.text = text;
+        this.payload = payload;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Payload getPayload() {
+        return payload;
+    }
+}
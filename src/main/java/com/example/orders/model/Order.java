@@ -3,14 +3,22 @@ package com.example.orders.model;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class Order {
+    private static final AtomicReferenceFieldUpdater<Order, OrderStatus> STATUS =
+            AtomicReferenceFieldUpdater.newUpdater(Order.class, OrderStatus.class, "status");
+
     private String orderId;
     private String customerId;
     private List<OrderItem> items = new ArrayList<>();
     private BigDecimal totalAmount;
-    private OrderStatus status = OrderStatus.PENDING;
-    private List<String> eventHistory = new ArrayList<>();
+    private volatile OrderStatus status = OrderStatus.PENDING;
+    private final OrderHistory history = new OrderHistory();
+    // History entries already in a durable log, or -1 when the next save must log the whole order
+    private int loggedHistory = -1;
+    // Version of the stored record this copy was decoded from, or 0 if it was not decoded from one
+    private int storeVersion;
 
     public Order() {}
 
@@ -44,35 +52,93 @@ public class Order {
         return status;
     }
 
+    /**
+     * History lines, rendered from the compact {@link OrderHistory} as they are read.
+     */
     public List<String> getEventHistory() {
-        return eventHistory;
+        return history.asList();
+    }
+
+    public OrderHistory getHistory() {
+        return history;
     }
 
     public void setStatus(OrderStatus status) {
         this.status = status;
     }
 
+    /**
+     * Atomically moves the order to {@code next} if {@link OrderStatus#canTransitionTo} allows it
+     * from the current status. Returns the status it replaced (equal to {@code next} when the
+     * order was already there), or null if the transition was rejected.
+     */
+    public OrderStatus transitionTo(OrderStatus next) {
+        while (true) {
+            OrderStatus current = status;
+            if (current == null || !current.canTransitionTo(next)) {
+                return null;
+            }
+            if (current == next || STATUS.compareAndSet(this, current, next)) {
+                return current;
+            }
+        }
+    }
+
+    /**
+     * Number of history entries a durable repository has already logged for this order, or -1
+     * if the next save has to log the whole order. Setting any field other than the status
+     * resets it; changing the item list in place does not.
+     */
+    public int getLoggedHistory() {
+        return loggedHistory;
+    }
+
+    public void setLoggedHistory(int loggedHistory) {
+        this.loggedHistory = loggedHistory;
+    }
+
+    /**
+     * Version of the stored record this order was decoded from, for stores that return a new copy
+     * on every lookup; 0 if it was not decoded from one. Such a store rejects saving a copy once
+     * the record has been saved from another.
+     */
+    public int getStoreVersion() {
+        return storeVersion;
+    }
+
+    public void setStoreVersion(int storeVersion) {
+        this.storeVersion = storeVersion;
+    }
+
     public void appendHistory(String entry) {
-        this.eventHistory.add(entry);
+        this.history.addRaw(entry);
     }
 
     public void setOrderId(String orderId) {
         this.orderId = orderId;
+        this.loggedHistory = -1;
     }
 
     public void setCustomerId(String customerId) {
         this.customerId = customerId;
+        this.loggedHistory = -1;
     }
 
     public void setItems(List<OrderItem> items) {
         this.items = items;
+        this.loggedHistory = -1;
     }
 
     public void setTotalAmount(BigDecimal totalAmount) {
         this.totalAmount = totalAmount;
+        this.loggedHistory = -1;
     }
 
     public void setEventHistory(List<String> eventHistory) {
-        this.eventHistory = eventHistory;
+        this.history.clear();
+        this.loggedHistory = -1;
+        for (String entry : eventHistory) {
+            this.history.addRaw(entry);
+        }
     }
 }
@@ -0,0 +1,231 @@
+package com.example.orders.model;
+
+import com.example.orders.events.EventType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Event history of one order, kept in parallel primitive arrays: the timestamp as epoch
+ * millis, the event type and note as ordinals, and a long payload holding a packed amount, an
+ * epoch day or an index into a small text pool. Lines are only rendered when read, and render
+ * exactly as {@code "<timestamp> - <eventType> - <note>"}.
+ *
+ * <p>Entries that cannot be packed (unknown event types, sub-millisecond timestamps, amounts
+ * beyond 55 bits) are kept as pre-rendered text. Appends and reads synchronize on the history,
+ * so observers on other threads can read it while the order is being updated.
+ */
+public class OrderHistory {
+    private static final EventType[] TYPES = EventType.values();
+    private static final HistoryNote[] NOTES = HistoryNote.values();
+    // Marks a missing timestamp or shipping date
+    public static final long NULL_VALUE = Long.MIN_VALUE;
+    // Shared by every empty history until its first append
+    private static final long[] NO_LONGS = new long[0];
+    private static final byte[] NO_BYTES = new byte[0];
+
+    private long[] timestamps = NO_LONGS;
+    private long[] payloads = NO_LONGS;
+    private byte[] types = NO_BYTES;
+    private byte[] notes = NO_BYTES;
+    private String[] texts;
+    private int size;
+    private int textCount;
+
+    public synchronized void add(Instant timestamp, String eventType, HistoryNote note) {
+        if (!addPacked(timestamp, eventType, note, 0)) {
+            addRaw(render(timestamp, eventType, note.getText()));
+        }
+    }
+
+    public synchronized void addAmount(Instant timestamp, String eventType, HistoryNote note, BigDecimal amount) {
+        long packed = packAmount(amount);
+        if (packed == NULL_VALUE || !addPacked(timestamp, eventType, note, packed)) {
+            addRaw(render(timestamp, eventType, note.getText() + amount));
+        }
+    }
+
+    public synchronized void addDate(Instant timestamp, String eventType, HistoryNote note, LocalDate date) {
+        long epochDay = date == null ? NULL_VALUE : date.toEpochDay();
+        if (!addPacked(timestamp, eventType, note, epochDay)) {
+            addRaw(render(timestamp, eventType, note.getText() + date));
+        }
+    }
+
+    public synchronized void addText(Instant timestamp, String eventType, HistoryNote note, String text) {
+        if (!addPacked(timestamp, eventType, note, textCount)) {
+            addRaw(render(timestamp, eventType, note.getText() + text));
+            return;
+        }
+        addToPool(text);
+    }
+
+    public synchronized void addRaw(String line) {
+        append(NULL_VALUE, (byte) -1, HistoryNote.RAW, textCount);
+        addToPool(line);
+    }
+
+    /**
+     * Appends an entry in its stored form, as returned by the accessors below.
+     */
+    public synchronized void addStored(HistoryNote note, EventType type, long timestampMillis, long payload, String text) {
+        if (note.getPayload() == HistoryNote.Payload.TEXT) {
+            append(timestampMillis, type == null ? -1 : (byte) type.ordinal(), note, textCount);
+            addToPool(text);
+        } else {
+            append(timestampMillis, type == null ? -1 : (byte) type.ordinal(), note, payload);
+        }
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized HistoryNote getNote(int i) {
+        return NOTES[notes[check(i)]];
+    }
+
+    public synchronized EventType getEventType(int i) {
+        byte type = types[check(i)];
+        return type < 0 ? null : TYPES[type];
+    }
+
+    /** Epoch millis, or {@link #NULL_VALUE} when the event had no timestamp. */
+    public synchronized long getTimestampMillis(int i) {
+        return timestamps[check(i)];
+    }
+
+    /** Packed amount or epoch day for notes that carry one. */
+    public synchronized long getPayload(int i) {
+        return payloads[check(i)];
+    }
+
+    /** Free text for notes that carry text, including raw lines. */
+    public synchronized String getText(int i) {
+        return getNote(i).getPayload() == HistoryNote.Payload.TEXT ? texts[(int) payloads[i]] : null;
+    }
+
+    public synchronized String render(int i) {
+        HistoryNote note = getNote(i);
+        if (note == HistoryNote.RAW) {
+            return texts[(int) payloads[i]];
+        }
+        long ts = timestamps[i];
+        StringBuilder line = new StringBuilder(64)
+                .append(ts == NULL_VALUE ? "null" : Instant.ofEpochMilli(ts).toString())
+                .append(" - ").append(getEventType(i)).append(" - ").append(note.getText());
+        long payload = payloads[i];
+        switch (note.getPayload()) {
+            case AMOUNT:
+                line.append(unpackAmount(payload));
+                break;
+            case DATE:
+                line.append(payload == NULL_VALUE ? "null" : LocalDate.ofEpochDay(payload).toString());
+                break;
+            case TEXT:
+                line.append(texts[(int) payload]);
+                break;
+            default:
+                break;
+        }
+        return line.toString();
+    }
+
+    /**
+     * Read-only view that renders each line on access.
+     */
+    public List<String> asList() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return render(index);
+            }
+
+            @Override
+            public int size() {
+                return OrderHistory.this.size();
+            }
+        };
+    }
+
+    public synchronized void clear() {
+        size = 0;
+        textCount = 0;
+        texts = null;
+    }
+
+    /**
+     * Packs an amount as its unscaled value (up to 55 bits) and scale, or returns
+     * {@link #NULL_VALUE} if it does not fit.
+     */
+    public static long packAmount(BigDecimal amount) {
+        if (amount == null || amount.unscaledValue().bitLength() > 55
+                || amount.scale() < Byte.MIN_VALUE || amount.scale() > Byte.MAX_VALUE) {
+            return NULL_VALUE;
+        }
+        return (amount.unscaledValue().longValue() << 8) | (amount.scale() & 0xFF);
+    }
+
+    public static BigDecimal unpackAmount(long packed) {
+        return BigDecimal.valueOf(packed >> 8, (byte) packed);
+    }
+
+    private boolean addPacked(Instant timestamp, String eventType, HistoryNote note, long payload) {
+        EventType type = EventType.fromName(eventType);
+        if (type == null || (timestamp != null && timestamp.getNano() % 1_000_000 != 0)) {
+            return false;
+        }
+        long millis;
+        try {
+            millis = timestamp == null ? NULL_VALUE : timestamp.toEpochMilli();
+        } catch (ArithmeticException tooFarOut) {
+            return false;
+        }
+        append(millis, (byte) type.ordinal(), note, payload);
+        return true;
+    }
+
+    private void append(long timestampMillis, byte type, HistoryNote note, long payload) {
+        if (size == timestamps.length) {
+            int capacity = Math.max(4, size * 2);
+            timestamps = Arrays.copyOf(timestamps, capacity);
+            payloads = Arrays.copyOf(payloads, capacity);
+            types = Arrays.copyOf(types, capacity);
+            notes = Arrays.copyOf(notes, capacity);
+        }
+        timestamps[size] = timestampMillis;
+        payloads[size] = payload;
+        types[size] = type;
+        notes[size] = (byte) note.ordinal();
+        size++;
+    }
+
+    private void addToPool(String text) {
+        if (texts == null) {
+            texts = new String[2];
+        } else if (textCount == texts.length) {
+            texts = Arrays.copyOf(texts, textCount * 2);
+        }
+        texts[textCount++] = text;
+    }
+
+    private int check(int i) {
+        if (i < 0 || i >= size) {
+            throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + size);
+        }
+        return i;
+    }
+
+    private static String render(Instant timestamp, String eventType, String note) {
+        return timestamp + " - " + eventType + " - " + note;
+    }
+
+    @Override
+    public String toString() {
+        return asList().toString();
+    }
+}
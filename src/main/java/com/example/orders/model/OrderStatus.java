@@ -5,5 +5,29 @@ public enum OrderStatus {
     PARTIALLY_PAID,
     PAID,
     SHIPPED,
-    CANCELLED
+    CANCELLED;
+
+    private static final OrderStatus[] VALUES = values();
+    // ALLOWED[from][to]; staying in the same status is always allowed
+    private static final boolean[][] ALLOWED = new boolean[VALUES.length][VALUES.length];
+
+    static {
+        allow(PENDING, PARTIALLY_PAID, PAID, SHIPPED, CANCELLED);
+        allow(PARTIALLY_PAID, PAID, SHIPPED, CANCELLED);
+        allow(PAID, SHIPPED, CANCELLED);
+        // SHIPPED and CANCELLED are terminal
+        for (OrderStatus status : VALUES) {
+            ALLOWED[status.ordinal()][status.ordinal()] = true;
+        }
+    }
+
+    private static void allow(OrderStatus from, OrderStatus... to) {
+        for (OrderStatus next : to) {
+            ALLOWED[from.ordinal()][next.ordinal()] = true;
+        }
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return ALLOWED[ordinal()][next.ordinal()];
+    }
 }
@@ -3,20 +3,151 @@ package com.example.orders.observers;
 import com.example.orders.events.Event;
 import com.example.orders.model.Order;
 import com.example.orders.model.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Alerts when orders are cancelled or shipped. The first alert for a status goes out at once;
+ * further ones within {@code intervalMillis} are coalesced into a single line per interval that
+ * names up to {@code maxListedOrders} of the orders. Coalesced lines are flushed on a timer
+ * once {@link #configure} is called, and on {@link #close}.
+ */
 @Component
-public class AlertObserver implements OrderObserver {
+public class AlertObserver implements OrderObserver, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AlertObserver.class);
+
+    // Indexed by status ordinal; null for statuses that are not alerted on
+    private final Coalesced[] alerts = new Coalesced[OrderStatus.values().length];
+    private final Consumer<String> sink;
+    private ScheduledFuture<?> flushTask;
+    private volatile long intervalNanos;
+    private volatile int maxListedOrders;
+
+    public AlertObserver() {
+        this(new AlertOptions(), log::warn);
+    }
+
+    AlertObserver(AlertOptions options, Consumer<String> sink) {
+        this.sink = sink;
+        alerts[OrderStatus.CANCELLED.ordinal()] = new Coalesced(OrderStatus.CANCELLED);
+        alerts[OrderStatus.SHIPPED.ordinal()] = new Coalesced(OrderStatus.SHIPPED);
+        applyOptions(options);
+    }
+
+    /**
+     * Sets the interval and listed order count and (re)starts the timer that flushes coalesced alerts.
+     */
+    public synchronized void configure(AlertOptions options) {
+        applyOptions(options);
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        flushTask = ObserverTimers.scheduleAtFixedRate(() -> flush(false), options.getIntervalMillis());
+    }
 
     @Override
     public void onEventProcessed(Event event, Order order) {
-        // No-op or minimal: alerts only on critical state changes.
+        // Alerts only on critical state changes
     }
 
     @Override
     public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
-        if (newStatus == OrderStatus.CANCELLED || newStatus == OrderStatus.SHIPPED) {
-            System.out.printf("ALERT: Order %s changed to %s%n", orderId, newStatus);
+        Coalesced alert = newStatus == null ? null : alerts[newStatus.ordinal()];
+        if (alert == null) {
+            return;
+        }
+        String line;
+        synchronized (alert) {
+            alert.add(orderId, maxListedOrders);
+            long now = System.nanoTime();
+            if (now - alert.lastAlertNanos < intervalNanos) {
+                return;
+            }
+            line = alert.drain(now);
+        }
+        sink.accept(line);
+    }
+
+    /**
+     * Sends out coalesced alerts, and stops the timer that does so.
+     */
+    @Override
+    public synchronized void close() {
+        if (flushTask != null) {
+            flushTask.cancel(false);
+        }
+        flush(true);
+    }
+
+    /**
+     * Sends one line for every status with alerts pending, once its interval has passed or
+     * straight away if {@code force} is set.
+     */
+    void flush(boolean force) {
+        long now = System.nanoTime();
+        for (Coalesced alert : alerts) {
+            if (alert == null) {
+                continue;
+            }
+            String line = null;
+            synchronized (alert) {
+                if (alert.count > 0 && (force || now - alert.lastAlertNanos >= intervalNanos)) {
+                    line = alert.drain(now);
+                }
+            }
+            if (line != null) {
+                sink.accept(line);
+            }
+        }
+    }
+
+    private void applyOptions(AlertOptions options) {
+        intervalNanos = TimeUnit.MILLISECONDS.toNanos(options.getIntervalMillis());
+        maxListedOrders = options.getMaxListedOrders();
+    }
+
+    private static final class Coalesced {
+        final OrderStatus status;
+        final List<String> orderIds = new ArrayList<>();
+        long count;
+        long lastAlertNanos = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+
+        Coalesced(OrderStatus status) {
+            this.status = status;
+        }
+
+        void add(String orderId, int maxListed) {
+            count++;
+            if (orderIds.size() < maxListed) {
+                orderIds.add(orderId);
+            }
+        }
+
+        String drain(long now) {
+            String line;
+            if (count == 1 && orderIds.size() == 1) {
+                line = "ALERT: Order " + orderIds.get(0) + " changed to " + status;
+            } else {
+                StringBuilder sb = new StringBuilder("ALERT: ").append(count).append(" orders changed to ").append(status);
+                if (!orderIds.isEmpty()) {
+                    sb.append(": ").append(String.join(", ", orderIds));
+                    if (count > orderIds.size()) {
+                        sb.append(" and ").append(count - orderIds.size()).append(" more");
+                    }
+                }
+                line = sb.toString();
+            }
+            count = 0;
+            orderIds.clear();
+            lastAlertNanos = now;
+            return line;
         }
     }
 }
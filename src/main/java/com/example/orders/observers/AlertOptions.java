@@ -0,0 +1,32 @@
+package com.example.orders.observers;
+
+public class AlertOptions {
+    // At most one alert line per status in each interval; alerts in between are coalesced into the next
+    private long intervalMillis = 1_000;
+    // Order ids named in a coalesced alert; the rest are only counted
+    private int maxListedOrders = 10;
+
+    public AlertOptions() {}
+
+    public long getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public int getMaxListedOrders() {
+        return maxListedOrders;
+    }
+
+    public void setIntervalMillis(long intervalMillis) {
+        if (intervalMillis <= 0) {
+            throw new IllegalArgumentException("intervalMillis must be positive: " + intervalMillis);
+        }
+        this.intervalMillis = intervalMillis;
+    }
+
+    public void setMaxListedOrders(int maxListedOrders) {
+        if (maxListedOrders < 0) {
+            throw new IllegalArgumentException("maxListedOrders must not be negative: " + maxListedOrders);
+        }
+        this.maxListedOrders = maxListedOrders;
+    }
+}
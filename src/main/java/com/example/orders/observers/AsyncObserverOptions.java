@@ -0,0 +1,53 @@
+package com.example.orders.observers;
+
+public class AsyncObserverOptions {
+    // Slots per observer, rounded up to a power of two
+    private int ringSize = 8192;
+    // Maximum notifications a consumer delivers per wake-up
+    private int batchSize = 256;
+    private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+    private int sampleRate = 100;
+
+    public AsyncObserverOptions() {}
+
+    public int getRingSize() {
+        return ringSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public OverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setRingSize(int ringSize) {
+        if (ringSize < 2 || ringSize > (1 << 30)) {
+            throw new IllegalArgumentException("ringSize must be between 2 and 2^30: " + ringSize);
+        }
+        this.ringSize = ringSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        this.batchSize = batchSize;
+    }
+
+    public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+        this.overflowPolicy = overflowPolicy;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+}
@@ -1,27 +1,135 @@
 package com.example.orders.observers;
 
 import com.example.orders.events.Event;
+import com.example.orders.events.EventType;
 import com.example.orders.model.Order;
 import com.example.orders.model.OrderStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Logs pipeline activity without a line per event: per-type event counts and a matrix of status
+ * transitions are summarised once per interval, and every {@code sampleRate}-th event and status
+ * change is also logged on its own. A callback costs a striped counter increment. Summaries start
+ * once {@link #configure} is called.
+ */
 @Component
-public class LoggerObserver implements OrderObserver {
+public class LoggerObserver implements OrderObserver, AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(LoggerObserver.class);
+    private static final EventType[] TYPES = EventType.values();
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    // One slot per event type plus one for anything else
+    private final LongAdder[] events = new LongAdder[TYPES.length + 1];
+    // transitions[from][to]; the last row counts changes without a previous status
+    private final LongAdder[][] transitions = new LongAdder[STATUSES.length + 1][STATUSES.length];
+    private final AtomicLong sampleCounter = new AtomicLong();
+    private ScheduledFuture<?> summaryTask;
+    private volatile int sampleRate = new LoggerObserverOptions().getSampleRate();
+    private long intervalStart = System.nanoTime();
+
+    public LoggerObserver() {
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new LongAdder();
+        }
+        for (LongAdder[] row : transitions) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] = new LongAdder();
+            }
+        }
+    }
+
+    /**
+     * Sets the sampling rate and (re)starts the periodic summaries; counts gathered so far are kept.
+     */
+    public synchronized void configure(LoggerObserverOptions options) {
+        sampleRate = options.getSampleRate();
+        if (summaryTask != null) {
+            summaryTask.cancel(false);
+        }
+        summaryTask = ObserverTimers.scheduleAtFixedRate(this::logSummary, options.getSummaryIntervalMillis());
+    }
 
     @Override
     public void onEventProcessed(Event event, Order order) {
-        String orderId = order != null ? order.getOrderId() : "N/A";
-        log.info("Event processed: type={}, id={}, orderId={}", 
-                event.getEventType(), 
-                event.getEventId(),
-                orderId);
+        EventType type = EventType.fromName(event.getEventType());
+        events[type == null ? TYPES.length : type.ordinal()].increment();
+        if (sampled()) {
+            log.info("Event processed: type={}, id={}, orderId={}", event.getEventType(), event.getEventId(),
+                    order != null ? order.getOrderId() : "N/A");
+        }
     }
 
     @Override
     public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
-        log.info("Order {} status changed: {} -> {}", orderId, oldStatus, newStatus);
+        if (newStatus == null) {
+            return;
+        }
+        transitions[oldStatus == null ? STATUSES.length : oldStatus.ordinal()][newStatus.ordinal()].increment();
+        if (sampled()) {
+            log.info("Order {} status changed: {} -> {}", orderId, oldStatus, newStatus);
+        }
+    }
+
+    /**
+     * Stops the periodic summaries and logs the last one.
+     */
+    @Override
+    public synchronized void close() {
+        if (summaryTask != null) {
+            summaryTask.cancel(false);
+        }
+        logSummary();
+    }
+
+    /**
+     * Returns the summary of the interval that just ended and starts a new one, or null if
+     * nothing happened in it.
+     */
+    synchronized String summarize() {
+        long now = System.nanoTime();
+        long elapsedMillis = (now - intervalStart) / 1_000_000;
+        intervalStart = now;
+        StringBuilder counts = new StringBuilder();
+        long total = 0;
+        for (int i = 0; i < events.length; i++) {
+            long n = events[i].sumThenReset();
+            if (n > 0) {
+                total += n;
+                counts.append(' ').append(i < TYPES.length ? TYPES[i].name() : "other").append('=').append(n);
+            }
+        }
+        StringBuilder changes = new StringBuilder();
+        for (int from = 0; from < transitions.length; from++) {
+            for (int to = 0; to < STATUSES.length; to++) {
+                long n = transitions[from][to].sumThenReset();
+                if (n > 0) {
+                    changes.append(' ').append(from < STATUSES.length ? STATUSES[from].name() : "NONE")
+                            .append("->").append(STATUSES[to].name()).append('=').append(n);
+                }
+            }
+        }
+        if (total == 0 && changes.length() == 0) {
+            return null;
+        }
+        return total + " events in " + elapsedMillis + " ms:" + (counts.length() == 0 ? " none" : counts)
+                + "; status changes:" + (changes.length() == 0 ? " none" : changes);
+    }
+
+    private void logSummary() {
+        String summary = summarize();
+        if (summary != null) {
+            log.info("{}", summary);
+        }
+    }
+
+    boolean sampled() {
+        int rate = sampleRate;
+        return rate == 1 || sampleCounter.incrementAndGet() % rate == 0;
     }
 }
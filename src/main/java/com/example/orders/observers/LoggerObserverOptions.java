@@ -0,0 +1,32 @@
+package com.example.orders.observers;
+
+public class LoggerObserverOptions {
+    // Per-type event counts and status transitions are logged once per interval (quiet intervals are skipped)
+    private long summaryIntervalMillis = 10_000;
+    // One in this many events and status changes is also logged individually; 1 logs every one
+    private int sampleRate = 1000;
+
+    public LoggerObserverOptions() {}
+
+    public long getSummaryIntervalMillis() {
+        return summaryIntervalMillis;
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    public void setSummaryIntervalMillis(long summaryIntervalMillis) {
+        if (summaryIntervalMillis <= 0) {
+            throw new IllegalArgumentException("summaryIntervalMillis must be positive: " + summaryIntervalMillis);
+        }
+        this.summaryIntervalMillis = summaryIntervalMillis;
+    }
+
+    public void setSampleRate(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sampleRate must be positive: " + sampleRate);
+        }
+        this.sampleRate = sampleRate;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.orders.observers;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The one daemon thread that runs the periodic work of the observers. It is only started when the
+ * first task is scheduled, so observers that are constructed but never configured cost no thread.
+ */
+final class ObserverTimers {
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "observer-timers");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private ObserverTimers() {}
+
+    static ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long intervalMillis) {
+        return SCHEDULER.scheduleAtFixedRate(task, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+}
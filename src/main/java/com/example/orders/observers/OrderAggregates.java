@@ -0,0 +1,191 @@
+package com.example.orders.observers;
+
+import com.example.orders.events.Event;
+import com.example.orders.events.PaymentReceivedEvent;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+import com.example.orders.repository.OrderRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Reporting views kept up to date from observer callbacks: booked order value, payments
+ * received and the created-to-paid-to-shipped funnel. Each callback is a few striped counter
+ * increments; money is summed as longs in units of 1/10000. These values cover what was
+ * processed since startup. Orders per status are read from the repository's status counts
+ * instead, so they also cover orders recovered at startup and cannot drift from the stored
+ * state. Readers never scan the repository.
+ */
+@Component
+public class OrderAggregates implements OrderObserver, OrderAggregatesMXBean {
+    private static final Logger log = LoggerFactory.getLogger(OrderAggregates.class);
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final int MONEY_SCALE = 4;
+
+    private final OrderRepository repository;
+    private final LongAdder created = new LongAdder();
+    private final LongAdder createdValue = new LongAdder();
+    private final LongAdder paymentsReceived = new LongAdder();
+    private final LongAdder payments = new LongAdder();
+    // Orders that entered each status, whatever happened to them afterwards
+    private final LongAdder[] entered = new LongAdder[STATUSES.length];
+    private ObjectName registeredAs;
+
+    public OrderAggregates(OrderRepository repository) {
+        this.repository = repository;
+        for (int i = 0; i < STATUSES.length; i++) {
+            entered[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public void onEventProcessed(Event event, Order order) {
+        String type = event.getEventType();
+        if ("OrderCreated".equals(type)) {
+            created.increment();
+            entered[OrderStatus.PENDING.ordinal()].increment();
+            createdValue.add(toUnits(order.getTotalAmount()));
+        } else if (event instanceof PaymentReceivedEvent) {
+            BigDecimal amount = ((PaymentReceivedEvent) event).getAmountPaid();
+            // Payments of zero or less are recorded on the order but do not count as received
+            if (amount != null && amount.signum() > 0) {
+                payments.increment();
+                paymentsReceived.add(toUnits(amount));
+            }
+        }
+    }
+
+    @Override
+    public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+        if (newStatus != null) {
+            entered[newStatus.ordinal()].increment();
+        }
+    }
+
+    @Override
+    public boolean requiresLosslessDelivery() {
+        return true;
+    }
+
+    @Override
+    public long getOrdersCreated() {
+        return created.sum();
+    }
+
+    public long getOrdersWithStatus(OrderStatus status) {
+        return repository.countByStatus(status);
+    }
+
+    @Override
+    public Map<String, Long> getOrdersByStatus() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (OrderStatus status : STATUSES) {
+            result.put(status.name(), repository.countByStatus(status));
+        }
+        return result;
+    }
+
+    @Override
+    public BigDecimal getOrderValueCreated() {
+        return fromUnits(createdValue.sum());
+    }
+
+    @Override
+    public BigDecimal getPaymentsReceived() {
+        return fromUnits(paymentsReceived.sum());
+    }
+
+    @Override
+    public long getPaymentsCount() {
+        return payments.sum();
+    }
+
+    @Override
+    public long getOrdersPaid() {
+        return entered[OrderStatus.PAID.ordinal()].sum();
+    }
+
+    @Override
+    public long getOrdersShipped() {
+        return entered[OrderStatus.SHIPPED.ordinal()].sum();
+    }
+
+    @Override
+    public long getOrdersCancelled() {
+        return entered[OrderStatus.CANCELLED.ordinal()].sum();
+    }
+
+    @Override
+    public double getCreatedToPaidRate() {
+        return rate(getOrdersPaid());
+    }
+
+    @Override
+    public double getCreatedToShippedRate() {
+        return rate(getOrdersShipped());
+    }
+
+    /**
+     * Registers this instance with the platform MBean server under
+     * {@code com.example.orders:type=OrderAggregates}.
+     */
+    public synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.example.orders:type=OrderAggregates");
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registeredAs = name;
+        } catch (JMException ex) {
+            log.warn("Could not register order aggregates MBean: {}", ex.getMessage());
+        }
+    }
+
+    public synchronized void unregister() {
+        if (registeredAs == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs);
+        } catch (JMException ex) {
+            log.debug("Order aggregates MBean was already unregistered: {}", ex.getMessage());
+        }
+        registeredAs = null;
+    }
+
+    private double rate(long count) {
+        long total = created.sum();
+        return total == 0 ? 0 : (double) count / total;
+    }
+
+    private static long toUnits(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(MONEY_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValue();
+    }
+
+    private static BigDecimal fromUnits(long units) {
+        return BigDecimal.valueOf(units, MONEY_SCALE);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("created=%d byStatus=%s orderValue=%s payments=%d received=%s "
+                        + "paid=%d (%.1f%%) shipped=%d (%.1f%%) cancelled=%d",
+                getOrdersCreated(), getOrdersByStatus(), getOrderValueCreated().setScale(2, RoundingMode.HALF_EVEN),
+                getPaymentsCount(), getPaymentsReceived().setScale(2, RoundingMode.HALF_EVEN),
+                getOrdersPaid(), getCreatedToPaidRate() * 100, getOrdersShipped(), getCreatedToShippedRate() * 100,
+                getOrdersCancelled());
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.orders.observers;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+public interface OrderAggregatesMXBean {
+
+    long getOrdersCreated();
+
+    Map<String, Long> getOrdersByStatus();
+
+    BigDecimal getOrderValueCreated();
+
+    BigDecimal getPaymentsReceived();
+
+    long getPaymentsCount();
+
+    long getOrdersPaid();
+
+    long getOrdersShipped();
+
+    long getOrdersCancelled();
+
+    double getCreatedToPaidRate();
+
+    double getCreatedToShippedRate();
+}
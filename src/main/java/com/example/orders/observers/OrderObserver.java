@@ -4,7 +4,27 @@ import com.example.orders.events.Event;
 import com.example.orders.model.Order;
 import com.example.orders.model.OrderStatus;
 
+import java.util.List;
+
 public interface OrderObserver {
     void onEventProcessed(Event event, Order order);
     void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus);
+
+    /**
+     * Called once per processed batch; {@code orders.get(i)} is the order {@code events.get(i)}
+     * was applied to. Forwards to {@link #onEventProcessed} unless overridden.
+     */
+    default void onEventsProcessed(List<Event> events, List<Order> orders) {
+        for (int i = 0; i < events.size(); i++) {
+            onEventProcessed(events.get(i), orders.get(i));
+        }
+    }
+
+    /**
+     * Whether this observer must see every notification, as counters must. Such observers are
+     * never put behind an asynchronous dispatch whose overflow policy may drop notifications.
+     */
+    default boolean requiresLosslessDelivery() {
+        return false;
+    }
 }
@@ -0,0 +1,13 @@
+package com.example.orders.observers;
+
+/**
+ * What an asynchronous observer does when its ring buffer is full.
+ */
+public enum OverflowPolicy {
+    // Wait for the consumer to free a slot; nothing is lost but processing slows to the observer's pace
+    BLOCK,
+    // Discard the notification and count it
+    DROP,
+    // Keep one in every sampleRate notifications (waiting for space for those) and discard the rest
+    SAMPLE
+}
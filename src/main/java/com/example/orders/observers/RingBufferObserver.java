@@ -0,0 +1,305 @@
+package com.example.orders.observers;
+
+import com.example.orders.events.Event;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Decouples a slow observer from the processing threads. Notifications are copied into a
+ * preallocated ring of slots (any number of producers) and delivered to the wrapped observer,
+ * in order, by a dedicated consumer thread.
+ *
+ * <p>The {@link Order} passed to {@code onEventProcessed} is the live instance, so by the time
+ * the delegate sees it later events may already have been applied.
+ */
+public class RingBufferObserver implements OrderObserver, AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(RingBufferObserver.class);
+
+    private static final int EVENT_PROCESSED = 1;
+    private static final int STATUS_CHANGED = 2;
+    private static final long IDLE_PARK_NANOS = 100_000L;
+
+    private final OrderObserver delegate;
+    private final Slot[] slots;
+    private final int mask;
+    private final int batchSize;
+    private final OverflowPolicy overflowPolicy;
+    private final int sampleRate;
+
+    // Next sequence to hand out to a producer
+    private final AtomicLong claimed = new AtomicLong();
+    // Per slot: sequence + 1 of the notification last published into it
+    private final AtomicLongArray published;
+    // Next sequence the consumer will deliver; everything below it has been delivered
+    private volatile long consumed;
+    private volatile boolean running = true;
+    private volatile boolean consumerIdle;
+    // Producers between their running check and publishing; close() waits for them
+    private final AtomicInteger producers = new AtomicInteger();
+    private final CountDownLatch closed = new CountDownLatch(1);
+
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong overflowCounter = new AtomicLong();
+    private volatile long maxLag;
+
+    private final Thread consumer;
+
+    public RingBufferObserver(OrderObserver delegate, AsyncObserverOptions options) {
+        this.delegate = delegate;
+        int capacity = Integer.highestOneBit(options.getRingSize() - 1) << 1;
+        this.slots = new Slot[capacity];
+        for (int i = 0; i < capacity; i++) {
+            slots[i] = new Slot();
+        }
+        this.mask = capacity - 1;
+        this.published = new AtomicLongArray(capacity);
+        this.batchSize = options.getBatchSize();
+        this.overflowPolicy = options.getOverflowPolicy();
+        this.sampleRate = options.getSampleRate();
+        this.consumer = new Thread(this::drain, "observer-" + delegate.getClass().getSimpleName());
+        this.consumer.setDaemon(true);
+        this.consumer.start();
+    }
+
+    @Override
+    public void onEventProcessed(Event event, Order order) {
+        if (!enter()) {
+            awaitClosed();
+            delegate.onEventProcessed(event, order);
+            return;
+        }
+        try {
+            long seq = claim();
+            if (seq < 0) {
+                return;
+            }
+            Slot slot = slots[(int) seq & mask];
+            slot.kind = EVENT_PROCESSED;
+            slot.event = event;
+            slot.order = order;
+            publish(seq);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    @Override
+    public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+        if (!enter()) {
+            awaitClosed();
+            delegate.onStatusChanged(orderId, oldStatus, newStatus);
+            return;
+        }
+        try {
+            long seq = claim();
+            if (seq < 0) {
+                return;
+            }
+            Slot slot = slots[(int) seq & mask];
+            slot.kind = STATUS_CHANGED;
+            slot.orderId = orderId;
+            slot.oldStatus = oldStatus;
+            slot.newStatus = newStatus;
+            publish(seq);
+        } finally {
+            producers.decrementAndGet();
+        }
+    }
+
+    public OrderObserver getDelegate() {
+        return delegate;
+    }
+
+    public long getPublished() {
+        return claimed.get();
+    }
+
+    public long getDelivered() {
+        return consumed;
+    }
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * Notifications published but not yet delivered to the wrapped observer.
+     */
+    public long getLag() {
+        return claimed.get() - consumed;
+    }
+
+    public long getMaxLag() {
+        return maxLag;
+    }
+
+    /**
+     * Waits for producers already past their running check, delivers everything published,
+     * then stops the consumer. Notifications arriving afterwards are delivered synchronously on
+     * the caller's thread, once everything queued before them has been delivered.
+     */
+    @Override
+    public synchronized void close() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(consumer);
+        while (producers.get() > 0) {
+            // A producer may be waiting for space, which the consumer is still freeing
+            Thread.yield();
+        }
+        boolean interrupted = false;
+        while (consumer.isAlive()) {
+            try {
+                consumer.join();
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        // Pick up anything published by producers that raced with the shutdown
+        long next = consumed;
+        while (next < claimed.get()) {
+            if (published.get((int) next & mask) == next + 1) {
+                deliver(slots[(int) next & mask]);
+                next++;
+            } else {
+                Thread.yield();
+            }
+        }
+        consumed = next;
+        closed.countDown();
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s published=%d delivered=%d dropped=%d lag=%d maxLag=%d",
+                delegate.getClass().getSimpleName(), getPublished(), getDelivered(), getDropped(), getLag(), maxLag);
+    }
+
+    // Registers a producer, or returns false once close() has started
+    private boolean enter() {
+        producers.incrementAndGet();
+        if (running) {
+            return true;
+        }
+        producers.decrementAndGet();
+        return false;
+    }
+
+    private void awaitClosed() {
+        boolean interrupted = false;
+        while (closed.getCount() > 0) {
+            try {
+                closed.await();
+            } catch (InterruptedException ie) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private long claim() {
+        boolean keep = false;
+        while (true) {
+            long seq = claimed.get();
+            if (seq - consumed > mask) {
+                if (!keep) {
+                    if (overflowPolicy == OverflowPolicy.DROP
+                            || (overflowPolicy == OverflowPolicy.SAMPLE && overflowCounter.incrementAndGet() % sampleRate != 0)) {
+                        dropped.increment();
+                        return -1;
+                    }
+                    keep = true;
+                }
+                awaitSpace();
+                continue;
+            }
+            if (claimed.compareAndSet(seq, seq + 1)) {
+                return seq;
+            }
+        }
+    }
+
+    private void publish(long seq) {
+        // Ordered store: the slot fields written above become visible before the sequence does
+        published.lazySet((int) seq & mask, seq + 1);
+        if (consumerIdle) {
+            LockSupport.unpark(consumer);
+        }
+    }
+
+    private void awaitSpace() {
+        LockSupport.unpark(consumer);
+        Thread.yield();
+    }
+
+    private void drain() {
+        long next = consumed;
+        while (true) {
+            int n = 0;
+            while (n < batchSize && published.get((int) (next + n) & mask) == next + n + 1) {
+                n++;
+            }
+            if (n == 0) {
+                if (!running && claimed.get() == next) {
+                    return;
+                }
+                consumerIdle = true;
+                if (published.get((int) next & mask) != next + 1) {
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+                consumerIdle = false;
+                continue;
+            }
+            long lag = claimed.get() - next;
+            if (lag > maxLag) {
+                maxLag = lag;
+            }
+            for (int i = 0; i < n; i++) {
+                deliver(slots[(int) (next + i) & mask]);
+            }
+            next += n;
+            consumed = next;
+        }
+    }
+
+    private void deliver(Slot slot) {
+        try {
+            if (slot.kind == EVENT_PROCESSED) {
+                delegate.onEventProcessed(slot.event, slot.order);
+            } else {
+                delegate.onStatusChanged(slot.orderId, slot.oldStatus, slot.newStatus);
+            }
+        } catch (Exception ex) {
+            log.warn("Observer {} failed: {}", delegate.getClass().getSimpleName(), ex.getMessage());
+        } finally {
+            slot.event = null;
+            slot.order = null;
+            slot.orderId = null;
+        }
+    }
+
+    private static final class Slot {
+        int kind;
+        Event event;
+        Order order;
+        String orderId;
+        OrderStatus oldStatus;
+        OrderStatus newStatus;
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.orders.processing;
+
+public class DeduplicationOptions {
+    // Exact window: ids seen within this time (and at most this many per generation) are matched exactly
+    private long windowMillis = 10 * 60 * 1000L;
+    private int windowMaxIds = 1_000_000;
+    // Bloom filter for ids that have aged out of the exact window
+    private long bloomExpectedIds = 10_000_000L;
+    private double bloomFalsePositiveRate = 0.01;
+
+    public DeduplicationOptions() {}
+
+    public long getWindowMillis() {
+        return windowMillis;
+    }
+
+    public int getWindowMaxIds() {
+        return windowMaxIds;
+    }
+
+    public long getBloomExpectedIds() {
+        return bloomExpectedIds;
+    }
+
+    public double getBloomFalsePositiveRate() {
+        return bloomFalsePositiveRate;
+    }
+
+    public void setWindowMillis(long windowMillis) {
+        if (windowMillis <= 0) {
+            throw new IllegalArgumentException("windowMillis must be positive: " + windowMillis);
+        }
+        this.windowMillis = windowMillis;
+    }
+
+    public void setWindowMaxIds(int windowMaxIds) {
+        if (windowMaxIds <= 0) {
+            throw new IllegalArgumentException("windowMaxIds must be positive: " + windowMaxIds);
+        }
+        this.windowMaxIds = windowMaxIds;
+    }
+
+    public void setBloomExpectedIds(long bloomExpectedIds) {
+        if (bloomExpectedIds <= 0) {
+            throw new IllegalArgumentException("bloomExpectedIds must be positive: " + bloomExpectedIds);
+        }
+        this.bloomExpectedIds = bloomExpectedIds;
+    }
+
+    public void setBloomFalsePositiveRate(double bloomFalsePositiveRate) {
+        if (bloomFalsePositiveRate <= 0 || bloomFalsePositiveRate >= 1) {
+            throw new IllegalArgumentException("bloomFalsePositiveRate must be between 0 and 1: " + bloomFalsePositiveRate);
+        }
+        this.bloomFalsePositiveRate = bloomFalsePositiveRate;
+    }
+}
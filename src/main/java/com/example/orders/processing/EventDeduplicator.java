@@ -0,0 +1,220 @@
+package com.example.orders.processing;
+
+import com.example.orders.events.Event;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Rejects events whose eventId has been seen before, in bounded memory.
+ *
+ * <p>Recent ids are kept exactly in two generations of hash sets; the current generation is
+ * retired once it is older than the window or holds {@code windowMaxIds} ids, so at most two
+ * windows are held. Every id is also added to a Bloom filter, which catches redeliveries after
+ * an id has left the exact window. The filters age the same way: a generation is retired once
+ * {@code bloomExpectedIds} ids have been added to it, and two generations are consulted, so the
+ * false-positive rate stays near twice the configured one however many events pass through.
+ * A Bloom hit may be a false positive, so those rejections are counted separately along with
+ * the estimated false-positive rate. Events without an eventId are always accepted.
+ */
+public class EventDeduplicator {
+
+    private final long windowNanos;
+    private final int windowMaxIds;
+
+    private volatile ConcurrentHashMap<String, Boolean> current = new ConcurrentHashMap<>();
+    private volatile ConcurrentHashMap<String, Boolean> previous = new ConcurrentHashMap<>();
+    private volatile long currentStartedNanos = System.nanoTime();
+    private final Object rotateLock = new Object();
+
+    private final long bloomExpectedIds;
+    private final int bloomWords;
+    private final int hashCount;
+    private volatile BloomFilter currentBloom;
+    private volatile BloomFilter previousBloom;
+
+    private final LongAdder checked = new LongAdder();
+    private final LongAdder exactDuplicates = new LongAdder();
+    private final LongAdder probableDuplicates = new LongAdder();
+
+    public EventDeduplicator(DeduplicationOptions options) {
+        this.windowNanos = options.getWindowMillis() * 1_000_000L;
+        this.windowMaxIds = options.getWindowMaxIds();
+        // Standard Bloom sizing: m = -n ln p / (ln 2)^2 bits and k = m/n ln 2 hash functions
+        double n = options.getBloomExpectedIds();
+        double p = options.getBloomFalsePositiveRate();
+        long m = (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+        long words = Math.max(1, (m + 63) / 64);
+        if (words > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Bloom filter too large for " + options.getBloomExpectedIds() + " ids");
+        }
+        this.bloomExpectedIds = options.getBloomExpectedIds();
+        this.bloomWords = (int) words;
+        this.hashCount = Math.max(1, (int) Math.round(words * 64 / n * Math.log(2)));
+        this.currentBloom = new BloomFilter(bloomWords);
+        this.previousBloom = new BloomFilter(bloomWords);
+    }
+
+    /**
+     * Records the event's id and returns true if it was seen before and should be skipped.
+     */
+    public boolean isDuplicate(Event event) {
+        String eventId = event.getEventId();
+        if (eventId == null) {
+            return false;
+        }
+        checked.increment();
+        rotateIfDue();
+        ConcurrentHashMap<String, Boolean> generation = current;
+        if (generation.putIfAbsent(eventId, Boolean.TRUE) != null || previous.containsKey(eventId)) {
+            exactDuplicates.increment();
+            return true;
+        }
+        long hash = hash64(eventId);
+        BloomFilter bloom = currentBloom;
+        if (previousBloom.mightContain(hash) || !bloom.add(hash)) {
+            probableDuplicates.increment();
+            return true;
+        }
+        if (bloom.ids.incrementAndGet() >= bloomExpectedIds) {
+            rotateBloom(bloom);
+        }
+        return false;
+    }
+
+    /** Events checked that carried an eventId. */
+    public long getChecked() {
+        return checked.sum();
+    }
+
+    /** Duplicates found in the exact window. */
+    public long getExactDuplicates() {
+        return exactDuplicates.sum();
+    }
+
+    /** Duplicates found only by the Bloom filter; some of these may be false positives. */
+    public long getProbableDuplicates() {
+        return probableDuplicates.sum();
+    }
+
+    public long getDuplicatesRejected() {
+        return getExactDuplicates() + getProbableDuplicates();
+    }
+
+    /**
+     * Current false-positive probability of the two Bloom generations together, estimated from
+     * the fraction of bits set in each.
+     */
+    public double getEstimatedFalsePositiveRate() {
+        return 1 - (1 - currentBloom.falsePositiveRate()) * (1 - previousBloom.falsePositiveRate());
+    }
+
+    public long getBloomBytes() {
+        return 2L * bloomWords * 8;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("checked=%d duplicates=%d (exact=%d probable=%d) bloomFpp=%.6f bloomBytes=%d",
+                getChecked(), getDuplicatesRejected(), getExactDuplicates(), getProbableDuplicates(),
+                getEstimatedFalsePositiveRate(), getBloomBytes());
+    }
+
+    private void rotateIfDue() {
+        if (current.size() < windowMaxIds && System.nanoTime() - currentStartedNanos < windowNanos) {
+            return;
+        }
+        synchronized (rotateLock) {
+            if (current.size() >= windowMaxIds || System.nanoTime() - currentStartedNanos >= windowNanos) {
+                previous = current;
+                current = new ConcurrentHashMap<>();
+                currentStartedNanos = System.nanoTime();
+            }
+        }
+    }
+
+    private void rotateBloom(BloomFilter full) {
+        synchronized (rotateLock) {
+            if (currentBloom == full) {
+                previousBloom = full;
+                currentBloom = new BloomFilter(bloomWords);
+            }
+        }
+    }
+
+    private static long hash64(String s) {
+        // 64-bit FNV-1a over the UTF-16 chars followed by a murmur3 finalizer to spread the bits
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private final class BloomFilter {
+        final AtomicLongArray bits;
+        final long bitCount;
+        final AtomicLong bitsSet = new AtomicLong();
+        // Ids added to this generation
+        final AtomicLong ids = new AtomicLong();
+
+        BloomFilter(int words) {
+            this.bits = new AtomicLongArray(words);
+            this.bitCount = words * 64L;
+        }
+
+        boolean mightContain(long hash) {
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = bit(hash, i);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Sets the id's bits and returns true if at least one of them was newly set, i.e. the id
+         * was definitely not in the filter before.
+         */
+        boolean add(long hash) {
+            boolean added = false;
+            for (int i = 1; i <= hashCount; i++) {
+                long bit = bit(hash, i);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = bits.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, old, old | mask));
+                if ((old & mask) == 0) {
+                    bitsSet.incrementAndGet();
+                    added = true;
+                }
+            }
+            return added;
+        }
+
+        double falsePositiveRate() {
+            return Math.pow((double) bitsSet.get() / bitCount, hashCount);
+        }
+
+        private long bit(long hash, int i) {
+            // Kirsch-Mitzenmacher double hashing: h1 + i * h2 stands in for k independent hashes
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            return ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+        }
+    }
+}
@@ -1,148 +1,378 @@
 package com.example.orders.processing;
 
 import com.example.orders.events.*;
+import com.example.orders.metrics.PipelineMetrics;
+import com.example.orders.model.HistoryNote;
 import com.example.orders.model.Order;
 import com.example.orders.model.OrderStatus;
+import com.example.orders.observers.AsyncObserverOptions;
 import com.example.orders.observers.OrderObserver;
+import com.example.orders.observers.OverflowPolicy;
+import com.example.orders.observers.RingBufferObserver;
 import com.example.orders.repository.OrderRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Applies order events to the repository and notifies observers of the results.
+ *
+ * <p>Each event's status transition, history entry and save happen in one
+ * {@link OrderRepository#update} of its order, which the store runs under that order's own lock
+ * (a map bin or a shard), never a global one. Events for the same order may therefore be
+ * processed from several threads: they are applied one at a time, each to the result of the
+ * last. Which of two concurrent events goes first is up to the threads, so the ingestion paths
+ * that process in parallel still route events by orderId to keep each order's file order.
+ */
 @Service
-public class EventProcessor {
+public class EventProcessor implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(EventProcessor.class);
 
     private final OrderRepository repository;
-    private final List<OrderObserver> observers;
+    private volatile List<OrderObserver> observers;
+    private final List<RingBufferObserver> asyncObservers = new ArrayList<>();
+    private volatile EventDeduplicator deduplicator;
+    private volatile PipelineMetrics metrics;
+    private final LongAdder rejectedTransitions = new LongAdder();
+    // Status changes collected during an update, reused per thread; null while in use
+    private final ThreadLocal<List<StatusChange>> changeBuffers = ThreadLocal.withInitial(ArrayList::new);
 
     public EventProcessor(OrderRepository repository, List<OrderObserver> observers) {
         this.repository = repository;
         this.observers = observers;
     }
 
+    /**
+     * Switches observer notification to asynchronous delivery: each observer gets its own ring
+     * buffer and consumer thread, so a slow observer no longer holds up processing. Call before
+     * processing starts.
+     *
+     * <p>Observers that {@linkplain OrderObserver#requiresLosslessDelivery require lossless
+     * delivery} stay synchronous when the overflow policy could drop notifications.
+     */
+    public synchronized void dispatchObserversAsync(AsyncObserverOptions options) {
+        if (!asyncObservers.isEmpty()) {
+            return;
+        }
+        List<OrderObserver> wrapped = new ArrayList<>(observers.size());
+        for (OrderObserver o : observers) {
+            if (o.requiresLosslessDelivery() && options.getOverflowPolicy() != OverflowPolicy.BLOCK) {
+                wrapped.add(o);
+                continue;
+            }
+            RingBufferObserver async = new RingBufferObserver(o, options);
+            asyncObservers.add(async);
+            wrapped.add(async);
+        }
+        log.info("Dispatching to {} observers asynchronously (ring={}, batch={}, overflow={})",
+                asyncObservers.size(), options.getRingSize(), options.getBatchSize(), options.getOverflowPolicy());
+        observers = wrapped;
+    }
+
+    /**
+     * Skips events whose eventId has already been processed. Call before processing starts.
+     */
+    public void setDeduplicator(EventDeduplicator deduplicator) {
+        this.deduplicator = deduplicator;
+    }
+
+    public EventDeduplicator getDeduplicator() {
+        return deduplicator;
+    }
+
+    /**
+     * Records handler and observer timings and per-type event counts; null turns recording off.
+     */
+    public void setMetrics(PipelineMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public synchronized List<RingBufferObserver> getAsyncObservers() {
+        return new ArrayList<>(asyncObservers);
+    }
+
+    /**
+     * Flushes pending asynchronous notifications and stops the observer consumer threads.
+     */
+    @Override
+    public synchronized void close() {
+        for (RingBufferObserver async : asyncObservers) {
+            async.close();
+            log.info("Observer dispatch: {}", async);
+        }
+        if (deduplicator != null) {
+            log.info("Event deduplication: {}", deduplicator);
+        }
+        if (rejectedTransitions.sum() > 0) {
+            log.info("Rejected {} events with illegal status transitions", rejectedTransitions.sum());
+        }
+    }
+
     public void process(Event event) {
         if (event == null) {
             log.warn("Received null event, skipping");
             return;
         }
-        String type = event.getEventType();
+        EventDeduplicator dedup = deduplicator;
+        if (dedup != null && dedup.isDuplicate(event)) {
+            log.debug("Skipping duplicate event {} for order {}", event.getEventId(), event.getOrderId());
+            return;
+        }
+        PipelineMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        List<StatusChange> changes = takeChangeBuffer();
+        Order applied = null;
         try {
-            if ("OrderCreated".equals(type)) {
-                handle((OrderCreatedEvent) event);
-            } else if ("PaymentReceived".equals(type)) {
-                handle((PaymentReceivedEvent) event);
-            } else if ("ShippingScheduled".equals(type)) {
-                handle((ShippingScheduledEvent) event);
-            } else if ("OrderCancelled".equals(type)) {
-                handle((OrderCancelledEvent) event);
+            if (event.getOrderId() == null) {
+                log.warn("{} event without orderId, skipping", event.getEventType());
             } else {
-                log.warn("Unknown event type: {}", type);
+                applied = repository.update(event.getOrderId(), current -> apply(event, current, changes));
             }
-        } catch (ClassCastException cce) {
-            log.warn("Event payload did not match expected type for eventType={}: {}", type, cce.getMessage());
         } finally {
-            // Notify observers that an event has been processed (if order exists)
-            if (event != null) {
-                String orderId = extractOrderId(event);
-                if (orderId != null) {
-                    Order order = repository.findById(orderId).orElse(null);
-                    if (order != null) {
-                        for (OrderObserver o : observers) {
-                            o.onEventProcessed(event, order);
-                        }
-                    }
+            if (m != null) {
+                m.recordStage(PipelineMetrics.Stage.PROCESS, System.nanoTime() - start);
+                m.recordEvent(EventType.fromName(event.getEventType()));
+            }
+            notifyStatusChanges(changes);
+            releaseChangeBuffer(changes);
+            // Notify observers about events that were applied to an order
+            if (applied != null) {
+                long notifyStart = m == null ? 0 : System.nanoTime();
+                for (OrderObserver o : observers) {
+                    o.onEventProcessed(event, applied);
+                }
+                if (m != null) {
+                    m.recordStage(PipelineMetrics.Stage.OBSERVERS, System.nanoTime() - notifyStart);
                 }
             }
         }
     }
 
-    private String extractOrderId(Event event) {
-        if (event instanceof OrderCreatedEvent) {
-            return ((OrderCreatedEvent) event).getOrderId();
-        } else if (event instanceof PaymentReceivedEvent) {
-            return ((PaymentReceivedEvent) event).getOrderId();
-        } else if (event instanceof ShippingScheduledEvent) {
-            return ((ShippingScheduledEvent) event).getOrderId();
-        } else if (event instanceof OrderCancelledEvent) {
-            return ((OrderCancelledEvent) event).getOrderId();
+    /**
+     * Processes a micro-batch: events are grouped by orderId, and each order's events are
+     * applied in their original order within one atomic update of that order. All the updates
+     * are committed together by {@link OrderRepository#updateAll}. Observers are notified after the commit, status
+     * changes first and then one {@link OrderObserver#onEventsProcessed} call for the batch.
+     */
+    public void processBatch(List<? extends Event> events) {
+        EventDeduplicator dedup = deduplicator;
+        Map<String, List<Event>> byOrder = new LinkedHashMap<>();
+        for (Event event : events) {
+            if (event == null) {
+                log.warn("Received null event, skipping");
+            } else if (dedup != null && dedup.isDuplicate(event)) {
+                log.debug("Skipping duplicate event {} for order {}", event.getEventId(), event.getOrderId());
+            } else if (event.getOrderId() == null) {
+                log.warn("{} event without orderId, skipping", event.getEventType());
+            } else {
+                byOrder.computeIfAbsent(event.getOrderId(), id -> new ArrayList<>(4)).add(event);
+            }
+        }
+        if (byOrder.isEmpty()) {
+            return;
+        }
+
+        PipelineMetrics m = metrics;
+        List<StatusChange> changes = takeChangeBuffer();
+        List<Event> appliedEvents = new ArrayList<>(events.size());
+        List<Order> appliedOrders = new ArrayList<>(events.size());
+        repository.updateAll(byOrder.keySet(), (orderId, stored) -> {
+            Order order = stored;
+            boolean dirty = false;
+            for (Event event : byOrder.get(orderId)) {
+                long start = m == null ? 0 : System.nanoTime();
+                Order applied = apply(event, order, changes);
+                if (applied != null) {
+                    dirty = true;
+                    order = applied;
+                    appliedEvents.add(event);
+                    appliedOrders.add(applied);
+                }
+                if (m != null) {
+                    m.recordStage(PipelineMetrics.Stage.PROCESS, System.nanoTime() - start);
+                    m.recordEvent(EventType.fromName(event.getEventType()));
+                }
+            }
+            return dirty ? order : null;
+        });
+
+        notifyStatusChanges(changes);
+        releaseChangeBuffer(changes);
+        if (!appliedEvents.isEmpty()) {
+            long notifyStart = m == null ? 0 : System.nanoTime();
+            for (OrderObserver o : observers) {
+                o.onEventsProcessed(appliedEvents, appliedOrders);
+            }
+            if (m != null) {
+                m.recordStage(PipelineMetrics.Stage.OBSERVERS, System.nanoTime() - notifyStart);
+            }
+        }
+    }
+
+    /**
+     * Number of events ignored because their status change is not allowed from the order's
+     * current status, such as shipping a cancelled order.
+     */
+    public long getRejectedTransitions() {
+        return rejectedTransitions.sum();
+    }
+
+    /**
+     * Applies one event to {@code order} (null if no such order is stored) and returns the
+     * order it was applied to, or null if it was ignored or rejected. Runs inside the order's
+     * {@link OrderRepository#update}, which saves the result.
+     */
+    private Order apply(Event event, Order order, List<StatusChange> changes) {
+        String type = event.getEventType();
+        try {
+            if ("OrderCreated".equals(type)) {
+                return handle((OrderCreatedEvent) event, order);
+            } else if ("PaymentReceived".equals(type)) {
+                return handle((PaymentReceivedEvent) event, order, changes);
+            } else if ("ShippingScheduled".equals(type)) {
+                return handle((ShippingScheduledEvent) event, order, changes);
+            } else if ("OrderCancelled".equals(type)) {
+                return handle((OrderCancelledEvent) event, order, changes);
+            }
+            log.warn("Unknown event type: {}", type);
+            PipelineMetrics m = metrics;
+            if (m != null) {
+                m.recordUnknownEventType();
+            }
+        } catch (ClassCastException cce) {
+            log.warn("Event payload did not match expected type for eventType={}: {}", type, cce.getMessage());
         }
         return null;
     }
 
-    private void handle(OrderCreatedEvent e) {
-        if (repository.existsById(e.getOrderId())) {
+    private Order handle(OrderCreatedEvent e, Order existing) {
+        if (existing != null) {
             log.info("Order {} already exists, ignoring duplicate creation", e.getOrderId());
-            return;
+            return null;
         }
         Order order = new Order(e.getOrderId(), e.getCustomerId(), e.getItems(), e.getTotalAmount());
-        order.setStatus(OrderStatus.PENDING);
-        order.appendHistory(historyLine(e, "Order created"));
-        repository.save(order);
-    }
-
-    private void handle(PaymentReceivedEvent e) {
-        Order order = repository.findById(e.getOrderId()).orElse(null);
-        if (order != null) {
-            OrderStatus prev = order.getStatus();
-            BigDecimal paid = e.getAmountPaid() == null ? BigDecimal.ZERO : e.getAmountPaid();
-            BigDecimal total = order.getTotalAmount() == null ? BigDecimal.ZERO : order.getTotalAmount();
-
-            if (paid.compareTo(total) >= 0) {
-                order.setStatus(OrderStatus.PAID);
-                order.appendHistory(historyLine(e, "Payment received in full: " + paid));
-            } else if (paid.compareTo(BigDecimal.ZERO) > 0) {
-                order.setStatus(OrderStatus.PARTIALLY_PAID);
-                order.appendHistory(historyLine(e, "Partial payment received: " + paid));
-            } else {
-                order.appendHistory(historyLine(e, "Payment event with zero/invalid amount"));
-            }
+        order.getHistory().add(e.getTimestamp(), e.getEventType(), HistoryNote.ORDER_CREATED);
+        return order;
+    }
 
-            repository.save(order);
-            notifyIfStatusChanged(order.getOrderId(), prev, order.getStatus());
-        } else {
+    private Order handle(PaymentReceivedEvent e, Order order, List<StatusChange> changes) {
+        if (order == null) {
             log.warn("Payment for unknown order {}, ignoring", e.getOrderId());
+            return null;
+        }
+        BigDecimal paid = e.getAmountPaid() == null ? BigDecimal.ZERO : e.getAmountPaid();
+        BigDecimal total = order.getTotalAmount() == null ? BigDecimal.ZERO : order.getTotalAmount();
+        if (paid.compareTo(BigDecimal.ZERO) <= 0) {
+            order.getHistory().add(e.getTimestamp(), e.getEventType(), HistoryNote.INVALID_PAYMENT);
+            return order;
+        }
+        boolean inFull = paid.compareTo(total) >= 0;
+        OrderStatus next = inFull ? OrderStatus.PAID : OrderStatus.PARTIALLY_PAID;
+        if (!transition(e, order, next, changes)) {
+            return null;
         }
+        order.getHistory().addAmount(e.getTimestamp(), e.getEventType(),
+                inFull ? HistoryNote.PAID_IN_FULL : HistoryNote.PARTIAL_PAYMENT, paid);
+        return order;
     }
 
-    private void handle(ShippingScheduledEvent e) {
-        Order order = repository.findById(e.getOrderId()).orElse(null);
-        if (order != null) {
-            OrderStatus prev = order.getStatus();
-            order.setStatus(OrderStatus.SHIPPED);
-            order.appendHistory(historyLine(e, "Shipping scheduled for " + e.getShippingDate()));
-            repository.save(order);
-            notifyIfStatusChanged(order.getOrderId(), prev, order.getStatus());
-        } else {
+    private Order handle(ShippingScheduledEvent e, Order order, List<StatusChange> changes) {
+        if (order == null) {
             log.warn("Shipping scheduled for unknown order {}, ignoring", e.getOrderId());
+            return null;
         }
+        if (!transition(e, order, OrderStatus.SHIPPED, changes)) {
+            return null;
+        }
+        order.getHistory().addDate(e.getTimestamp(), e.getEventType(), HistoryNote.SHIPPING_SCHEDULED,
+                e.getShippingDate());
+        return order;
     }
 
-    private void handle(OrderCancelledEvent e) {
-        Order order = repository.findById(e.getOrderId()).orElse(null);
-        if (order != null) {
-            OrderStatus prev = order.getStatus();
-            order.setStatus(OrderStatus.CANCELLED);
-            order.appendHistory(historyLine(e, "Order cancelled: " + e.getReason()));
-            repository.save(order);
-            notifyIfStatusChanged(order.getOrderId(), prev, order.getStatus());
-        } else {
+    private Order handle(OrderCancelledEvent e, Order order, List<StatusChange> changes) {
+        if (order == null) {
             log.warn("Cancellation for unknown order {}, ignoring", e.getOrderId());
+            return null;
+        }
+        if (!transition(e, order, OrderStatus.CANCELLED, changes)) {
+            return null;
         }
+        order.getHistory().addText(e.getTimestamp(), e.getEventType(), HistoryNote.ORDER_CANCELLED, e.getReason());
+        return order;
     }
 
-    private void notifyIfStatusChanged(String orderId, OrderStatus prev, OrderStatus next) {
+    /**
+     * Moves the order to {@code next}, recording an actual status change in {@code changes}.
+     * Returns false after counting the rejection if the transition table does not allow it.
+     */
+    private boolean transition(Event e, Order order, OrderStatus next, List<StatusChange> changes) {
+        OrderStatus prev = order.transitionTo(next);
+        if (prev == null) {
+            rejectedTransitions.increment();
+            PipelineMetrics m = metrics;
+            if (m != null) {
+                m.recordRejectedTransition();
+            }
+            log.debug("Rejected {} for order {}: {} -> {} is not allowed",
+                    e.getEventType(), order.getOrderId(), order.getStatus(), next);
+            return false;
+        }
         if (prev != next) {
+            changes.add(new StatusChange(order.getOrderId(), prev, next));
+        }
+        return true;
+    }
+
+    private void notifyStatusChanges(List<StatusChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        PipelineMetrics m = metrics;
+        long start = m == null ? 0 : System.nanoTime();
+        for (StatusChange change : changes) {
             for (OrderObserver o : observers) {
-                o.onStatusChanged(orderId, prev, next);
+                o.onStatusChanged(change.orderId, change.from, change.to);
             }
         }
+        if (m != null) {
+            m.recordStage(PipelineMetrics.Stage.OBSERVERS, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns this thread's change buffer, or a new list if it is already in use further up the
+     * stack (an observer processing events) or was not handed back after an observer threw.
+     */
+    private List<StatusChange> takeChangeBuffer() {
+        List<StatusChange> buffer = changeBuffers.get();
+        if (buffer == null) {
+            return new ArrayList<>();
+        }
+        changeBuffers.set(null);
+        return buffer;
+    }
+
+    private void releaseChangeBuffer(List<StatusChange> buffer) {
+        buffer.clear();
+        changeBuffers.set(buffer);
     }
 
-    private String historyLine(Event e, String note) {
-        return e.getTimestamp() + " - " + e.getEventType() + " - " + note;
+    private static final class StatusChange {
+        final String orderId;
+        final OrderStatus from;
+        final OrderStatus to;
+
+        StatusChange(String orderId, OrderStatus from, OrderStatus to) {
+            this.orderId = orderId;
+            this.from = from;
+            this.to = to;
+        }
     }
 }
@@ -0,0 +1,638 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderHistory;
+import com.example.orders.model.OrderItem;
+import com.example.orders.model.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+
+/**
+ * Keeps orders in primitive columns rather than as objects, for order counts at which the
+ * per-object overhead of an {@link Order} (its item list and items, the BigDecimal total, id
+ * strings, map entries and index entries) outweighs the data itself.
+ *
+ * <p>Per order the store holds the orderId hash, the status as a byte, the total as a packed
+ * scaled long, the customer as a dictionary code, and the address and length of a record in an
+ * {@link OrderArena} (off the heap by default). The record holds the orderId, the items as item
+ * codes and quantities, and the history. Orders are split into lock-striped shards by orderId,
+ * each with its own columns, open-addressing orderId index and arena. Each shard also links
+ * its slots into one chain per customer and one per status, so customer and status lookups
+ * only visit the matching orders.
+ *
+ * <p>Every lookup decodes a new {@link Order}, and changes to it are only stored when it is
+ * saved again. {@link #compute} holds the shard lock while the order is changed and stored, so
+ * updates made through it (as {@link OrderRepository#update} does) cannot race. Each record
+ * carries a version that is copied into the orders decoded from it
+ * ({@link Order#getStoreVersion}); saving a copy whose record has been saved since it was read
+ * throws {@link ConcurrentModificationException} rather than losing the other update. Orders
+ * that were not read from the store (version 0) replace the record unconditionally.
+ */
+public class ColumnarOrderStore implements IndexedOrderStore {
+    private static final Logger log = LoggerFactory.getLogger(ColumnarOrderStore.class);
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final int SHARDS = 64;
+    private static final int SHARD_BITS = 6;
+    // Overwritten records are reclaimed once they outweigh the live ones and exceed this (or a chunk, if smaller)
+    private static final long MIN_COMPACT_BYTES = 1024 * 1024;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    private final StringDictionary customers = new StringDictionary();
+    private final StringDictionary items = new StringDictionary();
+    private final AtomicLong orders = new AtomicLong();
+    private final boolean offHeap;
+    private final int maxChunkBytes;
+    private final long minCompactBytes;
+
+    public ColumnarOrderStore() {
+        this(new ColumnarStoreOptions());
+    }
+
+    public ColumnarOrderStore(ColumnarStoreOptions options) {
+        this.offHeap = options.isOffHeap();
+        this.maxChunkBytes = options.getMaxChunkBytes();
+        this.minCompactBytes = Math.min(MIN_COMPACT_BYTES, maxChunkBytes);
+        int capacity = Math.max(16, options.getInitialCapacity() / SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(capacity, new OrderArena(offHeap, maxChunkBytes));
+        }
+    }
+
+    @Override
+    public Order get(String orderId) {
+        byte[] key = key(orderId);
+        int hash = hash(orderId);
+        Shard shard = shard(hash);
+        synchronized (shard) {
+            int entry = find(shard, key, hash);
+            return entry < 0 ? null : read(shard, shard.table[entry] - 1);
+        }
+    }
+
+    @Override
+    public boolean contains(String orderId) {
+        byte[] key = key(orderId);
+        int hash = hash(orderId);
+        Shard shard = shard(hash);
+        synchronized (shard) {
+            return find(shard, key, hash) >= 0;
+        }
+    }
+
+    @Override
+    public Order compute(String orderId, BiFunction<String, Order, Order> remapping) {
+        byte[] key = key(orderId);
+        int hash = hash(orderId);
+        Shard shard = shard(hash);
+        synchronized (shard) {
+            int entry = find(shard, key, hash);
+            Order previous = entry < 0 ? null : read(shard, shard.table[entry] - 1);
+            Order result = remapping.apply(orderId, previous);
+            if (result != null) {
+                store(shard, entry, key, hash, result);
+            } else if (entry >= 0) {
+                remove(shard, entry);
+            }
+            return result;
+        }
+    }
+
+    @Override
+    public void put(String orderId, Order order) {
+        byte[] key = key(orderId);
+        int hash = hash(orderId);
+        Shard shard = shard(hash);
+        synchronized (shard) {
+            store(shard, find(shard, key, hash), key, hash, order);
+        }
+    }
+
+    @Override
+    public List<Order> findByCustomerId(String customerId) {
+        int code = customers.find(customerId);
+        List<Order> found = new ArrayList<>();
+        if (code < 0) {
+            return found;
+        }
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (int next = shard.customerHeads.get(code); next != 0; next = shard.customerNext[next - 1]) {
+                    found.add(read(shard, next - 1));
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public List<Order> findByStatus(OrderStatus status) {
+        List<Order> found = new ArrayList<>();
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                for (int next = shard.statusHeads[status.ordinal()]; next != 0; next = shard.statusNext[next - 1]) {
+                    found.add(read(shard, next - 1));
+                }
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public long countByStatus(OrderStatus status) {
+        long count = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                count += shard.statusCounts[status.ordinal()];
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Every order, decoded shard by shard as the iteration reaches it.
+     */
+    @Override
+    public Collection<Order> values() {
+        return new AbstractCollection<Order>() {
+            @Override
+            public Iterator<Order> iterator() {
+                return new Iterator<Order>() {
+                    private int shardIndex;
+                    private int slot;
+                    private Order next = advance();
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Order next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        Order order = next;
+                        next = advance();
+                        return order;
+                    }
+
+                    private Order advance() {
+                        for (; shardIndex < SHARDS; shardIndex++, slot = 0) {
+                            Shard shard = shards[shardIndex];
+                            synchronized (shard) {
+                                if (slot < shard.size) {
+                                    return read(shard, slot++);
+                                }
+                            }
+                        }
+                        return null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return (int) Math.min(orders.get(), Integer.MAX_VALUE);
+            }
+        };
+    }
+
+    @Override
+    public long size() {
+        return orders.get();
+    }
+
+    /** Bytes of order records still in use. */
+    public long getRecordBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                bytes += shard.liveBytes;
+            }
+        }
+        return bytes;
+    }
+
+    /** Bytes allocated for records, on or off the heap, including overwritten ones not yet reclaimed. */
+    public long getArenaBytes() {
+        long bytes = 0;
+        for (Shard shard : shards) {
+            synchronized (shard) {
+                bytes += shard.arena.getCapacityBytes();
+            }
+        }
+        return bytes;
+    }
+
+    @Override
+    public void close() {
+        log.info("{}", this);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Order store: %d orders, %d customers, %d items; %d MB of records in %d MB %s arenas",
+                size(), customers.size(), items.size(), getRecordBytes() / (1024 * 1024),
+                getArenaBytes() / (1024 * 1024), offHeap ? "off-heap" : "heap");
+    }
+
+    // Index of the table entry for the key, or -1
+    private static int find(Shard shard, byte[] key, int hash) {
+        int[] table = shard.table;
+        int mask = table.length - 1;
+        for (int i = home(hash, mask); ; i = (i + 1) & mask) {
+            int slot = table[i] - 1;
+            if (slot < 0) {
+                return -1;
+            }
+            if (shard.hashes[slot] == hash && shard.arena.startsWith(shard.addresses[slot], key)) {
+                return i;
+            }
+        }
+    }
+
+    private void store(Shard shard, int entry, byte[] key, int hash, Order order) {
+        long total = OrderHistory.packAmount(order.getTotalAmount());
+        byte[] record = encode(key, order, total == OrderHistory.NULL_VALUE);
+        OrderStatus status = order.getStatus();
+        int customer = customers.code(order.getCustomerId());
+        byte ordinal = status == null ? -1 : (byte) status.ordinal();
+        boolean relinkCustomer = true;
+        boolean relinkStatus = true;
+        int slot;
+        if (entry >= 0) {
+            slot = shard.table[entry] - 1;
+            int version = order.getStoreVersion();
+            if (version != 0 && version != shard.versions[slot]) {
+                throw new ConcurrentModificationException("Order " + order.getOrderId()
+                        + " was saved from another copy since this one was read (version " + version
+                        + ", stored " + shard.versions[slot] + ")");
+            }
+            int previousLength = shard.lengths[slot];
+            if (record.length <= previousLength) {
+                shard.arena.write(shard.addresses[slot], record);
+            } else {
+                shard.addresses[slot] = shard.arena.append(record);
+            }
+            shard.deadBytes += previousLength - (record.length <= previousLength ? record.length : 0);
+            shard.liveBytes += record.length - previousLength;
+            if (shard.statuses[slot] >= 0) {
+                shard.statusCounts[shard.statuses[slot]]--;
+            }
+            relinkCustomer = shard.customers[slot] != customer;
+            relinkStatus = shard.statuses[slot] != ordinal;
+            if (relinkCustomer) {
+                shard.unlinkCustomer(slot);
+            }
+            if (relinkStatus) {
+                shard.unlinkStatus(slot);
+            }
+        } else {
+            slot = insert(shard, hash);
+            shard.addresses[slot] = shard.arena.append(record);
+            shard.liveBytes += record.length;
+            shard.versions[slot] = 0;
+            orders.incrementAndGet();
+        }
+        // Skips 0 on overflow, which marks orders that were never read
+        int version = shard.versions[slot] + 1;
+        shard.versions[slot] = version == 0 ? 1 : version;
+        order.setStoreVersion(shard.versions[slot]);
+        shard.lengths[slot] = record.length;
+        shard.totals[slot] = total;
+        shard.customers[slot] = customer;
+        shard.statuses[slot] = ordinal;
+        if (status != null) {
+            shard.statusCounts[status.ordinal()]++;
+        }
+        if (relinkCustomer) {
+            shard.linkCustomer(slot);
+        }
+        if (relinkStatus) {
+            shard.linkStatus(slot);
+        }
+        compactIfSparse(shard);
+    }
+
+    // Appends a slot for a new order and indexes it
+    private static int insert(Shard shard, int hash) {
+        if (shard.size == shard.hashes.length) {
+            shard.grow();
+        }
+        if ((shard.size + 1) * 2 > shard.table.length) {
+            shard.rehash(shard.table.length * 2);
+        }
+        int slot = shard.size++;
+        shard.hashes[slot] = hash;
+        int mask = shard.table.length - 1;
+        int i = home(hash, mask);
+        while (shard.table[i] != 0) {
+            i = (i + 1) & mask;
+        }
+        shard.table[i] = slot + 1;
+        return slot;
+    }
+
+    private void remove(Shard shard, int entry) {
+        int[] table = shard.table;
+        int mask = table.length - 1;
+        int slot = table[entry] - 1;
+        shard.deadBytes += shard.lengths[slot];
+        shard.liveBytes -= shard.lengths[slot];
+        if (shard.statuses[slot] >= 0) {
+            shard.statusCounts[shard.statuses[slot]]--;
+        }
+        shard.unlinkCustomer(slot);
+        shard.unlinkStatus(slot);
+        // Backward-shift deletion keeps every probe sequence free of gaps
+        int gap = entry;
+        for (int i = (gap + 1) & mask; table[i] != 0; i = (i + 1) & mask) {
+            int home = home(shard.hashes[table[i] - 1], mask);
+            if (((i - home) & mask) >= ((i - gap) & mask)) {
+                table[gap] = table[i];
+                gap = i;
+            }
+        }
+        table[gap] = 0;
+        // Fill the hole with the last slot so the columns stay dense
+        int last = --shard.size;
+        if (slot != last) {
+            shard.move(last, slot);
+            for (int i = home(shard.hashes[slot], mask); ; i = (i + 1) & mask) {
+                if (table[i] == last + 1) {
+                    table[i] = slot + 1;
+                    break;
+                }
+            }
+        }
+        orders.decrementAndGet();
+        compactIfSparse(shard);
+    }
+
+    private void compactIfSparse(Shard shard) {
+        if (shard.deadBytes < minCompactBytes || shard.deadBytes < shard.liveBytes) {
+            return;
+        }
+        OrderArena compacted = new OrderArena(offHeap, maxChunkBytes);
+        for (int slot = 0; slot < shard.size; slot++) {
+            byte[] record = new byte[shard.lengths[slot]];
+            shard.arena.read(shard.addresses[slot], record);
+            shard.addresses[slot] = compacted.append(record);
+        }
+        shard.arena = compacted;
+        shard.deadBytes = 0;
+    }
+
+    private byte[] encode(byte[] key, Order order, boolean totalInRecord) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + key.length);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(key.length);
+            out.write(key);
+            List<OrderItem> orderItems = order.getItems();
+            out.writeInt(orderItems == null ? -1 : orderItems.size());
+            if (orderItems != null) {
+                for (OrderItem item : orderItems) {
+                    out.writeInt(items.code(item.getItemId()));
+                    out.writeInt(item.getQty());
+                }
+            }
+            if (totalInRecord) {
+                OrderCodec.writeDecimal(out, order.getTotalAmount());
+            }
+            OrderCodec.writeHistory(out, order.getHistory());
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Order read(Shard shard, int slot) {
+        byte[] record = new byte[shard.lengths[slot]];
+        shard.arena.read(shard.addresses[slot], record);
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        try {
+            String orderId = OrderCodec.readString(in);
+            int itemCount = in.readInt();
+            List<OrderItem> orderItems = null;
+            if (itemCount >= 0) {
+                orderItems = new ArrayList<>(itemCount);
+                for (int i = 0; i < itemCount; i++) {
+                    orderItems.add(new OrderItem(items.get(in.readInt()), in.readInt()));
+                }
+            }
+            long total = shard.totals[slot];
+            BigDecimal amount = total == OrderHistory.NULL_VALUE ? OrderCodec.readDecimal(in)
+                    : OrderHistory.unpackAmount(total);
+            Order order = new Order(orderId, customers.get(shard.customers[slot]), orderItems, amount);
+            byte status = shard.statuses[slot];
+            order.setStatus(status < 0 ? null : STATUSES[status]);
+            OrderCodec.readHistory(in, order.getHistory());
+            // The record is what was last saved, so a durable repository has logged all of it
+            order.setLoggedHistory(order.getHistory().size());
+            order.setStoreVersion(shard.versions[slot]);
+            return order;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Corrupt columnar record in slot " + slot, e);
+        }
+    }
+
+    private Shard shard(int hash) {
+        return shards[hash & (SHARDS - 1)];
+    }
+
+    private static int home(int hash, int mask) {
+        return (hash >>> SHARD_BITS) & mask;
+    }
+
+    private static int hash(String orderId) {
+        int h = orderId.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static byte[] key(String orderId) {
+        return orderId.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static final class Shard {
+        int size;
+        int[] hashes;
+        long[] addresses;
+        int[] lengths;
+        long[] totals;
+        int[] customers;
+        byte[] statuses;
+        int[] versions;
+        // Chains of slots per customer and per status, linked both ways by slot + 1 with 0 at the ends
+        int[] customerNext;
+        int[] customerPrev;
+        int[] statusNext;
+        int[] statusPrev;
+        final IntIntMap customerHeads = new IntIntMap(16);
+        final int[] statusHeads = new int[STATUSES.length];
+        // Open-addressing orderId index holding slot + 1, with 0 for an empty entry
+        int[] table;
+        OrderArena arena;
+        long liveBytes;
+        long deadBytes;
+        final long[] statusCounts = new long[STATUSES.length];
+
+        Shard(int capacity, OrderArena arena) {
+            this.hashes = new int[capacity];
+            this.addresses = new long[capacity];
+            this.lengths = new int[capacity];
+            this.totals = new long[capacity];
+            this.customers = new int[capacity];
+            this.statuses = new byte[capacity];
+            this.versions = new int[capacity];
+            this.customerNext = new int[capacity];
+            this.customerPrev = new int[capacity];
+            this.statusNext = new int[capacity];
+            this.statusPrev = new int[capacity];
+            this.table = new int[Integer.highestOneBit(capacity * 2 - 1) << 1];
+            this.arena = arena;
+        }
+
+        void grow() {
+            int capacity = hashes.length * 2;
+            hashes = Arrays.copyOf(hashes, capacity);
+            addresses = Arrays.copyOf(addresses, capacity);
+            lengths = Arrays.copyOf(lengths, capacity);
+            totals = Arrays.copyOf(totals, capacity);
+            customers = Arrays.copyOf(customers, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            customerNext = Arrays.copyOf(customerNext, capacity);
+            customerPrev = Arrays.copyOf(customerPrev, capacity);
+            statusNext = Arrays.copyOf(statusNext, capacity);
+            statusPrev = Arrays.copyOf(statusPrev, capacity);
+        }
+
+        void rehash(int tableSize) {
+            int[] rehashed = new int[tableSize];
+            int mask = tableSize - 1;
+            for (int slot = 0; slot < size; slot++) {
+                int i = home(hashes[slot], mask);
+                while (rehashed[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                rehashed[i] = slot + 1;
+            }
+            table = rehashed;
+        }
+
+        void move(int from, int to) {
+            hashes[to] = hashes[from];
+            addresses[to] = addresses[from];
+            lengths[to] = lengths[from];
+            totals[to] = totals[from];
+            customers[to] = customers[from];
+            statuses[to] = statuses[from];
+            versions[to] = versions[from];
+            // Point the chain neighbours (or heads) of the moved slot at its new position; a slot
+            // without a customer or status is in no chain, and its links are stale
+            customerNext[to] = customerNext[from];
+            customerPrev[to] = customerPrev[from];
+            if (customers[to] >= 0) {
+                if (customerPrev[to] != 0) {
+                    customerNext[customerPrev[to] - 1] = to + 1;
+                } else {
+                    customerHeads.put(customers[to], to + 1);
+                }
+                if (customerNext[to] != 0) {
+                    customerPrev[customerNext[to] - 1] = to + 1;
+                }
+            }
+            statusNext[to] = statusNext[from];
+            statusPrev[to] = statusPrev[from];
+            if (statuses[to] >= 0) {
+                if (statusPrev[to] != 0) {
+                    statusNext[statusPrev[to] - 1] = to + 1;
+                } else {
+                    statusHeads[statuses[to]] = to + 1;
+                }
+                if (statusNext[to] != 0) {
+                    statusPrev[statusNext[to] - 1] = to + 1;
+                }
+            }
+        }
+
+        void linkCustomer(int slot) {
+            if (customers[slot] < 0) {
+                return;
+            }
+            int head = customerHeads.get(customers[slot]);
+            customerPrev[slot] = 0;
+            customerNext[slot] = head;
+            if (head != 0) {
+                customerPrev[head - 1] = slot + 1;
+            }
+            customerHeads.put(customers[slot], slot + 1);
+        }
+
+        void unlinkCustomer(int slot) {
+            if (customers[slot] < 0) {
+                return;
+            }
+            int prev = customerPrev[slot];
+            int next = customerNext[slot];
+            if (prev != 0) {
+                customerNext[prev - 1] = next;
+            } else {
+                customerHeads.put(customers[slot], next);
+            }
+            if (next != 0) {
+                customerPrev[next - 1] = prev;
+            }
+        }
+
+        void linkStatus(int slot) {
+            if (statuses[slot] < 0) {
+                return;
+            }
+            int head = statusHeads[statuses[slot]];
+            statusPrev[slot] = 0;
+            statusNext[slot] = head;
+            if (head != 0) {
+                statusPrev[head - 1] = slot + 1;
+            }
+            statusHeads[statuses[slot]] = slot + 1;
+        }
+
+        void unlinkStatus(int slot) {
+            if (statuses[slot] < 0) {
+                return;
+            }
+            int prev = statusPrev[slot];
+            int next = statusNext[slot];
+            if (prev != 0) {
+                statusNext[prev - 1] = next;
+            } else {
+                statusHeads[statuses[slot]] = next;
+            }
+            if (next != 0) {
+                statusPrev[next - 1] = prev;
+            }
+        }
+    }
+}
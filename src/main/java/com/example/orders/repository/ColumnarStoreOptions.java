@@ -0,0 +1,41 @@
+package com.example.orders.repository;
+
+public class ColumnarStoreOptions {
+    // Keep order records in direct buffers, outside the Java heap and its -Xmx
+    private boolean offHeap = true;
+    private int maxChunkBytes = 16 * 1024 * 1024;
+    // Orders the columns and orderId index are sized for before they first grow
+    private int initialCapacity = 65536;
+
+    public ColumnarStoreOptions() {}
+
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    public int getMaxChunkBytes() {
+        return maxChunkBytes;
+    }
+
+    public int getInitialCapacity() {
+        return initialCapacity;
+    }
+
+    public void setOffHeap(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public void setMaxChunkBytes(int maxChunkBytes) {
+        if (maxChunkBytes <= 0) {
+            throw new IllegalArgumentException("maxChunkBytes must be positive: " + maxChunkBytes);
+        }
+        this.maxChunkBytes = maxChunkBytes;
+    }
+
+    public void setInitialCapacity(int initialCapacity) {
+        if (initialCapacity <= 0) {
+            throw new IllegalArgumentException("initialCapacity must be positive: " + initialCapacity);
+        }
+        this.initialCapacity = initialCapacity;
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.Order;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Keeps every order on the heap; the default store.
+ */
+public class InMemoryOrderStore implements OrderStore {
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+
+    @Override
+    public Order get(String orderId) {
+        return orders.get(orderId);
+    }
+
+    @Override
+    public boolean contains(String orderId) {
+        return orders.containsKey(orderId);
+    }
+
+    @Override
+    public Order compute(String orderId, BiFunction<String, Order, Order> remapping) {
+        return orders.compute(orderId, remapping);
+    }
+
+    @Override
+    public Collection<Order> values() {
+        return orders.values();
+    }
+
+    @Override
+    public long size() {
+        return orders.size();
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+
+import java.util.List;
+
+/**
+ * A store that answers the repository's customer and status lookups from its own data. The
+ * repository keeps no secondary indexes over such a store, and saves through {@link #put}.
+ */
+public interface IndexedOrderStore extends OrderStore {
+
+    /**
+     * Stores {@code order} under {@code orderId} without reading the order it replaces.
+     */
+    void put(String orderId, Order order);
+
+    List<Order> findByCustomerId(String customerId);
+
+    List<Order> findByStatus(OrderStatus status);
+
+    long countByStatus(OrderStatus status);
+}
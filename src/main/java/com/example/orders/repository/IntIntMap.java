@@ -0,0 +1,70 @@
+package com.example.orders.repository;
+
+/**
+ * Open-addressing map from non-negative int keys to int values, without boxing. A missing key
+ * reads as 0. Keys are never removed, since the dictionary codes it is keyed by are never
+ * reused either. Not thread-safe: each columnar store shard uses its own under its lock.
+ */
+final class IntIntMap {
+    // Key + 1, with 0 for an empty entry
+    private int[] keys;
+    private int[] values;
+    private int size;
+
+    IntIntMap(int capacity) {
+        int tableSize = Math.max(16, Integer.highestOneBit(Math.max(1, capacity) * 2 - 1) << 1);
+        keys = new int[tableSize];
+        values = new int[tableSize];
+    }
+
+    int get(int key) {
+        int mask = keys.length - 1;
+        for (int i = index(key, mask); ; i = (i + 1) & mask) {
+            if (keys[i] == key + 1) {
+                return values[i];
+            }
+            if (keys[i] == 0) {
+                return 0;
+            }
+        }
+    }
+
+    void put(int key, int value) {
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int i = index(key, mask);
+        while (keys[i] != 0 && keys[i] != key + 1) {
+            i = (i + 1) & mask;
+        }
+        if (keys[i] == 0) {
+            keys[i] = key + 1;
+            size++;
+        }
+        values[i] = value;
+    }
+
+    private void resize(int tableSize) {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[tableSize];
+        values = new int[tableSize];
+        int mask = tableSize - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != 0) {
+                int i = index(oldKeys[j] - 1, mask);
+                while (keys[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    private static int index(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+}
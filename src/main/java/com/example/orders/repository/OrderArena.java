@@ -0,0 +1,86 @@
+package com.example.orders.repository;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only byte storage for the variable-length records of a {@link ColumnarOrderStore}
+ * shard. Chunks are direct (off-heap) or heap buffers that double from 64 KB up to
+ * {@code maxChunkBytes}; an address packs the chunk index into the high 32 bits and the offset
+ * into the low 32. Not thread-safe: each shard uses its arena under its own lock.
+ */
+final class OrderArena {
+    private static final int FIRST_CHUNK_BYTES = 64 * 1024;
+
+    private final boolean direct;
+    private final int maxChunkBytes;
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer current;
+    // Bytes appended to the current chunk; positions are moved freely by reads and writes
+    private int used;
+    private long capacityBytes;
+
+    OrderArena(boolean direct, int maxChunkBytes) {
+        this.direct = direct;
+        this.maxChunkBytes = maxChunkBytes;
+    }
+
+    long append(byte[] data) {
+        if (current == null || current.capacity() - used < data.length) {
+            int size = current == null ? Math.min(FIRST_CHUNK_BYTES, maxChunkBytes)
+                    : (int) Math.min(maxChunkBytes, 2L * current.capacity());
+            size = Math.max(size, data.length);
+            current = direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+            chunks.add(current);
+            capacityBytes += size;
+            used = 0;
+        }
+        long address = ((long) (chunks.size() - 1) << 32) | used;
+        current.position(used);
+        current.put(data);
+        used += data.length;
+        return address;
+    }
+
+    /**
+     * Overwrites the start of an existing record; {@code data} must not be longer than it.
+     */
+    void write(long address, byte[] data) {
+        ByteBuffer chunk = chunk(address);
+        chunk.position((int) address);
+        chunk.put(data);
+    }
+
+    void read(long address, byte[] dst) {
+        ByteBuffer chunk = chunk(address);
+        chunk.position((int) address);
+        chunk.get(dst);
+    }
+
+    /**
+     * Whether the record at {@code address} starts with {@code key} as written by
+     * {@link OrderCodec#writeString}: an int length and then the bytes.
+     */
+    boolean startsWith(long address, byte[] key) {
+        ByteBuffer chunk = chunk(address);
+        int offset = (int) address;
+        if (chunk.getInt(offset) != key.length) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (chunk.get(offset + 4 + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    private ByteBuffer chunk(long address) {
+        return chunks.get((int) (address >>> 32));
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.orders.repository;
+
+import com.example.orders.events.EventType;
+import com.example.orders.model.HistoryNote;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderHistory;
+import com.example.orders.model.OrderItem;
+import com.example.orders.model.OrderStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compact binary form of an {@link Order}, shared by the write-ahead log and snapshots. The log
+ * also holds delta records: the status and the history entries an order gained since it was last
+ * logged, which replay and snapshots fold into the order's full record.
+ */
+final class OrderCodec {
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+    private static final HistoryNote[] NOTES = HistoryNote.values();
+    private static final EventType[] EVENT_TYPES = EventType.values();
+    // First int of a delta record; a full record starts with the orderId's length instead
+    private static final int DELTA_RECORD = -3;
+
+    private OrderCodec() {}
+
+    static byte[] encode(Order order) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try {
+            write(new DataOutputStream(bytes), order);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static Order decode(byte[] data, int offset, int length) throws IOException {
+        return read(new DataInputStream(new ByteArrayInputStream(data, offset, length)));
+    }
+
+    /**
+     * Encodes the order's status and its history entries from {@code fromEntry} on.
+     */
+    static byte[] encodeDelta(Order order, int fromEntry) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(DELTA_RECORD);
+            writeString(out, order.getOrderId());
+            out.writeByte(order.getStatus() == null ? -1 : order.getStatus().ordinal());
+            out.writeInt(fromEntry);
+            writeHistory(out, order.getHistory(), fromEntry);
+        } catch (IOException e) {
+            // ByteArrayOutputStream does not throw
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static boolean isDelta(byte[] record) {
+        return record.length >= 4 && ByteBuffer.wrap(record).getInt() == DELTA_RECORD;
+    }
+
+    static String orderIdOf(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        if (isDelta(record)) {
+            in.readInt();
+        }
+        return readString(in);
+    }
+
+    /**
+     * Applies a delta record to the order it was taken from. History entries the order already
+     * has are skipped, so replaying a delta twice changes nothing. Returns false if the order is
+     * missing entries that were logged before the delta; the delta's entries are appended anyway.
+     */
+    static boolean applyDelta(byte[] record, Order order) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        in.readInt();
+        readString(in);
+        byte status = in.readByte();
+        int fromEntry = in.readInt();
+        OrderHistory added = new OrderHistory();
+        readHistory(in, added);
+        order.setStatus(status < 0 ? null : STATUSES[status]);
+        OrderHistory history = order.getHistory();
+        int have = history.size();
+        for (int i = Math.max(0, have - fromEntry); i < added.size(); i++) {
+            history.addStored(added.getNote(i), added.getEventType(i), added.getTimestampMillis(i),
+                    added.getPayload(i), added.getText(i));
+        }
+        return have >= fromEntry;
+    }
+
+    static void write(DataOutput out, Order order) throws IOException {
+        writeString(out, order.getOrderId());
+        writeString(out, order.getCustomerId());
+        List<OrderItem> items = order.getItems();
+        out.writeInt(items == null ? -1 : items.size());
+        if (items != null) {
+            for (OrderItem item : items) {
+                writeString(out, item.getItemId());
+                out.writeInt(item.getQty());
+            }
+        }
+        writeDecimal(out, order.getTotalAmount());
+        out.writeByte(order.getStatus() == null ? -1 : order.getStatus().ordinal());
+        writeHistory(out, order.getHistory());
+    }
+
+    static Order read(DataInput in) throws IOException {
+        String orderId = readString(in);
+        String customerId = readString(in);
+        int itemCount = in.readInt();
+        List<OrderItem> items = null;
+        if (itemCount >= 0) {
+            items = new ArrayList<>(itemCount);
+            for (int i = 0; i < itemCount; i++) {
+                items.add(new OrderItem(readString(in), in.readInt()));
+            }
+        }
+        BigDecimal total = readDecimal(in);
+        Order order = new Order(orderId, customerId, items, total);
+        byte status = in.readByte();
+        order.setStatus(status < 0 ? null : STATUSES[status]);
+        readHistory(in, order.getHistory());
+        order.setLoggedHistory(order.getHistory().size());
+        return order;
+    }
+
+    static void writeHistory(DataOutput out, OrderHistory history) throws IOException {
+        writeHistory(out, history, 0);
+    }
+
+    private static void writeHistory(DataOutput out, OrderHistory history, int fromEntry) throws IOException {
+        int size = history.size();
+        out.writeInt(size - fromEntry);
+        for (int i = fromEntry; i < size; i++) {
+            HistoryNote note = history.getNote(i);
+            EventType type = history.getEventType(i);
+            out.writeByte(note.ordinal());
+            out.writeByte(type == null ? -1 : type.ordinal());
+            out.writeLong(history.getTimestampMillis(i));
+            if (note.getPayload() == HistoryNote.Payload.TEXT) {
+                writeString(out, history.getText(i));
+            } else if (note.getPayload() != HistoryNote.Payload.NONE) {
+                out.writeLong(history.getPayload(i));
+            }
+        }
+    }
+
+    static void readHistory(DataInput in, OrderHistory history) throws IOException {
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            HistoryNote note = NOTES[in.readByte()];
+            byte type = in.readByte();
+            long timestamp = in.readLong();
+            String text = null;
+            long payload = 0;
+            if (note.getPayload() == HistoryNote.Payload.TEXT) {
+                text = readString(in);
+            } else if (note.getPayload() != HistoryNote.Payload.NONE) {
+                payload = in.readLong();
+            }
+            history.addStored(note, type < 0 ? null : EVENT_TYPES[type], timestamp, payload, text);
+        }
+    }
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] utf8 = new byte[length];
+        in.readFully(utf8);
+        return new String(utf8, StandardCharsets.UTF_8);
+    }
+
+    static void writeDecimal(DataOutput out, BigDecimal value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] unscaled = value.unscaledValue().toByteArray();
+        out.writeInt(unscaled.length);
+        out.write(unscaled);
+        out.writeInt(value.scale());
+    }
+
+    static BigDecimal readDecimal(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] unscaled = new byte[length];
+        in.readFully(unscaled);
+        return new BigDecimal(new BigInteger(unscaled), in.readInt());
+    }
+}
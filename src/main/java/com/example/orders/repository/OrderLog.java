@@ -0,0 +1,316 @@
+package com.example.orders.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, segmented log of encoded orders. Appends are queued and written by a single
+ * writer thread that groups everything pending into one write and one fsync.
+ *
+ * <p>Each record is {@code [int length][int crc32][payload]}. A record cut short by a crash is
+ * detected on replay by its length or checksum and ignored.
+ */
+class OrderLog implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(OrderLog.class);
+
+    static final String SEGMENT_PREFIX = "orders-";
+    static final String SEGMENT_SUFFIX = ".log";
+
+    interface RecordHandler {
+        void onRecord(byte[] payload) throws IOException;
+    }
+
+    private final Path dir;
+    private final long commitIntervalNanos;
+    private final int maxBatchBytes;
+
+    // Guards the queue and commit bookkeeping
+    private final Object lock = new Object();
+    private List<ByteBuffer> pending = new ArrayList<>();
+    private int pendingBytes;
+    private long appended;
+    private long committed;
+    private long fsyncs;
+    private IOException failure;
+    private boolean closed;
+
+    // Guards the active segment; held by the writer for each group commit and by roll()
+    private final Object channelLock = new Object();
+    private FileChannel active;
+    private long activeSegment;
+
+    private final Thread writer;
+
+    OrderLog(Path dir, long firstSegment, PersistenceOptions options) throws IOException {
+        this.dir = dir;
+        this.commitIntervalNanos = options.getCommitIntervalMillis() * 1_000_000L;
+        this.maxBatchBytes = options.getMaxBatchBytes();
+        this.activeSegment = firstSegment;
+        this.active = openSegment(firstSegment);
+        this.writer = new Thread(this::writeLoop, "order-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queues a record and returns its ticket; pass the ticket to {@link #awaitCommitted} to wait
+     * until the record has been fsynced.
+     */
+    long append(byte[] payload) throws IOException {
+        ByteBuffer record = frame(payload);
+        synchronized (lock) {
+            if (failure != null) {
+                throw new IOException("Order log is unusable after an earlier write failure", failure);
+            }
+            if (closed) {
+                throw new IOException("Order log is closed");
+            }
+            pending.add(record);
+            pendingBytes += record.remaining();
+            lock.notifyAll();
+            return ++appended;
+        }
+    }
+
+    void awaitCommitted(long ticket) throws IOException {
+        boolean interrupted = false;
+        synchronized (lock) {
+            while (committed < ticket && failure == null) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (committed < ticket) {
+                throw new IOException("Order log write failed", failure);
+            }
+        }
+    }
+
+    /**
+     * Waits until every record appended so far is durable.
+     */
+    void flush() throws IOException {
+        long ticket;
+        synchronized (lock) {
+            ticket = appended;
+        }
+        awaitCommitted(ticket);
+    }
+
+    /**
+     * Closes the active segment and starts a new one. Returns the new segment number; every
+     * record committed before the call lives in a lower-numbered segment.
+     */
+    long roll() throws IOException {
+        flush();
+        synchronized (channelLock) {
+            active.force(false);
+            active.close();
+            activeSegment++;
+            active = openSegment(activeSegment);
+            return activeSegment;
+        }
+    }
+
+    long getAppended() {
+        synchronized (lock) {
+            return appended;
+        }
+    }
+
+    long getFsyncs() {
+        synchronized (lock) {
+            return fsyncs;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            lock.notifyAll();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (channelLock) {
+            active.close();
+        }
+        synchronized (lock) {
+            if (failure != null) {
+                throw new IOException("Order log write failed", failure);
+            }
+        }
+    }
+
+    private void writeLoop() {
+        while (true) {
+            List<ByteBuffer> batch;
+            long upTo;
+            synchronized (lock) {
+                try {
+                    while (pending.isEmpty() && !closed) {
+                        lock.wait();
+                    }
+                    // Give concurrent writers a moment to join this commit
+                    long deadline = System.nanoTime() + commitIntervalNanos;
+                    long remaining = commitIntervalNanos;
+                    while (!closed && pendingBytes < maxBatchBytes && remaining > 0) {
+                        lock.wait(remaining / 1_000_000L, (int) (remaining % 1_000_000L));
+                        remaining = deadline - System.nanoTime();
+                    }
+                } catch (InterruptedException ie) {
+                    closed = true;
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+                pendingBytes = 0;
+                upTo = appended;
+            }
+            try {
+                synchronized (channelLock) {
+                    ByteBuffer[] buffers = batch.toArray(new ByteBuffer[0]);
+                    long total = 0;
+                    for (ByteBuffer b : buffers) {
+                        total += b.remaining();
+                    }
+                    while (total > 0) {
+                        total -= active.write(buffers);
+                    }
+                    active.force(false);
+                }
+            } catch (IOException ex) {
+                log.error("Order log write failed, persistence stopped: {}", ex.getMessage(), ex);
+                synchronized (lock) {
+                    failure = ex;
+                    lock.notifyAll();
+                }
+                return;
+            }
+            synchronized (lock) {
+                committed = upTo;
+                fsyncs++;
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private FileChannel openSegment(long segment) throws IOException {
+        return FileChannel.open(segmentPath(dir, segment),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    static ByteBuffer frame(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload, 0, payload.length);
+        ByteBuffer record = ByteBuffer.allocate(8 + payload.length);
+        record.putInt(payload.length);
+        record.putInt((int) crc.getValue());
+        record.put(payload);
+        record.flip();
+        return record;
+    }
+
+    /**
+     * Reads framed records until end of stream or the first torn record. Returns false if the
+     * stream ended in a torn or corrupt record.
+     */
+    static boolean readFrames(InputStream input, RecordHandler handler) throws IOException {
+        DataInputStream in = new DataInputStream(input);
+        CRC32 crc = new CRC32();
+        while (true) {
+            int length;
+            try {
+                length = in.readInt();
+            } catch (EOFException eof) {
+                return true;
+            }
+            try {
+                int expected = in.readInt();
+                if (length < 0) {
+                    return false;
+                }
+                byte[] payload = new byte[length];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload, 0, length);
+                if ((int) crc.getValue() != expected) {
+                    return false;
+                }
+                handler.onRecord(payload);
+            } catch (EOFException eof) {
+                return false;
+            }
+        }
+    }
+
+    static void replay(Path dir, long fromSegment, RecordHandler handler) throws IOException {
+        for (long segment : segments(dir)) {
+            if (segment >= fromSegment) {
+                replaySegment(dir, segment, handler);
+            }
+        }
+    }
+
+    static void replaySegment(Path dir, long segment, RecordHandler handler) throws IOException {
+        Path file = segmentPath(dir, segment);
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            if (!readFrames(in, handler)) {
+                log.warn("Ignoring torn record at the end of {}", file.getFileName());
+            }
+        }
+    }
+
+    static List<Long> segments(Path dir) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                result.add(Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    static void deleteSegmentsBefore(Path dir, long segment) throws IOException {
+        for (long s : segments(dir)) {
+            if (s < segment) {
+                Files.deleteIfExists(segmentPath(dir, s));
+            }
+        }
+    }
+
+    static Path segmentPath(Path dir, long segment) {
+        return dir.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+}
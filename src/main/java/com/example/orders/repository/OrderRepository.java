@@ -1,31 +1,250 @@
 package com.example.orders.repository;
 
 import com.example.orders.model.Order;
-import org.springframework.stereotype.Repository;
+import com.example.orders.model.OrderStatus;
 
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
 
-@Repository
-public class OrderRepository {
-    private final Map<String, Order> store = new ConcurrentHashMap<>();
+// Registered as a bean by RepositoryConfiguration, which picks the backend and store from configuration
+public class OrderRepository implements Closeable {
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private final OrderStore store;
+    // Set when the store answers customer and status lookups itself; the indexes below then stay empty
+    private final IndexedOrderStore indexedStore;
+
+    // Secondary indexes, updated inside store.compute so each order's entries change atomically.
+    // They reflect each order as of its last save, not in-place changes made since.
+    private final Map<String, Indexed> indexed = new ConcurrentHashMap<>();
+    private final Map<String, Set<String>> byCustomer = new ConcurrentHashMap<>();
+    private final List<Set<String>> byStatus = new ArrayList<>(STATUSES.length);
+    private final AtomicLongArray statusCounts = new AtomicLongArray(STATUSES.length);
+
+    public OrderRepository() {
+        this(new InMemoryOrderStore());
+    }
+
+    public OrderRepository(OrderStore store) {
+        this.store = store;
+        this.indexedStore = store instanceof IndexedOrderStore ? (IndexedOrderStore) store : null;
+        for (int i = 0; i < STATUSES.length; i++) {
+            byStatus.add(ConcurrentHashMap.newKeySet());
+        }
+    }
 
     public Optional<Order> findById(String orderId) {
         return Optional.ofNullable(store.get(orderId));
     }
 
     public boolean existsById(String orderId) {
-        return store.containsKey(orderId);
+        return store.contains(orderId);
     }
 
     public Order save(Order order) {
-        store.put(order.getOrderId(), order);
+        put(order);
         return order;
     }
 
+    /**
+     * Saves each order as {@link #save} would. Backends with a slower commit path override
+     * this to commit the whole batch at once.
+     */
+    public void saveAll(Collection<Order> orders) {
+        for (Order order : orders) {
+            put(order);
+        }
+    }
+
+    /**
+     * Applies {@code change} to the stored order (null if there is none) and saves the order it
+     * returns, as one atomic step for that order: concurrent updates of one order run one after
+     * another, each seeing the result of the last, while other orders are updated in parallel.
+     * {@code change} must not read or save other orders. Returning null leaves the stored order
+     * as it was. Returns the saved order, or null.
+     */
+    public Order update(String orderId, UnaryOperator<Order> change) {
+        return compute(orderId, (id, order) -> change.apply(order));
+    }
+
+    /**
+     * Runs {@link #update} for each of {@code orderIds}, passing the id to {@code change}.
+     * Backends with a slower commit path override this to commit the whole batch at once.
+     */
+    public void updateAll(Collection<String> orderIds, BiFunction<String, Order, Order> change) {
+        for (String orderId : orderIds) {
+            compute(orderId, change);
+        }
+    }
+
+    /**
+     * Looks up several orders at once. The result maps each id that was found to its order,
+     * in the iteration order of {@code orderIds}.
+     */
+    public Map<String, Order> findAllById(Collection<String> orderIds) {
+        Map<String, Order> found = new LinkedHashMap<>(orderIds.size() * 2);
+        for (String id : orderIds) {
+            Order order = store.get(id);
+            if (order != null) {
+                found.put(id, order);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Stores the order unless one with the same id is already stored. Returns the existing
+     * order, or null if this one was added.
+     */
+    public Order saveIfAbsent(Order order) {
+        Order[] existing = new Order[1];
+        store.compute(order.getOrderId(), (id, previous) -> {
+            if (previous != null) {
+                existing[0] = previous;
+                return previous;
+            }
+            reindex(id, order);
+            return order;
+        });
+        return existing[0];
+    }
+
     public Collection<Order> findAll() {
         return store.values();
     }
+
+    public long count() {
+        return store.size();
+    }
+
+    public OrderStore getStore() {
+        return store;
+    }
+
+    /**
+     * Releases the store; a persistent repository also flushes its log first.
+     */
+    @Override
+    public void close() throws IOException {
+        store.close();
+    }
+
+    public List<Order> findByCustomerId(String customerId) {
+        if (indexedStore != null) {
+            return indexedStore.findByCustomerId(customerId);
+        }
+        Set<String> ids = byCustomer.get(customerId);
+        return ids == null ? Collections.emptyList() : load(ids);
+    }
+
+    public List<Order> findByStatus(OrderStatus status) {
+        if (indexedStore != null) {
+            return indexedStore.findByStatus(status);
+        }
+        return load(byStatus.get(status.ordinal()));
+    }
+
+    public long countByStatus(OrderStatus status) {
+        if (indexedStore != null) {
+            return indexedStore.countByStatus(status);
+        }
+        return statusCounts.get(status.ordinal());
+    }
+
+    private void put(Order order) {
+        if (indexedStore != null) {
+            indexedStore.put(order.getOrderId(), order);
+            return;
+        }
+        store.compute(order.getOrderId(), (id, previous) -> {
+            reindex(id, order);
+            return order;
+        });
+    }
+
+    private Order compute(String orderId, BiFunction<String, Order, Order> change) {
+        Order[] saved = new Order[1];
+        store.compute(orderId, (id, previous) -> {
+            Order updated = change.apply(id, previous);
+            if (updated == null) {
+                return previous;
+            }
+            reindex(id, updated);
+            saved[0] = updated;
+            return updated;
+        });
+        return saved[0];
+    }
+
+    private List<Order> load(Set<String> ids) {
+        List<Order> orders = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Order order = store.get(id);
+            if (order != null) {
+                orders.add(order);
+            }
+        }
+        return orders;
+    }
+
+    private void reindex(String id, Order order) {
+        if (indexedStore != null) {
+            return;
+        }
+        Indexed before = indexed.get(id);
+        OrderStatus status = order.getStatus();
+        String customerId = order.getCustomerId();
+        if (before != null && before.status == status && Objects.equals(before.customerId, customerId)) {
+            return;
+        }
+        if (before == null || before.status != status) {
+            if (before != null && before.status != null) {
+                byStatus.get(before.status.ordinal()).remove(id);
+                statusCounts.decrementAndGet(before.status.ordinal());
+            }
+            if (status != null) {
+                byStatus.get(status.ordinal()).add(id);
+                statusCounts.incrementAndGet(status.ordinal());
+            }
+        }
+        if (before == null || !Objects.equals(before.customerId, customerId)) {
+            if (before != null && before.customerId != null) {
+                byCustomer.computeIfPresent(before.customerId, (c, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+            if (customerId != null) {
+                byCustomer.compute(customerId, (c, ids) -> {
+                    Set<String> result = ids == null ? ConcurrentHashMap.newKeySet() : ids;
+                    result.add(id);
+                    return result;
+                });
+            }
+        }
+        indexed.put(id, new Indexed(status, customerId));
+    }
+
+    private static final class Indexed {
+        final OrderStatus status;
+        final String customerId;
+
+        Indexed(OrderStatus status, String customerId) {
+            this.status = status;
+            this.customerId = customerId;
+        }
+    }
 }
@@ -0,0 +1,182 @@
+package com.example.orders.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only segment files holding encoded orders that were spilled from memory. Each record
+ * is {@code [int length][payload]} and is addressed by a {@link Location}. Records are never
+ * changed; a superseded one is {@link #release released}, and a closed segment is deleted once
+ * none of its records are live. Nothing is fsynced, since the files only outlive the process
+ * by accident and are cleared on open.
+ */
+class OrderSegments implements AutoCloseable {
+    static final String SEGMENT_PREFIX = "spill-";
+    static final String SEGMENT_SUFFIX = ".seg";
+
+    static final class Location {
+        final int segment;
+        final int offset;
+        final int length;
+
+        Location(int segment, int offset, int length) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+        }
+    }
+
+    static final class Segment {
+        final int id;
+        final Path file;
+        final FileChannel channel;
+        // Bytes written and bytes of records still live, headers included
+        volatile long size;
+        final AtomicLong live = new AtomicLong();
+        volatile boolean sealed;
+        final AtomicBoolean deleted = new AtomicBoolean();
+
+        Segment(int id, Path file, FileChannel channel) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+        }
+    }
+
+    private final Path dir;
+    private final long segmentBytes;
+    private final Map<Integer, Segment> segments = new ConcurrentHashMap<>();
+    private final AtomicLong liveBytes = new AtomicLong();
+    private Segment active;
+
+    OrderSegments(Path dir, long segmentBytes) throws IOException {
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        Files.createDirectories(dir);
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : leftovers) {
+                Files.delete(file);
+            }
+        }
+        this.active = open(0);
+    }
+
+    synchronized Location append(byte[] payload) throws IOException {
+        int recordBytes = 4 + payload.length;
+        if (active.size > 0 && active.size + recordBytes > segmentBytes) {
+            Segment full = active;
+            active = open(full.id + 1);
+            full.sealed = true;
+            if (full.live.get() == 0) {
+                delete(full);
+            }
+        }
+        ByteBuffer record = ByteBuffer.allocate(recordBytes);
+        record.putInt(payload.length).put(payload).flip();
+        long position = active.size;
+        while (record.hasRemaining()) {
+            position += active.channel.write(record, position);
+        }
+        Location location = new Location(active.id, (int) active.size + 4, payload.length);
+        active.size = position;
+        active.live.addAndGet(recordBytes);
+        liveBytes.addAndGet(recordBytes);
+        return location;
+    }
+
+    byte[] read(Location location) throws IOException {
+        Segment segment = segments.get(location.segment);
+        if (segment == null) {
+            throw new IOException("Spill segment " + location.segment + " no longer exists");
+        }
+        ByteBuffer payload = ByteBuffer.allocate(location.length);
+        long position = location.offset;
+        while (payload.hasRemaining()) {
+            int n = segment.channel.read(payload, position);
+            if (n < 0) {
+                throw new IOException("Spill segment " + segment.file + " ends inside a record");
+            }
+            position += n;
+        }
+        return payload.array();
+    }
+
+    /**
+     * Marks a record as superseded. Callers must not read it afterwards.
+     */
+    void release(Location location) throws IOException {
+        Segment segment = segments.get(location.segment);
+        if (segment == null) {
+            return;
+        }
+        liveBytes.addAndGet(-(4 + location.length));
+        if (segment.live.addAndGet(-(4 + location.length)) == 0 && segment.sealed) {
+            delete(segment);
+        }
+    }
+
+    /**
+     * Closed segments whose live records make up less than {@code threshold} of their size.
+     */
+    List<Integer> sparse(double threshold) {
+        List<Integer> ids = new ArrayList<>();
+        for (Segment segment : segments.values()) {
+            if (segment.sealed && segment.live.get() < threshold * segment.size) {
+                ids.add(segment.id);
+            }
+        }
+        return ids;
+    }
+
+    long getLiveBytes() {
+        return liveBytes.get();
+    }
+
+    long getFileBytes() {
+        long bytes = 0;
+        for (Segment segment : segments.values()) {
+            bytes += segment.size;
+        }
+        return bytes;
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            delete(segment);
+        }
+    }
+
+    private Segment open(int id) throws IOException {
+        Path file = dir.resolve(SEGMENT_PREFIX + id + SEGMENT_SUFFIX);
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        Segment segment = new Segment(id, file, channel);
+        segments.put(id, segment);
+        return segment;
+    }
+
+    private void delete(Segment segment) throws IOException {
+        if (!segment.deleted.compareAndSet(false, true)) {
+            return;
+        }
+        segments.remove(segment.id);
+        segment.channel.close();
+        Files.deleteIfExists(segment.file);
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.orders.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Snapshot files: {@code snapshot-<segment>.bin} holds the latest encoded form of every order
+ * written to log segments below {@code segment}, so recovery only replays from that segment on.
+ */
+final class OrderSnapshots {
+    private static final Logger log = LoggerFactory.getLogger(OrderSnapshots.class);
+
+    static final String PREFIX = "snapshot-";
+    static final String SUFFIX = ".bin";
+    private static final int MAGIC = 0x4F534E50; // "OSNP"
+    private static final int VERSION = 1;
+
+    private OrderSnapshots() {}
+
+    /**
+     * Writes a snapshot covering segments below {@code segment}. The file is fsynced and then
+     * atomically renamed into place, so a crash never leaves a half-written snapshot visible.
+     */
+    static void write(Path dir, long segment, Collection<byte[]> records) throws IOException {
+        Path target = path(dir, segment);
+        Path tmp = dir.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            OutputStream buffered = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            DataOutputStream out = new DataOutputStream(buffered);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(segment);
+            out.writeInt(records.size());
+            for (byte[] record : records) {
+                ByteBuffer framed = OrderLog.frame(record);
+                out.write(framed.array(), 0, framed.limit());
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Loads the newest readable snapshot, passing each record to the handler, and returns the
+     * log segment replay should start from (0 when there is no snapshot).
+     */
+    static long loadLatest(Path dir, OrderLog.RecordHandler handler) throws IOException {
+        List<Long> segments = segments(dir);
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            long segment = segments.get(i);
+            Path file = path(dir, segment);
+            List<byte[]> records = new ArrayList<>();
+            if (read(file, segment, records)) {
+                for (byte[] record : records) {
+                    handler.onRecord(record);
+                }
+                return segment;
+            }
+            log.warn("Skipping unreadable snapshot {}", file.getFileName());
+        }
+        return 0;
+    }
+
+    static void deleteBefore(Path dir, long segment) throws IOException {
+        for (long s : segments(dir)) {
+            if (s < segment) {
+                Files.deleteIfExists(path(dir, s));
+            }
+        }
+    }
+
+    static List<Long> segments(Path dir) throws IOException {
+        List<Long> result = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                result.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static boolean read(Path file, long segment, List<byte[]> records) throws IOException {
+        try (InputStream raw = new BufferedInputStream(Files.newInputStream(file), 1 << 16)) {
+            DataInputStream in = new DataInputStream(raw);
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != segment) {
+                return false;
+            }
+            int count = in.readInt();
+            return OrderLog.readFrames(in, records::add) && records.size() == count;
+        } catch (EOFException eof) {
+            return false;
+        }
+    }
+
+    private static Path path(Path dir, long segment) {
+        return dir.resolve(String.format("%s%020d%s", PREFIX, segment, SUFFIX));
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.Order;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.function.BiFunction;
+
+/**
+ * Where {@link OrderRepository} keeps its orders, keyed by orderId. The repository maintains
+ * its secondary indexes on top, inside {@link #compute}, so a store only needs per-id atomicity.
+ */
+public interface OrderStore extends Closeable {
+
+    /**
+     * Returns the stored order, or null. Stores that do not keep every order in memory may
+     * return a different instance for the same order over time.
+     */
+    Order get(String orderId);
+
+    boolean contains(String orderId);
+
+    /**
+     * Stores the result of {@code remapping} applied to the current order (null if there is
+     * none) while excluding other updates of the same id. The result is taken as the order's
+     * new state even when it is the instance passed in, since orders are changed in place.
+     */
+    Order compute(String orderId, BiFunction<String, Order, Order> remapping);
+
+    /**
+     * Every stored order; the view is weakly consistent with concurrent updates.
+     */
+    Collection<Order> values();
+
+    long size();
+
+    @Override
+    default void close() throws IOException {
+        // Nothing to release by default
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.orders.repository;
+
+public class PersistenceOptions {
+    // How long the log writer waits for more records before an fsync, trading latency for fewer syncs
+    private long commitIntervalMillis = 2;
+    // A group commit is written early once this many bytes are pending
+    private int maxBatchBytes = 1 << 20;
+    // Wait for the fsync covering each save instead of acknowledging it once it is queued
+    private boolean syncOnSave = false;
+    // Snapshot cadence; 0 disables periodic snapshots
+    private long snapshotIntervalSeconds = 60;
+
+    public PersistenceOptions() {}
+
+    public long getCommitIntervalMillis() {
+        return commitIntervalMillis;
+    }
+
+    public int getMaxBatchBytes() {
+        return maxBatchBytes;
+    }
+
+    public boolean isSyncOnSave() {
+        return syncOnSave;
+    }
+
+    public long getSnapshotIntervalSeconds() {
+        return snapshotIntervalSeconds;
+    }
+
+    public void setCommitIntervalMillis(long commitIntervalMillis) {
+        if (commitIntervalMillis < 0) {
+            throw new IllegalArgumentException("commitIntervalMillis must not be negative: " + commitIntervalMillis);
+        }
+        this.commitIntervalMillis = commitIntervalMillis;
+    }
+
+    public void setMaxBatchBytes(int maxBatchBytes) {
+        if (maxBatchBytes <= 0) {
+            throw new IllegalArgumentException("maxBatchBytes must be positive: " + maxBatchBytes);
+        }
+        this.maxBatchBytes = maxBatchBytes;
+    }
+
+    public void setSyncOnSave(boolean syncOnSave) {
+        this.syncOnSave = syncOnSave;
+    }
+
+    public void setSnapshotIntervalSeconds(long snapshotIntervalSeconds) {
+        if (snapshotIntervalSeconds < 0) {
+            throw new IllegalArgumentException("snapshotIntervalSeconds must not be negative: " + snapshotIntervalSeconds);
+        }
+        this.snapshotIntervalSeconds = snapshotIntervalSeconds;
+    }
+}
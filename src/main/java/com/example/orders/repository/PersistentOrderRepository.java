@@ -0,0 +1,306 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.Order;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * {@link OrderRepository} backed by a write-ahead log and periodic snapshots in a local
+ * directory. Every save is appended to the log: an order's first save logs the whole order, later
+ * saves only its status and the history entries added since (see {@link Order#getLoggedHistory}),
+ * so an event costs the same to log however long the order's history already is. Snapshots are
+ * built by folding closed log segments into full records, so they never read orders that
+ * processing threads are still mutating. On open the newest snapshot is loaded and only the log
+ * tail after it is replayed.
+ */
+public class PersistentOrderRepository extends OrderRepository implements AutoCloseable, Flushable {
+    private static final Logger log = LoggerFactory.getLogger(PersistentOrderRepository.class);
+
+    private final Path dir;
+    private final PersistenceOptions options;
+    private final OrderLog orderLog;
+    private final ScheduledExecutorService snapshotter;
+    private final Object snapshotLock = new Object();
+    private long snapshotSegment;
+    private long appendedAtLastSnapshot;
+
+    private PersistentOrderRepository(Path dir, PersistenceOptions options, OrderStore store, long snapshotSegment,
+                                      long nextSegment) throws IOException {
+        super(store);
+        this.dir = dir;
+        this.options = options;
+        this.snapshotSegment = snapshotSegment;
+        this.orderLog = new OrderLog(dir, nextSegment, options);
+        if (options.getSnapshotIntervalSeconds() > 0) {
+            this.snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "order-snapshotter");
+                t.setDaemon(true);
+                return t;
+            });
+            long interval = options.getSnapshotIntervalSeconds();
+            snapshotter.scheduleWithFixedDelay(this::snapshotQuietly, interval, interval, TimeUnit.SECONDS);
+        } else {
+            this.snapshotter = null;
+        }
+    }
+
+    /**
+     * Opens (or creates) the store in {@code dir}, restoring the latest snapshot and replaying
+     * the log written after it.
+     */
+    public static PersistentOrderRepository open(Path dir, PersistenceOptions options) throws IOException {
+        return open(dir, options, new InMemoryOrderStore());
+    }
+
+    /**
+     * Opens the store in {@code dir} as above, keeping the recovered orders in {@code store}.
+     */
+    public static PersistentOrderRepository open(Path dir, PersistenceOptions options, OrderStore store)
+            throws IOException {
+        Files.createDirectories(dir);
+        long start = System.nanoTime();
+        Map<String, Order> recovered = new LinkedHashMap<>();
+        long fromSegment = OrderSnapshots.loadLatest(dir, bytes -> {
+            Order order = OrderCodec.decode(bytes, 0, bytes.length);
+            recovered.put(order.getOrderId(), order);
+        });
+        int fromSnapshot = recovered.size();
+        long[] replayed = new long[1];
+        OrderLog.replay(dir, fromSegment, bytes -> {
+            if (OrderCodec.isDelta(bytes)) {
+                applyDelta(bytes, recovered.get(OrderCodec.orderIdOf(bytes)));
+            } else {
+                Order order = OrderCodec.decode(bytes, 0, bytes.length);
+                recovered.put(order.getOrderId(), order);
+            }
+            replayed[0]++;
+        });
+        List<Long> segments = OrderLog.segments(dir);
+        long nextSegment = Math.max(fromSegment, segments.isEmpty() ? 0 : segments.get(segments.size() - 1) + 1);
+
+        PersistentOrderRepository repository = new PersistentOrderRepository(dir, options, store, fromSegment,
+                nextSegment);
+        for (Order order : recovered.values()) {
+            repository.restore(order);
+        }
+        log.info("Recovered {} orders from {} ({} from snapshot, {} log records replayed) in {} ms",
+                recovered.size(), dir, fromSnapshot, replayed[0], (System.nanoTime() - start) / 1_000_000);
+        return repository;
+    }
+
+    @Override
+    public Order save(Order order) {
+        super.save(order);
+        persist(order);
+        return order;
+    }
+
+    /**
+     * Appends every order to the log and, with {@code syncOnSave}, waits for a single commit
+     * covering the whole batch.
+     */
+    @Override
+    public void saveAll(Collection<Order> orders) {
+        super.saveAll(orders);
+        long ticket = 0;
+        try {
+            for (Order order : orders) {
+                ticket = orderLog.append(record(order));
+            }
+            if (options.isSyncOnSave() && ticket > 0) {
+                orderLog.awaitCommitted(ticket);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to persist " + orders.size() + " orders", e);
+        }
+    }
+
+    /**
+     * Logs the update inside the order's atomic step, so the log records one order's updates in
+     * the order they were applied, and with {@code syncOnSave} waits for its commit afterwards.
+     */
+    @Override
+    public Order update(String orderId, UnaryOperator<Order> change) {
+        long[] ticket = new long[1];
+        Order saved = super.update(orderId, order -> {
+            Order updated = change.apply(order);
+            if (updated != null) {
+                ticket[0] = append(updated);
+            }
+            return updated;
+        });
+        awaitCommitted(ticket[0]);
+        return saved;
+    }
+
+    /**
+     * Logs each update as {@link #update} does, then waits for a single commit covering the batch.
+     */
+    @Override
+    public void updateAll(Collection<String> orderIds, BiFunction<String, Order, Order> change) {
+        long[] ticket = new long[1];
+        super.updateAll(orderIds, (orderId, order) -> {
+            Order updated = change.apply(orderId, order);
+            if (updated != null) {
+                ticket[0] = append(updated);
+            }
+            return updated;
+        });
+        awaitCommitted(ticket[0]);
+    }
+
+    @Override
+    public Order saveIfAbsent(Order order) {
+        Order existing = super.saveIfAbsent(order);
+        if (existing == null) {
+            persist(order);
+        }
+        return existing;
+    }
+
+    /**
+     * Blocks until every save made so far has been fsynced.
+     */
+    @Override
+    public void flush() throws IOException {
+        orderLog.flush();
+    }
+
+    /**
+     * Compacts the previous snapshot and all closed log segments into a new snapshot, then
+     * deletes the files it supersedes.
+     */
+    public void snapshot() throws IOException {
+        synchronized (snapshotLock) {
+            long appended = orderLog.getAppended();
+            if (appended == appendedAtLastSnapshot) {
+                return;
+            }
+            long start = System.nanoTime();
+            long newSegment = orderLog.roll();
+            // Full records stay encoded; an order is only decoded once a delta has to be folded in
+            Map<String, Object> latest = new LinkedHashMap<>();
+            OrderLog.RecordHandler fold = bytes -> {
+                String orderId = OrderCodec.orderIdOf(bytes);
+                if (!OrderCodec.isDelta(bytes)) {
+                    latest.put(orderId, bytes);
+                    return;
+                }
+                Object base = latest.get(orderId);
+                Order order = base instanceof byte[] ? OrderCodec.decode((byte[]) base, 0, ((byte[]) base).length)
+                        : (Order) base;
+                applyDelta(bytes, order);
+                if (order != null) {
+                    latest.put(orderId, order);
+                }
+            };
+            OrderSnapshots.loadLatest(dir, fold);
+            for (long segment : OrderLog.segments(dir)) {
+                if (segment >= snapshotSegment && segment < newSegment) {
+                    OrderLog.replaySegment(dir, segment, fold);
+                }
+            }
+            List<byte[]> records = new ArrayList<>(latest.size());
+            for (Object value : latest.values()) {
+                records.add(value instanceof byte[] ? (byte[]) value : OrderCodec.encode((Order) value));
+            }
+            OrderSnapshots.write(dir, newSegment, records);
+            OrderSnapshots.deleteBefore(dir, newSegment);
+            OrderLog.deleteSegmentsBefore(dir, newSegment);
+            snapshotSegment = newSegment;
+            appendedAtLastSnapshot = appended;
+            log.info("Wrote snapshot of {} orders at segment {} in {} ms",
+                    latest.size(), newSegment, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    public long getLogRecords() {
+        return orderLog.getAppended();
+    }
+
+    public long getLogFsyncs() {
+        return orderLog.getFsyncs();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+        try {
+            orderLog.flush();
+            orderLog.close();
+        } finally {
+            super.close();
+        }
+    }
+
+    private void persist(Order order) {
+        awaitCommitted(append(order));
+    }
+
+    private long append(Order order) {
+        try {
+            return orderLog.append(record(order));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to persist order " + order.getOrderId(), e);
+        }
+    }
+
+    private void awaitCommitted(long ticket) {
+        if (!options.isSyncOnSave() || ticket <= 0) {
+            return;
+        }
+        try {
+            orderLog.awaitCommitted(ticket);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to commit the order log", e);
+        }
+    }
+
+    // Logs the whole order the first time, and only what changed on later saves
+    private static byte[] record(Order order) {
+        int logged = order.getLoggedHistory();
+        int size = order.getHistory().size();
+        byte[] record = logged < 0 || logged > size ? OrderCodec.encode(order) : OrderCodec.encodeDelta(order, logged);
+        order.setLoggedHistory(size);
+        return record;
+    }
+
+    private static void applyDelta(byte[] delta, Order order) throws IOException {
+        if (order == null) {
+            log.warn("Ignoring logged change to order {}, which has no earlier record", OrderCodec.orderIdOf(delta));
+        } else if (!OrderCodec.applyDelta(delta, order)) {
+            log.warn("Order {} is missing history entries logged before a later change", order.getOrderId());
+        }
+    }
+
+    private void restore(Order order) {
+        order.setLoggedHistory(order.getHistory().size());
+        super.save(order);
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (Exception ex) {
+            log.error("Snapshot failed: {}", ex.getMessage(), ex);
+        }
+    }
+}
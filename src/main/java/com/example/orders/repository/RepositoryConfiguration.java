@@ -0,0 +1,72 @@
+package com.example.orders.repository;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.PropertyResolver;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+@Configuration
+public class RepositoryConfiguration {
+
+    // Repositories are closed (flushing the log, removing spill files) when the context shuts down
+    @Bean
+    public OrderRepository orderRepository(Environment env) throws IOException {
+        return create(env);
+    }
+
+    public static OrderRepository create(PropertyResolver env) throws IOException {
+        boolean tiered = env.getProperty("app.repository.tiered.enabled", Boolean.class, false);
+        boolean columnar = env.getProperty("app.repository.columnar.enabled", Boolean.class, false);
+        if (tiered && columnar) {
+            throw new IllegalArgumentException(
+                    "app.repository.tiered.enabled and app.repository.columnar.enabled cannot both be set");
+        }
+        OrderStore store = tiered ? new TieredOrderStore(tieredStoreOptions(env))
+                : columnar ? new ColumnarOrderStore(columnarStoreOptions(env)) : new InMemoryOrderStore();
+        if (!env.getProperty("app.persistence.enabled", Boolean.class, false)) {
+            return new OrderRepository(store);
+        }
+        PersistenceOptions options = new PersistenceOptions();
+        options.setCommitIntervalMillis(env.getProperty("app.persistence.commit-interval-ms", Long.class,
+                options.getCommitIntervalMillis()));
+        options.setMaxBatchBytes(env.getProperty("app.persistence.max-batch-bytes", Integer.class,
+                options.getMaxBatchBytes()));
+        options.setSyncOnSave(env.getProperty("app.persistence.sync-on-save", Boolean.class, options.isSyncOnSave()));
+        options.setSnapshotIntervalSeconds(env.getProperty("app.persistence.snapshot-interval-seconds", Long.class,
+                options.getSnapshotIntervalSeconds()));
+        try {
+            return PersistentOrderRepository.open(Paths.get(env.getProperty("app.persistence.dir", "data")), options,
+                    store);
+        } catch (IOException | RuntimeException ex) {
+            store.close();
+            throw ex;
+        }
+    }
+
+    private static TieredStoreOptions tieredStoreOptions(PropertyResolver env) {
+        TieredStoreOptions options = new TieredStoreOptions();
+        options.setDir(Paths.get(env.getProperty("app.repository.tiered.dir", options.getDir().toString())));
+        options.setMaxCachedOrders(env.getProperty("app.repository.tiered.max-cached-orders", Integer.class,
+                options.getMaxCachedOrders()));
+        options.setSegmentBytes(env.getProperty("app.repository.tiered.segment-bytes", Long.class,
+                options.getSegmentBytes()));
+        options.setSpillTerminalOrders(env.getProperty("app.repository.tiered.spill-terminal-orders", Boolean.class,
+                options.isSpillTerminalOrders()));
+        options.setCompactionThreshold(env.getProperty("app.repository.tiered.compaction-threshold", Double.class,
+                options.getCompactionThreshold()));
+        return options;
+    }
+
+    private static ColumnarStoreOptions columnarStoreOptions(PropertyResolver env) {
+        ColumnarStoreOptions options = new ColumnarStoreOptions();
+        options.setOffHeap(env.getProperty("app.repository.columnar.off-heap", Boolean.class, options.isOffHeap()));
+        options.setMaxChunkBytes(env.getProperty("app.repository.columnar.max-chunk-bytes", Integer.class,
+                options.getMaxChunkBytes()));
+        options.setInitialCapacity(env.getProperty("app.repository.columnar.initial-capacity", Integer.class,
+                options.getInitialCapacity()));
+        return options;
+    }
+}
@@ -0,0 +1,424 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Keeps at most {@code maxCachedOrders} orders on the heap and spills the rest to local segment
+ * files, reading them back in when they are looked up.
+ *
+ * <p>The cache is split into lock-striped LRU segments by orderId. When a segment is full its
+ * least recently used order is written out (unless the copy on disk is still current) and
+ * dropped; SHIPPED and CANCELLED orders, which no event changes again, are written out as soon
+ * as they are saved. An order read back from disk stays clean until it is saved, so evicting it
+ * again costs nothing. Every spilled order still costs a small heap entry for its location.
+ *
+ * <p>Superseded records are reclaimed in the background: a segment whose live records fall
+ * below {@code compactionThreshold} has them copied forward, after which it is deleted.
+ */
+public class TieredOrderStore implements OrderStore, TieredOrderStoreMXBean {
+    private static final Logger log = LoggerFactory.getLogger(TieredOrderStore.class);
+    private static final int SHARDS = 64;
+
+    private final Shard[] shards = new Shard[SHARDS];
+    // Orders with a current copy on disk, whether or not they are also cached
+    private final Map<String, OrderSegments.Location> spilled = new ConcurrentHashMap<>();
+    private final OrderSegments segments;
+    private final boolean spillTerminalOrders;
+    private final double compactionThreshold;
+    private final ScheduledExecutorService compactor;
+    private final AtomicLong orders = new AtomicLong();
+    private final AtomicLong cached = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+    private ObjectName registeredAs;
+
+    public TieredOrderStore(TieredStoreOptions options) throws IOException {
+        this.segments = new OrderSegments(options.getDir(), options.getSegmentBytes());
+        this.spillTerminalOrders = options.isSpillTerminalOrders();
+        this.compactionThreshold = options.getCompactionThreshold();
+        int capacity = Math.max(1, (options.getMaxCachedOrders() + SHARDS - 1) / SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            shards[i] = new Shard(capacity);
+        }
+        this.compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "order-spill-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(this::compactQuietly, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @Override
+    public Order get(String orderId) {
+        Shard shard = shard(orderId);
+        synchronized (shard) {
+            Order order = shard.orders.get(orderId);
+            if (order != null) {
+                hits.increment();
+                return order;
+            }
+            OrderSegments.Location location = spilled.get(orderId);
+            if (location == null) {
+                return null;
+            }
+            misses.increment();
+            order = load(orderId, location);
+            cache(shard, orderId, order);
+            return order;
+        }
+    }
+
+    @Override
+    public boolean contains(String orderId) {
+        Shard shard = shard(orderId);
+        synchronized (shard) {
+            return shard.orders.containsKey(orderId) || spilled.containsKey(orderId);
+        }
+    }
+
+    @Override
+    public Order compute(String orderId, BiFunction<String, Order, Order> remapping) {
+        Shard shard = shard(orderId);
+        synchronized (shard) {
+            Order previous = shard.orders.get(orderId);
+            OrderSegments.Location location = spilled.get(orderId);
+            boolean wasCached = previous != null;
+            if (previous == null && location != null) {
+                misses.increment();
+                previous = load(orderId, location);
+            }
+            Order result = remapping.apply(orderId, previous);
+            if (previous == null && result != null) {
+                orders.incrementAndGet();
+            } else if (previous != null && result == null) {
+                orders.decrementAndGet();
+            }
+            // Whatever was returned may have been changed in place, so the copy on disk is stale
+            if (location != null) {
+                spilled.remove(orderId);
+                release(location);
+            }
+            if (result == null || (spillTerminalOrders && isTerminal(result))) {
+                if (wasCached) {
+                    shard.orders.remove(orderId);
+                    cached.decrementAndGet();
+                }
+                if (result != null) {
+                    spill(orderId, result);
+                }
+            } else if (wasCached) {
+                shard.orders.put(orderId, result);
+            } else {
+                cache(shard, orderId, result);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Every order, cached or not. Spilled orders are read from disk one at a time as the
+     * iteration reaches them, without being cached.
+     */
+    @Override
+    public Collection<Order> values() {
+        return new AbstractCollection<Order>() {
+            @Override
+            public Iterator<Order> iterator() {
+                List<String> ids = new ArrayList<>();
+                for (Shard shard : shards) {
+                    synchronized (shard) {
+                        ids.addAll(shard.orders.keySet());
+                    }
+                }
+                for (String id : spilled.keySet()) {
+                    if (!shard(id).containsCached(id)) {
+                        ids.add(id);
+                    }
+                }
+                return new Iterator<Order>() {
+                    private final Iterator<String> remaining = ids.iterator();
+                    private Order next = advance();
+
+                    @Override
+                    public boolean hasNext() {
+                        return next != null;
+                    }
+
+                    @Override
+                    public Order next() {
+                        if (next == null) {
+                            throw new NoSuchElementException();
+                        }
+                        Order order = next;
+                        next = advance();
+                        return order;
+                    }
+
+                    private Order advance() {
+                        while (remaining.hasNext()) {
+                            Order order = peek(remaining.next());
+                            if (order != null) {
+                                return order;
+                            }
+                        }
+                        return null;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return (int) Math.min(orders.get(), Integer.MAX_VALUE);
+            }
+        };
+    }
+
+    @Override
+    public long size() {
+        return orders.get();
+    }
+
+    @Override
+    public long getOrders() {
+        return orders.get();
+    }
+
+    @Override
+    public long getCachedOrders() {
+        return cached.get();
+    }
+
+    @Override
+    public long getSpilledOrders() {
+        return spilled.size();
+    }
+
+    @Override
+    public long getHits() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRate() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0 : (double) h / total;
+    }
+
+    @Override
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getSpills() {
+        return spills.sum();
+    }
+
+    @Override
+    public long getSpillFileBytes() {
+        return segments.getFileBytes();
+    }
+
+    @Override
+    public long getSpillLiveBytes() {
+        return segments.getLiveBytes();
+    }
+
+    /**
+     * Rewrites the live records of sparse closed segments into the active one, so that the
+     * sparse segments can be deleted. Runs in the background; public for tests and tools.
+     */
+    public void compact() throws IOException {
+        List<Integer> sparse = segments.sparse(compactionThreshold);
+        if (sparse.isEmpty()) {
+            return;
+        }
+        long moved = 0;
+        for (Map.Entry<String, OrderSegments.Location> entry : spilled.entrySet()) {
+            if (!sparse.contains(entry.getValue().segment)) {
+                continue;
+            }
+            String orderId = entry.getKey();
+            synchronized (shard(orderId)) {
+                OrderSegments.Location location = spilled.get(orderId);
+                // Skip records superseded since the scan started
+                if (location != entry.getValue()) {
+                    continue;
+                }
+                spilled.put(orderId, segments.append(segments.read(location)));
+                segments.release(location);
+                moved++;
+            }
+        }
+        log.debug("Compacted {} spill segments, moving {} orders", sparse.size(), moved);
+    }
+
+    public synchronized void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.example.orders:type=TieredOrderStore");
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+            registeredAs = name;
+        } catch (JMException ex) {
+            log.warn("Could not register tiered order store MBean: {}", ex.getMessage());
+        }
+    }
+
+    public synchronized void unregister() {
+        if (registeredAs == null) {
+            return;
+        }
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(registeredAs);
+        } catch (JMException ex) {
+            log.debug("Tiered order store MBean was already unregistered: {}", ex.getMessage());
+        }
+        registeredAs = null;
+    }
+
+    /**
+     * Logs the cache statistics and deletes the spill files.
+     */
+    @Override
+    public void close() throws IOException {
+        compactor.shutdownNow();
+        try {
+            compactor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        unregister();
+        log.info("{}", this);
+        segments.close();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Order store: %d orders, %d cached, %d spilled (%d MB on disk); "
+                        + "hits=%d misses=%d (%.1f%% hit rate) evictions=%d spills=%d",
+                getOrders(), getCachedOrders(), getSpilledOrders(), getSpillFileBytes() / (1024 * 1024),
+                getHits(), getMisses(), getHitRate() * 100, getEvictions(), getSpills());
+    }
+
+    // Reads an order regardless of where it is, without caching it or counting the lookup
+    private Order peek(String orderId) {
+        Shard shard = shard(orderId);
+        synchronized (shard) {
+            Order order = shard.orders.get(orderId);
+            if (order != null) {
+                return order;
+            }
+            OrderSegments.Location location = spilled.get(orderId);
+            return location == null ? null : load(orderId, location);
+        }
+    }
+
+    private void cache(Shard shard, String orderId, Order order) {
+        shard.orders.put(orderId, order);
+        cached.incrementAndGet();
+        Iterator<Map.Entry<String, Order>> eldest = shard.orders.entrySet().iterator();
+        while (shard.orders.size() > shard.capacity) {
+            Map.Entry<String, Order> entry = eldest.next();
+            if (!spilled.containsKey(entry.getKey())) {
+                spill(entry.getKey(), entry.getValue());
+            }
+            eldest.remove();
+            cached.decrementAndGet();
+            evictions.increment();
+        }
+    }
+
+    private void spill(String orderId, Order order) {
+        try {
+            spilled.put(orderId, segments.append(OrderCodec.encode(order)));
+            spills.increment();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to spill order " + orderId, e);
+        }
+    }
+
+    private Order load(String orderId, OrderSegments.Location location) {
+        try {
+            byte[] record = segments.read(location);
+            return OrderCodec.decode(record, 0, record.length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read spilled order " + orderId, e);
+        }
+    }
+
+    private void release(OrderSegments.Location location) {
+        try {
+            segments.release(location);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to release spilled record", e);
+        }
+    }
+
+    private void compactQuietly() {
+        try {
+            compact();
+        } catch (Exception ex) {
+            log.error("Spill compaction failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    private Shard shard(String orderId) {
+        int h = orderId.hashCode();
+        return shards[(h ^ (h >>> 16)) & (SHARDS - 1)];
+    }
+
+    private static boolean isTerminal(Order order) {
+        OrderStatus status = order.getStatus();
+        return status == OrderStatus.SHIPPED || status == OrderStatus.CANCELLED;
+    }
+
+    private static final class Shard {
+        final int capacity;
+        // Access order, so iteration starts at the least recently used order
+        final LinkedHashMap<String, Order> orders = new LinkedHashMap<>(16, 0.75f, true);
+
+        Shard(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized boolean containsCached(String orderId) {
+            return orders.containsKey(orderId);
+        }
+    }
+}
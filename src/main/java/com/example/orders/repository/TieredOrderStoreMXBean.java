@@ -0,0 +1,24 @@
+package com.example.orders.repository;
+
+public interface TieredOrderStoreMXBean {
+
+    long getOrders();
+
+    long getCachedOrders();
+
+    long getSpilledOrders();
+
+    long getHits();
+
+    long getMisses();
+
+    double getHitRate();
+
+    long getEvictions();
+
+    long getSpills();
+
+    long getSpillFileBytes();
+
+    long getSpillLiveBytes();
+}
@@ -0,0 +1,72 @@
+package com.example.orders.repository;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+public class TieredStoreOptions {
+    // Spill files are a cache of evicted orders, not durable state; they are removed on open and close
+    private Path dir = Paths.get("data", "spill");
+    // Orders kept on the heap; the least recently used ones beyond this are spilled to disk
+    private int maxCachedOrders = 1_000_000;
+    private long segmentBytes = 64L * 1024 * 1024;
+    // Spill SHIPPED and CANCELLED orders as soon as they are saved instead of waiting for eviction
+    private boolean spillTerminalOrders = true;
+    // Closed segments with less than this share of live records are rewritten
+    private double compactionThreshold = 0.5;
+
+    public TieredStoreOptions() {}
+
+    public Path getDir() {
+        return dir;
+    }
+
+    public int getMaxCachedOrders() {
+        return maxCachedOrders;
+    }
+
+    public long getSegmentBytes() {
+        return segmentBytes;
+    }
+
+    public boolean isSpillTerminalOrders() {
+        return spillTerminalOrders;
+    }
+
+    public double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setDir(Path dir) {
+        if (dir == null) {
+            throw new IllegalArgumentException("dir must not be null");
+        }
+        this.dir = dir;
+    }
+
+    public void setMaxCachedOrders(int maxCachedOrders) {
+        if (maxCachedOrders <= 0) {
+            throw new IllegalArgumentException("maxCachedOrders must be positive: " + maxCachedOrders);
+        }
+        this.maxCachedOrders = maxCachedOrders;
+    }
+
+    public void setSegmentBytes(long segmentBytes) {
+        if (segmentBytes <= 0 || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("segmentBytes must be between 1 and " + Integer.MAX_VALUE + ": "
+                    + segmentBytes);
+        }
+        this.segmentBytes = segmentBytes;
+    }
+
+    public void setSpillTerminalOrders(boolean spillTerminalOrders) {
+        this.spillTerminalOrders = spillTerminalOrders;
+    }
+
+    public void setCompactionThreshold(double compactionThreshold) {
+        if (!(compactionThreshold >= 0 && compactionThreshold < 1)) {
+            throw new IllegalArgumentException("compactionThreshold must be at least 0 and below 1: "
+                    + compactionThreshold);
+        }
+        this.compactionThreshold = compactionThreshold;
+    }
+}
@@ -1,13 +0,0 @@
-package com.example.orders_events;
-
-import org.springframework.boot.SpringApplication;
-import org.springframework.boot.autoconfigure.SpringBootApplication;
-
-@SpringBootApplication
-public class OrdersEventsApplication {
-
-	public static void main(String[] args) {
-		SpringApplication.run(OrdersEventsApplication.class, args);
-	}
-
-}
@@ -0,0 +1,56 @@
+package com.example.orders;
+
+import com.example.orders.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CliLauncherTests {
+
+    @Test
+    void argumentsOverrideApplicationProperties() throws Exception {
+        ConfigurableEnvironment env = CliLauncher.environment("--app.observers.alerts.interval-ms=50", "events.jsonl");
+
+        assertEquals("50", env.getProperty("app.observers.alerts.interval-ms"));
+        assertEquals("1000", env.getProperty("app.observers.logging.sample-rate"));
+        assertFalse(env.getProperty("app.persistence.enabled", Boolean.class));
+    }
+
+    @Test
+    void runsThePipelineWithoutAnApplicationContext(@TempDir Path dir) throws Exception {
+        Path input = dir.resolve("events.jsonl");
+        Files.write(input, (""
+                + "{\"eventId\":\"e1\",\"timestamp\":\"2025-07-29T10:00:00Z\",\"eventType\":\"OrderCreated\",\"orderId\":\"ORD1\",\"customerId\":\"C1\",\"items\":[],\"totalAmount\":10.00}\n"
+                + "{\"eventId\":\"e2\",\"timestamp\":\"2025-07-29T10:01:00Z\",\"eventType\":\"PaymentReceived\",\"orderId\":\"ORD1\",\"amountPaid\":10.00}\n"
+                + "not json\n").getBytes());
+        String[] args = {"--app.ingestion.dead-letter.file=" + dir.resolve("dead.jsonl"), input.toString()};
+
+        CliLauncher launcher = new CliLauncher(CliLauncher.environment(args));
+        try {
+            launcher.run(args);
+        } finally {
+            launcher.close();
+        }
+
+        assertEquals(OrderStatus.PAID, launcher.getRepository().findById("ORD1").get().getStatus());
+        assertTrue(launcher.getReadyMillis() >= 0);
+        assertEquals(1, Files.readAllLines(dir.resolve("dead.jsonl")).size());
+    }
+
+    @Test
+    void checkpointsRequireADurableRepository(@TempDir Path dir) throws Exception {
+        Path input = dir.resolve("events.jsonl");
+        Files.write(input, new byte[0]);
+        String[] args = {"--app.ingestion.checkpoint.enabled=true", "--app.ingestion.checkpoint.dir=" + dir,
+                input.toString()};
+
+        try (CliLauncher launcher = new CliLauncher(CliLauncher.environment(args))) {
+            assertThrows(IllegalArgumentException.class, () -> launcher.run(args));
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.orders.generator;
+
+import com.example.orders.events.Event;
+import com.example.orders.ingestion.EventIngestor;
+import com.example.orders.model.OrderStatus;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventGeneratorTests {
+
+    @Test
+    void sameSeedGivesTheSameFileWhateverTheThreadCount(@TempDir Path dir) throws Exception {
+        GeneratorOptions options = new GeneratorOptions();
+        options.setOrders(5_000);
+        options.setChunkOrders(512);
+        options.setOutOfOrderRate(0.05);
+        options.setDuplicateRate(0.01);
+        options.setThreads(1);
+        Path single = dir.resolve("single.jsonl");
+        long lines = new EventGenerator(options).generate(single);
+        options.setThreads(4);
+        Path parallel = dir.resolve("parallel.jsonl");
+        new EventGenerator(options).generate(parallel);
+
+        assertArrayEquals(Files.readAllBytes(single), Files.readAllBytes(parallel));
+        assertEquals(lines, Files.readAllLines(single).size());
+
+        options.setSeed(7);
+        Path other = dir.resolve("other.jsonl");
+        new EventGenerator(options).generate(other);
+        assertFalse(Files.readAllLines(single).equals(Files.readAllLines(other)));
+    }
+
+    @Test
+    void generatedEventsAreValidAndFollowTheLifecycleMix(@TempDir Path dir) throws Exception {
+        GeneratorOptions options = new GeneratorOptions();
+        options.setOrders(2_000);
+        options.setShippedRatio(0.5);
+        options.setCancelledRatio(0.5);
+        options.setDuplicateRate(0.1);
+        Path file = dir.resolve("events.jsonl");
+        new EventGenerator(options).generate(file);
+
+        OrderRepository repository = new OrderRepository();
+        EventIngestor ingestor = new EventIngestor(new EventProcessor(repository, Collections.emptyList()));
+        List<String> lines = Files.readAllLines(file);
+        Set<String> eventIds = new HashSet<>();
+        for (String line : lines) {
+            Event event = ingestor.parseEvent(line);
+            assertNull(EventIngestor.validate(event), line);
+            eventIds.add(event.getEventId());
+        }
+        // Duplicates repeat an eventId; everything else is unique
+        assertTrue(eventIds.size() < lines.size());
+        assertTrue(eventIds.size() > lines.size() * 0.85);
+
+        ingestor.ingest(file.toString());
+        assertEquals(2_000, repository.count());
+        long shipped = repository.countByStatus(OrderStatus.SHIPPED);
+        long cancelled = repository.countByStatus(OrderStatus.CANCELLED);
+        assertEquals(2_000, shipped + cancelled);
+        assertTrue(shipped > 800 && cancelled > 800, shipped + " shipped, " + cancelled + " cancelled");
+    }
+
+    @Test
+    void rejectsALifecycleMixOverOne() {
+        GeneratorOptions options = new GeneratorOptions();
+        options.setShippedRatio(0.8);
+        options.setCancelledRatio(0.3);
+        assertThrows(IllegalArgumentException.class, () -> new EventGenerator(options));
+    }
+}
@@ -0,0 +1,587 @@
+package com.example.orders.ingestion;
+
+import com.example.orders.events.Event;
+import com.example.orders.events.OrderCancelledEvent;
+import com.example.orders.events.OrderCreatedEvent;
+import com.example.orders.events.PaymentReceivedEvent;
+import com.example.orders.events.ShippingScheduledEvent;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderItem;
+import com.example.orders.model.OrderStatus;
+import com.example.orders.observers.OrderObserver;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventIngestorTests {
+
+    private static final int ORDERS = 2000;
+
+    @TempDir
+    Path tmp;
+
+    private OrderRepository repository;
+    private EventIngestor ingestor;
+
+    @BeforeEach
+    void setUp() {
+        repository = new OrderRepository();
+        ingestor = new EventIngestor(new EventProcessor(repository, new ArrayList<>()));
+    }
+
+    @Test
+    void parallelIngestKeepsPerOrderOrdering() throws Exception {
+        Path file = writeLifecycles(tmp.resolve("events.jsonl"));
+
+        ParallelIngestOptions options = new ParallelIngestOptions();
+        options.setWorkers(4);
+        options.setShards(3);
+        options.setQueueDepth(16);
+        options.setBatchSize(7);
+        IngestStats stats = ingestor.ingestParallel(file.toString(), options);
+
+        assertEquals(ORDERS * 4L + 1, stats.getLines());
+        assertEquals(1, stats.getFailures(), "Malformed line should be counted, not fatal");
+        assertEquals(ORDERS * 4L, stats.getEvents());
+        assertEquals(3, stats.getShards().size());
+        assertOrdersMatchLifecycles();
+    }
+
+    @Test
+    void mappedIngestHandlesChunkAndWindowBoundaries() throws Exception {
+        Path file = writeLifecycles(tmp.resolve("events.jsonl"));
+        // Trailing line without a newline must still be read
+        Files.write(file, "\n  \n{\"eventType\":\"OrderCancelled\",\"orderId\":\"ORD-LATE\",\"reason\":\"late\"}"
+                .getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+        ParallelIngestOptions options = new ParallelIngestOptions();
+        options.setWorkers(3);
+        options.setShards(4);
+        options.setQueueDepth(8);
+        options.setChunkBytes(300);
+        options.setMappingWindowBytes(4096);
+        IngestStats stats = ingestor.ingestMapped(file.toString(), options);
+
+        assertEquals(ORDERS * 4L + 2, stats.getLines());
+        assertEquals(1, stats.getFailures());
+        assertEquals(ORDERS * 4L + 1, stats.getEvents());
+        assertOrdersMatchLifecycles();
+    }
+
+    @Test
+    void checkpointedIngestResumesAfterLastProcessedEvent() throws Exception {
+        Path full = writeLifecycles(tmp.resolve("full.jsonl"));
+        byte[] bytes = Files.readAllBytes(full);
+        // Stop the first run part-way through the payments, as if the process had died there
+        int split = 0;
+        for (int newlines = 0; newlines < ORDERS + 1 + 500; split++) {
+            if (bytes[split] == '\n') {
+                newlines++;
+            }
+        }
+        Path file = tmp.resolve("events.jsonl");
+        Files.write(file, Arrays.copyOfRange(bytes, 0, split));
+
+        CheckpointOptions options = new CheckpointOptions();
+        options.setDir(tmp.resolve("state"));
+        options.setIntervalEvents(300);
+        int[] flushes = new int[1];
+        IngestCheckpoints checkpoints = new IngestCheckpoints(options, () -> flushes[0]++);
+        ingestor.ingest(file.toString(), checkpoints);
+        assertTrue(checkpoints.getCheckpoints() > 1);
+        assertEquals(checkpoints.getCheckpoints(), flushes[0], "State must be flushed before every checkpoint");
+
+        Files.write(file, Arrays.copyOfRange(bytes, split, bytes.length), StandardOpenOption.APPEND);
+        // Payments before the split would be applied twice if the restart re-read them
+        IngestCheckpoints restarted = new IngestCheckpoints(options, null);
+        assertEquals(split, restarted.begin(file));
+        ingestor.ingest(file.toString(), new IngestCheckpoints(options, null));
+        assertOrdersMatchLifecycles();
+
+        // A different file under the same name starts from the beginning
+        Files.delete(file);
+        Files.write(file, "{\"eventType\":\"OrderCancelled\",\"orderId\":\"ORD-NEW\"}\n".getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, new IngestCheckpoints(options, null).begin(file));
+    }
+
+    @Test
+    void checkpointStopsBeforeAnUnterminatedLastLine() throws Exception {
+        Path file = tmp.resolve("events.jsonl");
+        String first = created("P1");
+        String second = created("P2");
+        Files.write(file, (first + second.substring(0, 30)).getBytes(StandardCharsets.UTF_8));
+
+        CheckpointOptions options = new CheckpointOptions();
+        options.setDir(tmp.resolve("state"));
+        ingestor.ingest(file.toString(), new IngestCheckpoints(options, null));
+        assertTrue(repository.existsById("P1"));
+        assertFalse(repository.existsById("P2"));
+
+        // The writer finishes the line; the restart must read it again from its start
+        append(file, second.substring(30));
+        assertEquals(first.length(), new IngestCheckpoints(options, null).begin(file));
+        ingestor.ingest(file.toString(), new IngestCheckpoints(options, null));
+        assertTrue(repository.existsById("P2"));
+    }
+
+    @Test
+    void tailFollowsAppendsRotationAndTruncation() throws Exception {
+        Path file = tmp.resolve("live.jsonl");
+        Files.write(file, created("T1").getBytes(StandardCharsets.UTF_8));
+        TailOptions options = new TailOptions();
+        options.setMaxPollMillis(20);
+        EventTailer tailer = ingestor.tail(file.toString(), options, null);
+        Thread thread = new Thread(tailer, "tailer");
+        thread.start();
+        try {
+            awaitOrders(1);
+
+            // A partial line is only processed once its newline arrives
+            String next = created("T2");
+            append(file, next.substring(0, 20));
+            Thread.sleep(100);
+            assertFalse(repository.existsById("T2"));
+            append(file, next.substring(20));
+            awaitOrders(2);
+
+            // Rotation: the old file's unterminated last line is still processed
+            append(file, created("T3").trim());
+            Files.move(file, tmp.resolve("live.jsonl.1"));
+            Files.write(file, created("T4").getBytes(StandardCharsets.UTF_8));
+            awaitOrders(4);
+
+            // Truncation (the file shrinks): it is read again from the start
+            Files.write(file, created("5").getBytes(StandardCharsets.UTF_8), StandardOpenOption.TRUNCATE_EXISTING);
+            awaitOrders(5);
+        } finally {
+            tailer.stop(5_000);
+        }
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+        assertEquals(5, tailer.getLines());
+    }
+
+    private static String created(String orderId) {
+        return "{\"eventId\":\"" + orderId + "\",\"timestamp\":\"2025-07-29T10:00:00Z\",\"eventType\":\"OrderCreated\","
+                + "\"orderId\":\"" + orderId + "\",\"customerId\":\"C1\",\"items\":[],\"totalAmount\":10.00}\n";
+    }
+
+    private static void append(Path file, String text) throws Exception {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+    }
+
+    private void awaitOrders(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (repository.findAll().size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(count, repository.findAll().size());
+    }
+
+    @Test
+    void binaryConversionReplaysToTheSameState() throws Exception {
+        Path json = writeLifecycles(tmp.resolve("events.jsonl"));
+        Path binary = tmp.resolve("events.bin");
+
+        assertEquals(ORDERS * 4L, ingestor.convertToBinary(json.toString(), binary.toString()));
+        assertTrue(Files.size(binary) < Files.size(json) / 3, "binary=" + Files.size(binary) + " json=" + Files.size(json));
+        ingestor.ingest(binary.toString());
+        assertOrdersMatchLifecycles();
+    }
+
+    @Test
+    void binaryReplaySkipsAnEventThatFailsToProcess() throws Exception {
+        Path json = tmp.resolve("events.jsonl");
+        Files.write(json, (created("B1") + created("BAD") + created("B2")).getBytes(StandardCharsets.UTF_8));
+        Path binary = tmp.resolve("events.bin");
+        assertEquals(3, ingestor.convertToBinary(json.toString(), binary.toString()));
+
+        EventIngestor failing = new EventIngestor(new EventProcessor(repository, Collections.singletonList(new OrderObserver() {
+            @Override
+            public void onEventProcessed(Event event, Order order) {
+                if ("BAD".equals(order.getOrderId())) {
+                    throw new IllegalStateException("observer failure");
+                }
+            }
+
+            @Override
+            public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+            }
+        })));
+        IngestStats stats = failing.ingestParallel(binary.toString(), new ParallelIngestOptions());
+        assertEquals(3, stats.getLines());
+        assertEquals(1, stats.getFailures());
+        assertTrue(repository.existsById("B2"));
+    }
+
+    @Test
+    void multiMemberGzipIsStreamedWithoutUnpacking() throws Exception {
+        byte[] json = Files.readAllBytes(writeLifecycles(tmp.resolve("events.jsonl")));
+        Path gzip = tmp.resolve("events.jsonl.gz");
+        try (OutputStream out = Files.newOutputStream(gzip)) {
+            // Members split mid-line, as produced by appending to a gzipped log
+            int third = json.length / 3;
+            for (int from = 0; from < json.length; from += third) {
+                ByteArrayOutputStream member = new ByteArrayOutputStream();
+                try (GZIPOutputStream z = new GZIPOutputStream(member)) {
+                    z.write(json, from, Math.min(third, json.length - from));
+                }
+                member.writeTo(out);
+            }
+        }
+
+        DecompressionOptions options = new DecompressionOptions();
+        options.setChunkBytes(1000);
+        options.setQueueChunks(2);
+        ingestor.setDecompression(options);
+        ingestor.ingest(gzip.toString());
+        assertOrdersMatchLifecycles();
+    }
+
+    @Test
+    void bgzfBlocksAreInflatedInParallelAndKeptInOrder() throws Exception {
+        byte[] json = Files.readAllBytes(writeLifecycles(tmp.resolve("events.jsonl")));
+        Path bgzf = tmp.resolve("events.jsonl.bgz");
+        try (OutputStream out = Files.newOutputStream(bgzf)) {
+            for (int from = 0; from < json.length; from += 700) {
+                out.write(bgzfBlock(json, from, Math.min(700, json.length - from)));
+            }
+            out.write(bgzfBlock(json, 0, 0));
+        }
+
+        DecompressionOptions options = new DecompressionOptions();
+        options.setThreads(3);
+        options.setQueueChunks(4);
+        ingestor.setDecompression(options);
+        ParallelIngestOptions parallel = new ParallelIngestOptions();
+        parallel.setWorkers(2);
+        parallel.setShards(2);
+        IngestStats stats = ingestor.ingestParallel(bgzf.toString(), parallel);
+        assertEquals(ORDERS * 4L, stats.getEvents());
+        assertOrdersMatchLifecycles();
+    }
+
+    private static byte[] bgzfBlock(byte[] data, int offset, int length) {
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        deflater.setInput(data, offset, length);
+        deflater.finish();
+        byte[] compressed = new byte[length + 64];
+        int compressedLength = deflater.deflate(compressed);
+        deflater.end();
+        CRC32 crc = new CRC32();
+        crc.update(data, offset, length);
+
+        ByteArrayOutputStream block = new ByteArrayOutputStream();
+        int total = 18 + compressedLength + 8;
+        block.write(new byte[] {0x1f, (byte) 0x8b, 8, 4, 0, 0, 0, 0, 0, (byte) 0xff, 6, 0, 'B', 'C', 2, 0}, 0, 16);
+        writeLittleEndian(block, total - 1, 2);
+        block.write(compressed, 0, compressedLength);
+        writeLittleEndian(block, crc.getValue(), 4);
+        writeLittleEndian(block, length, 4);
+        return block.toByteArray();
+    }
+
+    private static void writeLittleEndian(ByteArrayOutputStream out, long value, int bytes) {
+        for (int i = 0; i < bytes; i++) {
+            out.write((int) (value >>> (8 * i)) & 0xff);
+        }
+    }
+
+    @Test
+    void pushedEventsAreProcessedWithinDemand() throws Exception {
+        List<Event> events = new ArrayList<>();
+        for (String line : Files.readAllLines(writeLifecycles(tmp.resolve("events.jsonl")))) {
+            if (!line.startsWith("{not")) {
+                events.add(ingestor.parseEvent(line));
+            }
+        }
+
+        SubscriberOptions options = new SubscriberOptions();
+        options.setBufferSize(32);
+        options.setParallelism(3);
+        options.setProcessBatchSize(8);
+        IngestStats stats = ingestor.ingest(events.iterator(), options);
+        assertEquals(ORDERS * 4L, stats.getEvents());
+        assertOrdersMatchLifecycles();
+
+        // A producer that ignores demand is cancelled and the subscriber fails
+        ProcessingSubscriber subscriber = ingestor.subscriber(options);
+        boolean[] cancelled = new boolean[1];
+        subscriber.onSubscribe(new EventSubscription() {
+            @Override
+            public void request(long n) {
+            }
+
+            @Override
+            public void cancel() {
+                cancelled[0] = true;
+            }
+        });
+        for (int i = 0; i <= 32; i++) {
+            subscriber.onNext(events.get(i));
+        }
+        assertTrue(cancelled[0]);
+        assertThrows(ExecutionException.class, () -> subscriber.getCompletion().get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void socketClientsAreAcknowledgedAfterProcessing() throws Exception {
+        // Each order's events go over one of two connections, in file order
+        List<String> lines = Files.readAllLines(writeLifecycles(tmp.resolve("events.jsonl")));
+        StringBuilder[] streams = {new StringBuilder(), new StringBuilder()};
+        Pattern orderNumber = Pattern.compile("\"orderId\":\"ORD(\\d+)\"");
+        for (String line : lines) {
+            Matcher m = orderNumber.matcher(line);
+            streams[m.find() ? Integer.parseInt(m.group(1)) % 2 : 0].append(line).append('\n');
+        }
+
+        SocketIngestOptions options = new SocketIngestOptions();
+        options.setPort(0);
+        options.setShards(3);
+        options.setQueueDepth(64);
+        options.setMaxInFlightLines(100);
+        // Lines straddle reads and force the buffer to grow
+        options.setReadBufferBytes(64);
+        EventSocketServer server = ingestor.listen(options);
+        Thread thread = new Thread(server, "event-socket");
+        thread.start();
+        try {
+            List<Thread> clients = new ArrayList<>();
+            List<String> lastAcks = Collections.synchronizedList(new ArrayList<>());
+            for (StringBuilder stream : streams) {
+                Thread client = new Thread(() -> lastAcks.add(send(server.getPort(), stream.toString())));
+                client.start();
+                clients.add(client);
+            }
+            for (Thread client : clients) {
+                client.join(30_000);
+            }
+            assertOrdersMatchLifecycles();
+            lastAcks.sort(null);
+            assertEquals(Arrays.asList("ACK " + ORDERS * 2 + " 0", "ACK " + (ORDERS * 2 + 1) + " 1"), lastAcks);
+            assertEquals(ORDERS * 4L + 1, server.getLines());
+            assertEquals(1, server.getRejected());
+        } finally {
+            server.stop(5_000);
+        }
+        thread.join(5_000);
+        assertFalse(thread.isAlive());
+    }
+
+    // Sends the text in small writes, then reads acknowledgements until the server closes
+    private static String send(int port, String text) {
+        try (SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", port))) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            for (int from = 0; from < bytes.length; from += 1000) {
+                channel.write(ByteBuffer.wrap(bytes, from, Math.min(1000, bytes.length - from)));
+            }
+            channel.shutdownOutput();
+            ByteArrayOutputStream acks = new ByteArrayOutputStream();
+            ByteBuffer buffer = ByteBuffer.allocate(256);
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                acks.write(buffer.array(), 0, buffer.limit());
+                buffer.clear();
+            }
+            String[] received = acks.toString("US-ASCII").split("\n");
+            return received[received.length - 1];
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Test
+    void binaryRecordsRoundTripEveryField() throws Exception {
+        OrderCreatedEvent created = new OrderCreatedEvent();
+        created.setEventId("e1");
+        created.setEventType("OrderCreated");
+        created.setTimestamp(Instant.parse("2025-07-29T10:00:00.123456789Z"));
+        created.setOrderId("O1");
+        created.setCustomerId("C1");
+        created.setItems(Arrays.asList(new OrderItem("P1", 2), new OrderItem("P2", -1)));
+        created.setTotalAmount(new BigDecimal("123456789012345678901234567890.12"));
+        PaymentReceivedEvent payment = new PaymentReceivedEvent();
+        payment.setEventType("PaymentReceived");
+        payment.setOrderId("O1");
+        payment.setAmountPaid(new BigDecimal("-1E+3"));
+        ShippingScheduledEvent shipped = new ShippingScheduledEvent();
+        shipped.setEventType("ShippingScheduled");
+        shipped.setTimestamp(Instant.parse("1969-12-31T23:59:59Z"));
+        shipped.setOrderId("O2");
+        OrderCancelledEvent cancelled = new OrderCancelledEvent();
+        cancelled.setEventType("OrderCancelled");
+        cancelled.setOrderId("O1");
+        cancelled.setReason("P1");
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        // A tiny dictionary forces it to be cleared and rebuilt mid-stream
+        try (BinaryEventWriter writer = new BinaryEventWriter(bytes, 3)) {
+            for (Event e : Arrays.asList(created, payment, shipped, cancelled, created)) {
+                writer.write(e);
+            }
+        }
+        List<Event> read = new ArrayList<>();
+        try (BinaryEventReader reader = new BinaryEventReader(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Event e;
+            while ((e = reader.next()) != null) {
+                read.add(e);
+            }
+        }
+        assertEquals(5, read.size());
+        for (OrderCreatedEvent c : Arrays.asList((OrderCreatedEvent) read.get(0), (OrderCreatedEvent) read.get(4))) {
+            assertEquals("e1", c.getEventId());
+            assertEquals(created.getTimestamp(), c.getTimestamp());
+            assertEquals("O1", c.getOrderId());
+            assertEquals("C1", c.getCustomerId());
+            assertEquals("P2", c.getItems().get(1).getItemId());
+            assertEquals(-1, c.getItems().get(1).getQty());
+            assertEquals(created.getTotalAmount(), c.getTotalAmount());
+        }
+        assertEquals("-1E+3", ((PaymentReceivedEvent) read.get(1)).getAmountPaid().toString());
+        assertNull(read.get(1).getTimestamp());
+        assertNull(read.get(1).getEventId());
+        assertEquals(shipped.getTimestamp(), read.get(2).getTimestamp());
+        assertNull(((ShippingScheduledEvent) read.get(2)).getShippingDate());
+        assertEquals("P1", ((OrderCancelledEvent) read.get(3)).getReason());
+        assertEquals("OrderCancelled", read.get(3).getEventType());
+    }
+
+    @Test
+    void parseEventPicksSubclassFromEventType() throws Exception {
+        Event created = ingestor.parseEvent("{\"eventId\":\"e1\",\"timestamp\":\"2025-07-29T10:00:00Z\",\"orderId\":\"O1\","
+                + "\"customerId\":\"C1\",\"items\":[{\"itemId\":\"P1\",\"qty\":2}],\"totalAmount\":12.50,\"eventType\":\"OrderCreated\"}");
+        assertTrue(created instanceof OrderCreatedEvent);
+        assertEquals("OrderCreated", created.getEventType());
+        assertEquals("O1", created.getOrderId());
+        assertEquals(new BigDecimal("12.50"), ((OrderCreatedEvent) created).getTotalAmount());
+        assertEquals(2, ((OrderCreatedEvent) created).getItems().get(0).getQty());
+
+        Event shipped = ingestor.parseEvent("{\"eventType\":\"ShippingScheduled\",\"orderId\":\"O1\",\"shippingDate\":\"2025-07-30\"}");
+        assertEquals(LocalDate.of(2025, 7, 30), ((ShippingScheduledEvent) shipped).getShippingDate());
+
+        // Unknown and missing types are reported by validate() rather than by an exception
+        assertEquals(RejectReason.UNKNOWN_EVENT_TYPE,
+                EventIngestor.validate(ingestor.parseEvent("{\"eventType\":\"Refunded\",\"orderId\":\"O1\"}")));
+        assertEquals(RejectReason.MISSING_EVENT_TYPE, EventIngestor.validate(ingestor.parseEvent("{\"orderId\":\"O1\"}")));
+        assertEquals(RejectReason.MISSING_ORDER_ID,
+                EventIngestor.validate(ingestor.parseEvent("{\"eventType\":\"OrderCancelled\"}")));
+        assertNull(EventIngestor.validate(shipped));
+        assertThrows(JsonProcessingException.class, () -> ingestor.parseEvent("{\"eventType\":"));
+    }
+
+    @Test
+    void rejectedLinesAreCountedAndDeadLettered() throws Exception {
+        Path file = tmp.resolve("events.jsonl");
+        Files.write(file, (created("G1")
+                + "{broken \"quote\n"
+                + "{\"eventType\":\"Refunded\",\"orderId\":\"G1\"}\n"
+                + "{\"orderId\":\"G1\"}\n"
+                + "{\"eventType\":\"OrderCancelled\",\"reason\":\"no order\"}\n"
+                + "null\n"
+                + created("G2")).getBytes(StandardCharsets.UTF_8));
+        DeadLetterOptions options = new DeadLetterOptions();
+        options.setFile(tmp.resolve("dead/letters.jsonl"));
+        options.setFlushRecords(2);
+        DeadLetterWriter deadLetters = new DeadLetterWriter(options);
+        ingestor.setDeadLetters(deadLetters);
+        ingestor.ingest(file.toString());
+        // Two full batches have reached the file before close
+        assertEquals(4, Files.readAllLines(options.getFile()).size());
+        deadLetters.close();
+
+        awaitOrders(2);
+        assertEquals(2, ingestor.getRejected(RejectReason.MALFORMED_JSON));
+        assertEquals(1, ingestor.getRejected(RejectReason.UNKNOWN_EVENT_TYPE));
+        assertEquals(1, ingestor.getRejected(RejectReason.MISSING_EVENT_TYPE));
+        assertEquals(1, ingestor.getRejected(RejectReason.MISSING_ORDER_ID));
+        assertEquals(5, ingestor.getRejected());
+
+        List<String> records = Files.readAllLines(options.getFile());
+        assertEquals(5, records.size());
+        ObjectMapper mapper = new ObjectMapper();
+        JsonNode malformed = mapper.readTree(records.get(0));
+        assertEquals("MALFORMED_JSON", malformed.get("reason").asText());
+        assertEquals("{broken \"quote", malformed.get("line").asText());
+        JsonNode unknown = mapper.readTree(records.get(1));
+        assertEquals("UNKNOWN_EVENT_TYPE", unknown.get("reason").asText());
+        assertEquals("Refunded", unknown.get("detail").asText());
+        assertEquals("MISSING_ORDER_ID", mapper.readTree(records.get(3)).get("reason").asText());
+        assertEquals("null", mapper.readTree(records.get(4)).get("line").asText());
+    }
+
+    // Every even order is paid in two steps and shipped, every odd one is cancelled after a partial payment
+    static Path writeLifecycles(Path file) throws Exception {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < ORDERS; i++) {
+            String id = "ORD" + i;
+            sb.append("{\"eventId\":\"c").append(i).append("\",\"timestamp\":\"2025-07-29T10:00:00Z\",\"eventType\":\"OrderCreated\",\"orderId\":\"")
+              .append(id).append("\",\"customerId\":\"C").append(i % 17).append("\",\"items\":[{\"itemId\":\"P1\",\"qty\":1}],\"totalAmount\":100.00}\n");
+            if (i == ORDERS / 2) {
+                sb.append("{not json\n");
+            }
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            String id = "ORD" + i;
+            sb.append("{\"eventId\":\"p").append(i).append("\",\"timestamp\":\"2025-07-29T10:01:00Z\",\"eventType\":\"PaymentReceived\",\"orderId\":\"")
+              .append(id).append("\",\"amountPaid\":40.00}\n");
+            if (i % 2 == 0) {
+                sb.append("{\"eventId\":\"q").append(i).append("\",\"timestamp\":\"2025-07-29T10:02:00Z\",\"eventType\":\"PaymentReceived\",\"orderId\":\"")
+                  .append(id).append("\",\"amountPaid\":100.00}\n");
+                sb.append("{\"eventId\":\"s").append(i).append("\",\"timestamp\":\"2025-07-29T10:03:00Z\",\"eventType\":\"ShippingScheduled\",\"orderId\":\"")
+                  .append(id).append("\",\"shippingDate\":\"2025-07-30\"}\n");
+            } else {
+                sb.append("{\"eventId\":\"x").append(i).append("\",\"timestamp\":\"2025-07-29T10:02:00Z\",\"eventType\":\"OrderCancelled\",\"orderId\":\"")
+                  .append(id).append("\",\"reason\":\"changed mind\"}\n");
+                sb.append("{\"eventId\":\"y").append(i).append("\",\"timestamp\":\"2025-07-29T10:03:00Z\",\"eventType\":\"OrderCancelled\",\"orderId\":\"")
+                  .append(id).append("\",\"reason\":\"duplicate notice\"}\n");
+            }
+        }
+        Files.write(file, sb.toString().getBytes(StandardCharsets.UTF_8));
+        return file;
+    }
+
+    private void assertOrdersMatchLifecycles() {
+        assertEquals(ORDERS, repository.findAll().size());
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = repository.findById("ORD" + i).orElseThrow();
+            OrderStatus expected = i % 2 == 0 ? OrderStatus.SHIPPED : OrderStatus.CANCELLED;
+            assertEquals(expected, order.getStatus(), "Unexpected status for " + order.getOrderId());
+            assertEquals(4, order.getEventHistory().size());
+            assertTrue(order.getEventHistory().get(0).contains("OrderCreated"));
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.orders.metrics;
+
+import com.example.orders.events.EventType;
+import com.example.orders.ingestion.EventIngestor;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class PipelineMetricsTests {
+
+    @TempDir
+    Path tmp;
+
+    @Test
+    void histogramPercentilesStayWithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v * 1_000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+        assertEquals(50_000_000, histogram.getValueAtPercentile(50), 50_000_000 * 0.035);
+        assertEquals(99_000_000, histogram.getValueAtPercentile(99), 99_000_000 * 0.035);
+        assertEquals(100_000_000, histogram.getValueAtPercentile(100));
+        assertEquals(7, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(7)));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.upperBoundOf(LatencyHistogram.bucketOf(Long.MAX_VALUE)));
+    }
+
+    @Test
+    void recordingDoesNotAllocate() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        assumeTrue(threads instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) threads;
+        PipelineMetrics metrics = new PipelineMetrics();
+        long id = Thread.currentThread().getId();
+        for (int i = 0; i < 100_000; i++) {
+            record(metrics, i);
+        }
+        long before = allocations.getThreadAllocatedBytes(id);
+        for (int i = 0; i < 1_000_000; i++) {
+            record(metrics, i);
+        }
+        long allocated = allocations.getThreadAllocatedBytes(id) - before;
+        assertTrue(allocated < 64 * 1024, "allocated " + allocated + " bytes");
+    }
+
+    private static void record(PipelineMetrics metrics, int i) {
+        metrics.recordStage(PipelineMetrics.Stage.PARSE, i);
+        metrics.recordEvent(EventType.fromName("PaymentReceived"));
+    }
+
+    @Test
+    void ingestionReportsStagesTypesAndFailuresOverJmx() throws Exception {
+        Path file = tmp.resolve("events.jsonl");
+        Files.write(file, ("{\"eventId\":\"e1\",\"timestamp\":\"2025-07-29T10:00:00Z\",\"eventType\":\"OrderCreated\",\"orderId\":\"O1\",\"totalAmount\":10}\n"
+                + "{\"eventId\":\"e2\",\"timestamp\":\"2025-07-29T10:01:00Z\",\"eventType\":\"PaymentReceived\",\"orderId\":\"O1\",\"amountPaid\":10}\n"
+                + "{\"eventId\":\"e3\",\"eventType\":\"Refunded\",\"orderId\":\"O1\"}\n"
+                + "{broken\n").getBytes(StandardCharsets.UTF_8));
+        OrderRepository repository = new OrderRepository();
+        EventProcessor processor = new EventProcessor(repository, new ArrayList<>());
+        EventIngestor ingestor = new EventIngestor(processor);
+        PipelineMetrics metrics = new PipelineMetrics();
+        metrics.setRepositorySize(repository::count);
+        ingestor.setMetrics(metrics);
+        processor.setMetrics(metrics);
+        metrics.register();
+        try {
+            ingestor.ingest(file.toString());
+
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName("com.example.orders:type=PipelineMetrics");
+            assertEquals(2L, server.getAttribute(name, "EventsProcessed"));
+            assertEquals(1L, server.getAttribute(name, "ParseFailures"));
+            assertEquals(1L, server.getAttribute(name, "UnknownEventTypes"));
+            assertEquals(1L, server.getAttribute(name, "RepositorySize"));
+            assertEquals(4L, ((CompositeData) server.getAttribute(name, "ReadLatency")).get("count"));
+            assertEquals(2L, ((CompositeData) server.getAttribute(name, "ParseLatency")).get("count"));
+            assertEquals(2L, ((CompositeData) server.getAttribute(name, "ProcessLatency")).get("count"));
+            assertEquals(1L, metrics.getEventsByType().get("PaymentReceived"));
+        } finally {
+            metrics.unregister();
+        }
+    }
+}
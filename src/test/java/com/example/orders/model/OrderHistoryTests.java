@@ -0,0 +1,60 @@
+package com.example.orders.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderHistoryTests {
+
+    private static final Instant AT = Instant.parse("2025-07-29T10:00:00Z");
+
+    @Test
+    void rendersTheSameLinesAsStringConcatenation() {
+        OrderHistory history = new OrderHistory();
+        Instant millis = Instant.parse("2025-07-29T10:00:00.125Z");
+        Instant nanos = Instant.parse("2025-07-29T10:00:00.000000123Z");
+        BigDecimal huge = new BigDecimal("123456789012345678901234567890.12");
+
+        history.add(AT, "OrderCreated", HistoryNote.ORDER_CREATED);
+        history.addAmount(millis, "PaymentReceived", HistoryNote.PARTIAL_PAYMENT, new BigDecimal("40.50"));
+        history.addAmount(AT, "PaymentReceived", HistoryNote.PAID_IN_FULL, huge);
+        history.addAmount(nanos, "PaymentReceived", HistoryNote.PAID_IN_FULL, new BigDecimal("-1E+3"));
+        history.add(null, "PaymentReceived", HistoryNote.INVALID_PAYMENT);
+        history.addDate(AT, "ShippingScheduled", HistoryNote.SHIPPING_SCHEDULED, LocalDate.of(2025, 7, 30));
+        history.addDate(AT, "ShippingScheduled", HistoryNote.SHIPPING_SCHEDULED, null);
+        history.addText(AT, "OrderCancelled", HistoryNote.ORDER_CANCELLED, "changed mind");
+        history.addText(AT, "Refunded", HistoryNote.ORDER_CANCELLED, null);
+        history.addRaw("free-form line");
+
+        assertEquals(Arrays.asList(
+                AT + " - OrderCreated - Order created",
+                millis + " - PaymentReceived - Partial payment received: 40.50",
+                AT + " - PaymentReceived - Payment received in full: " + huge,
+                nanos + " - PaymentReceived - Payment received in full: -1E+3",
+                "null - PaymentReceived - Payment event with zero/invalid amount",
+                AT + " - ShippingScheduled - Shipping scheduled for 2025-07-30",
+                AT + " - ShippingScheduled - Shipping scheduled for null",
+                AT + " - OrderCancelled - Order cancelled: changed mind",
+                AT + " - Refunded - Order cancelled: null",
+                "free-form line"), history.asList());
+        assertEquals(HistoryNote.PARTIAL_PAYMENT, history.getNote(1));
+        assertEquals(HistoryNote.RAW, history.getNote(2), "Amounts beyond 55 bits fall back to text");
+    }
+
+    @Test
+    void orderExposesHistoryAsRenderedLines() {
+        Order order = new Order("ORD1", "C1", null, new BigDecimal("10.00"));
+        order.getHistory().add(AT, "OrderCreated", HistoryNote.ORDER_CREATED);
+        order.appendHistory("legacy line");
+        assertEquals(Arrays.asList(AT + " - OrderCreated - Order created", "legacy line"), order.getEventHistory());
+
+        order.setEventHistory(Arrays.asList("a", "b", "c"));
+        assertEquals(3, order.getHistory().size());
+        assertEquals("c", order.getEventHistory().get(2));
+    }
+}
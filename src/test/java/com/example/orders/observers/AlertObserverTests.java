@@ -0,0 +1,40 @@
+package com.example.orders.observers;
+
+import com.example.orders.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AlertObserverTests {
+
+    @Test
+    void alertsAreCoalescedWithinTheInterval() {
+        List<String> lines = Collections.synchronizedList(new ArrayList<>());
+        AlertOptions options = new AlertOptions();
+        options.setIntervalMillis(3_600_000);
+        options.setMaxListedOrders(2);
+        AlertObserver observer = new AlertObserver(options, lines::add);
+        try {
+            observer.onStatusChanged("O1", OrderStatus.PAID, OrderStatus.SHIPPED);
+            for (int i = 2; i <= 5; i++) {
+                observer.onStatusChanged("O" + i, OrderStatus.PAID, OrderStatus.SHIPPED);
+            }
+            observer.onStatusChanged("O9", OrderStatus.PENDING, OrderStatus.CANCELLED);
+            observer.onStatusChanged("O8", OrderStatus.PENDING, OrderStatus.PAID);
+            // The first alert of each status is immediate; the rest wait for the interval
+            assertEquals(2, lines.size());
+            assertEquals("ALERT: Order O1 changed to SHIPPED", lines.get(0));
+            assertEquals("ALERT: Order O9 changed to CANCELLED", lines.get(1));
+            observer.flush(false);
+            assertEquals(2, lines.size());
+        } finally {
+            observer.close();
+        }
+        assertEquals(3, lines.size());
+        assertEquals("ALERT: 4 orders changed to SHIPPED: O2, O3 and 2 more", lines.get(2));
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.orders.observers;
+
+import com.example.orders.events.OrderCreatedEvent;
+import com.example.orders.events.PaymentReceivedEvent;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggerObserverTests {
+
+    @Test
+    void summariesCountEventsAndTransitionsPerInterval() {
+        LoggerObserver observer = new LoggerObserver();
+        LoggerObserverOptions options = new LoggerObserverOptions();
+        options.setSummaryIntervalMillis(3_600_000);
+        observer.configure(options);
+        try {
+            Order order = new Order("O1", "C1", Collections.emptyList(), new BigDecimal("10.00"));
+            OrderCreatedEvent created = new OrderCreatedEvent();
+            created.setEventType("OrderCreated");
+            PaymentReceivedEvent payment = new PaymentReceivedEvent();
+            payment.setEventType("PaymentReceived");
+            for (int i = 0; i < 5; i++) {
+                observer.onEventProcessed(created, order);
+                observer.onEventProcessed(payment, order);
+                observer.onStatusChanged("O" + i, OrderStatus.PENDING, OrderStatus.PAID);
+            }
+            observer.onEventProcessed(payment, order);
+            observer.onStatusChanged("O1", OrderStatus.PAID, OrderStatus.SHIPPED);
+
+            String summary = observer.summarize();
+            assertTrue(summary.startsWith("11 events in "), summary);
+            assertTrue(summary.contains(" OrderCreated=5 PaymentReceived=6;"), summary);
+            assertTrue(summary.endsWith("status changes: PENDING->PAID=5 PAID->SHIPPED=1"), summary);
+            // Counts start over with each interval, and quiet intervals are not logged
+            assertNull(observer.summarize());
+        } finally {
+            observer.close();
+        }
+    }
+
+    @Test
+    void exactlyOneInSampleRateCallbacksIsSampled() {
+        LoggerObserver observer = new LoggerObserver();
+        LoggerObserverOptions options = new LoggerObserverOptions();
+        options.setSampleRate(4);
+        observer.configure(options);
+        try {
+            int sampled = 0;
+            for (int i = 0; i < 100; i++) {
+                if (observer.sampled()) {
+                    sampled++;
+                }
+            }
+            assertEquals(25, sampled);
+        } finally {
+            observer.close();
+        }
+    }
+}
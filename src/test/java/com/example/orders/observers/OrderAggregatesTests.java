@@ -0,0 +1,141 @@
+package com.example.orders.observers;
+
+import com.example.orders.events.Event;
+import com.example.orders.events.OrderCancelledEvent;
+import com.example.orders.events.OrderCreatedEvent;
+import com.example.orders.events.PaymentReceivedEvent;
+import com.example.orders.events.ShippingScheduledEvent;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+import com.example.orders.processing.EventProcessor;
+import com.example.orders.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderAggregatesTests {
+
+    @Test
+    void aggregatesMatchTheRepositoryWithoutScanning() {
+        OrderRepository repository = new OrderRepository();
+        OrderAggregates aggregates = new OrderAggregates(repository);
+        EventProcessor processor = new EventProcessor(repository, Collections.singletonList(aggregates));
+
+        for (int i = 0; i < 10; i++) {
+            String id = "ORD" + i;
+            OrderCreatedEvent created = new OrderCreatedEvent();
+            created.setEventType("OrderCreated");
+            created.setOrderId(id);
+            created.setTotalAmount(new BigDecimal("100.00"));
+            processor.process(created);
+            if (i < 6) {
+                processor.process(payment(id, i < 4 ? "100.00" : "33.335"));
+            }
+            if (i < 3) {
+                ShippingScheduledEvent shipped = new ShippingScheduledEvent();
+                shipped.setEventType("ShippingScheduled");
+                shipped.setOrderId(id);
+                processor.process(shipped);
+            }
+        }
+        // Rejected (already shipped) and invalid events do not move the numbers
+        OrderCancelledEvent cancelShipped = new OrderCancelledEvent();
+        cancelShipped.setEventType("OrderCancelled");
+        cancelShipped.setOrderId("ORD0");
+        processor.process(cancelShipped);
+        processor.process(payment("ORD9", "0"));
+        OrderCancelledEvent cancel = new OrderCancelledEvent();
+        cancel.setEventType("OrderCancelled");
+        cancel.setOrderId("ORD9");
+        processor.process(cancel);
+
+        assertEquals(10, aggregates.getOrdersCreated());
+        for (OrderStatus status : OrderStatus.values()) {
+            assertEquals(repository.countByStatus(status), aggregates.getOrdersWithStatus(status), status.name());
+        }
+        assertEquals(0, new BigDecimal("1000").compareTo(aggregates.getOrderValueCreated()));
+        // 4 x 100.00 + 2 x 33.335, kept to four decimal places
+        assertEquals(new BigDecimal("466.6700"), aggregates.getPaymentsReceived());
+        assertEquals(6, aggregates.getPaymentsCount());
+        assertEquals(4, aggregates.getOrdersPaid());
+        assertEquals(3, aggregates.getOrdersShipped());
+        assertEquals(1, aggregates.getOrdersCancelled());
+        assertEquals(0.3, aggregates.getCreatedToShippedRate(), 1e-9);
+    }
+
+    @Test
+    void aggregatesStayExactWhenOtherObserversDropNotifications() throws Exception {
+        OrderRepository repository = new OrderRepository();
+        OrderAggregates aggregates = new OrderAggregates(repository);
+        OrderObserver slow = new OrderObserver() {
+            @Override
+            public void onEventProcessed(Event event, Order order) {
+                LockSupport.parkNanos(100_000);
+            }
+
+            @Override
+            public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+                LockSupport.parkNanos(100_000);
+            }
+        };
+        AsyncObserverOptions options = new AsyncObserverOptions();
+        options.setRingSize(2);
+        options.setOverflowPolicy(OverflowPolicy.DROP);
+        try (EventProcessor processor = new EventProcessor(repository, Arrays.asList(aggregates, slow))) {
+            processor.dispatchObserversAsync(options);
+            assertEquals(1, processor.getAsyncObservers().size());
+            for (int i = 0; i < 2000; i++) {
+                String id = "ORD" + i;
+                OrderCreatedEvent created = new OrderCreatedEvent();
+                created.setEventType("OrderCreated");
+                created.setOrderId(id);
+                created.setTotalAmount(new BigDecimal("100.00"));
+                processor.process(created);
+                processor.process(payment(id, i % 2 == 0 ? "100.00" : "40.00"));
+            }
+            assertTrue(processor.getAsyncObservers().get(0).getDropped() > 0);
+        }
+
+        assertEquals(2000, aggregates.getOrdersCreated());
+        for (OrderStatus status : OrderStatus.values()) {
+            assertEquals(repository.countByStatus(status), aggregates.getOrdersWithStatus(status), status.name());
+        }
+    }
+
+    @Test
+    void statusCountsIncludeOrdersStoredBeforeStartup() {
+        OrderRepository repository = new OrderRepository();
+        // As recovered by a persistent repository: no observer saw these orders being processed
+        for (int i = 0; i < 5; i++) {
+            Order order = new Order("OLD" + i, "C1", null, new BigDecimal("10.00"));
+            order.setStatus(OrderStatus.PAID);
+            repository.save(order);
+        }
+        OrderAggregates aggregates = new OrderAggregates(repository);
+        EventProcessor processor = new EventProcessor(repository, Collections.singletonList(aggregates));
+        for (int i = 0; i < 3; i++) {
+            ShippingScheduledEvent shipped = new ShippingScheduledEvent();
+            shipped.setEventType("ShippingScheduled");
+            shipped.setOrderId("OLD" + i);
+            processor.process(shipped);
+        }
+
+        assertEquals(2, aggregates.getOrdersWithStatus(OrderStatus.PAID));
+        assertEquals(3, aggregates.getOrdersWithStatus(OrderStatus.SHIPPED));
+        assertEquals(0L, aggregates.getOrdersByStatus().get("PENDING"));
+        assertEquals(3, aggregates.getOrdersShipped());
+    }
+
+    private static PaymentReceivedEvent payment(String orderId, String amount) {
+        PaymentReceivedEvent payment = new PaymentReceivedEvent();
+        payment.setEventType("PaymentReceived");
+        payment.setOrderId(orderId);
+        payment.setAmountPaid(new BigDecimal(amount));
+        return payment;
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.orders.observers;
+
+import com.example.orders.events.Event;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RingBufferObserverTests {
+
+    @Test
+    void blockPolicyDeliversEverythingInPerProducerOrder() throws Exception {
+        RecordingObserver recorder = new RecordingObserver();
+        AsyncObserverOptions options = new AsyncObserverOptions();
+        options.setRingSize(16);
+        options.setBatchSize(4);
+        RingBufferObserver async = new RingBufferObserver(recorder, options);
+
+        int producers = 4;
+        int perProducer = 5000;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String orderId = "ORD" + p;
+            Thread t = new Thread(() -> {
+                for (int i = 0; i < perProducer; i++) {
+                    async.onStatusChanged(orderId, OrderStatus.PENDING, i % 2 == 0 ? OrderStatus.PAID : OrderStatus.SHIPPED);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        async.close();
+
+        assertEquals(producers * (long) perProducer, async.getDelivered());
+        assertEquals(0, async.getDropped());
+        assertEquals(0, async.getLag());
+        assertTrue(async.getMaxLag() <= 16);
+        for (int p = 0; p < producers; p++) {
+            List<OrderStatus> seen = recorder.byOrder.get("ORD" + p);
+            assertEquals(perProducer, seen.size());
+            for (int i = 0; i < perProducer; i++) {
+                assertEquals(i % 2 == 0 ? OrderStatus.PAID : OrderStatus.SHIPPED, seen.get(i));
+            }
+        }
+    }
+
+    @Test
+    void dropPolicyCountsDiscardedNotificationsWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingObserver stalled = new RecordingObserver() {
+            @Override
+            public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+                try {
+                    release.await();
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+                super.onStatusChanged(orderId, oldStatus, newStatus);
+            }
+        };
+        AsyncObserverOptions options = new AsyncObserverOptions();
+        options.setRingSize(8);
+        options.setOverflowPolicy(OverflowPolicy.DROP);
+        RingBufferObserver async = new RingBufferObserver(stalled, options);
+
+        for (int i = 0; i < 100; i++) {
+            async.onStatusChanged("ORD1", OrderStatus.PENDING, OrderStatus.CANCELLED);
+        }
+        release.countDown();
+        async.close();
+
+        // The consumer may have taken one notification before stalling, freeing one extra slot
+        assertTrue(async.getDropped() >= 100 - 9, "dropped=" + async.getDropped());
+        assertEquals(100, async.getDelivered() + async.getDropped());
+        assertEquals(async.getDelivered(), stalled.byOrder.get("ORD1").size());
+    }
+
+    @Test
+    void notificationsRacingWithCloseAreDeliveredInOrder() throws Exception {
+        RecordingObserver recorder = new RecordingObserver() {
+            @Override
+            public synchronized void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+                // Called from producers too once the ring has closed
+                super.onStatusChanged(orderId, oldStatus, newStatus);
+            }
+        };
+        AsyncObserverOptions options = new AsyncObserverOptions();
+        options.setRingSize(16);
+        RingBufferObserver async = new RingBufferObserver(recorder, options);
+
+        int producers = 4;
+        int perProducer = 20000;
+        CountDownLatch started = new CountDownLatch(producers);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            String orderId = "ORD" + p;
+            Thread t = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < perProducer; i++) {
+                    async.onStatusChanged(orderId, OrderStatus.PENDING, i % 2 == 0 ? OrderStatus.PAID : OrderStatus.SHIPPED);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        started.await();
+        async.close();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        for (int p = 0; p < producers; p++) {
+            List<OrderStatus> seen = recorder.byOrder.get("ORD" + p);
+            assertEquals(perProducer, seen.size());
+            for (int i = 0; i < perProducer; i++) {
+                assertEquals(i % 2 == 0 ? OrderStatus.PAID : OrderStatus.SHIPPED, seen.get(i));
+            }
+        }
+    }
+
+    static class RecordingObserver implements OrderObserver {
+        final Map<String, List<OrderStatus>> byOrder = new HashMap<>();
+
+        @Override
+        public void onEventProcessed(Event event, Order order) {
+        }
+
+        @Override
+        public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+            // Only ever called from the single consumer thread
+            byOrder.computeIfAbsent(orderId, k -> new ArrayList<>()).add(newStatus);
+        }
+    }
+}
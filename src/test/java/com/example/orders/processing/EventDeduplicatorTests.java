@@ -0,0 +1,103 @@
+package com.example.orders.processing;
+
+import com.example.orders.events.OrderCreatedEvent;
+import com.example.orders.events.PaymentReceivedEvent;
+import com.example.orders.model.Order;
+import com.example.orders.repository.OrderRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventDeduplicatorTests {
+
+    @Test
+    void redeliveredPaymentIsAppliedOnce() {
+        OrderRepository repository = new OrderRepository();
+        EventProcessor processor = new EventProcessor(repository, new ArrayList<>());
+        processor.setDeduplicator(new EventDeduplicator(new DeduplicationOptions()));
+
+        OrderCreatedEvent created = new OrderCreatedEvent();
+        created.setEventId("e1");
+        created.setTimestamp(Instant.parse("2025-07-29T10:00:00Z"));
+        created.setEventType("OrderCreated");
+        created.setOrderId("ORD1");
+        created.setTotalAmount(new BigDecimal("100.00"));
+        PaymentReceivedEvent payment = new PaymentReceivedEvent();
+        payment.setEventId("e2");
+        payment.setTimestamp(Instant.parse("2025-07-29T10:01:00Z"));
+        payment.setEventType("PaymentReceived");
+        payment.setOrderId("ORD1");
+        payment.setAmountPaid(new BigDecimal("40.00"));
+
+        processor.process(created);
+        processor.process(payment);
+        processor.process(payment);
+
+        Order order = repository.findById("ORD1").orElseThrow();
+        assertEquals(2, order.getEventHistory().size());
+        assertEquals(1, processor.getDeduplicator().getExactDuplicates());
+    }
+
+    @Test
+    void bloomFilterCatchesIdsOlderThanTheExactWindow() {
+        DeduplicationOptions options = new DeduplicationOptions();
+        options.setWindowMaxIds(1000);
+        options.setBloomExpectedIds(100_000);
+        options.setBloomFalsePositiveRate(0.01);
+        EventDeduplicator dedup = new EventDeduplicator(options);
+
+        int ids = 50_000;
+        for (int i = 0; i < ids; i++) {
+            dedup.isDuplicate(event("evt-" + i));
+        }
+        // Only the last two windows are held exactly, so early ids are caught by the Bloom filter
+        for (int i = 0; i < ids; i++) {
+            assertTrue(dedup.isDuplicate(event("evt-" + i)), "evt-" + i);
+        }
+        assertTrue(dedup.getProbableDuplicates() > ids - 2 * 1000);
+
+        // Unseen ids are only rejected at roughly the configured false-positive rate
+        long before = dedup.getDuplicatesRejected();
+        for (int i = 0; i < ids; i++) {
+            dedup.isDuplicate(event("new-" + i));
+        }
+        double observed = (double) (dedup.getDuplicatesRejected() - before) / ids;
+        assertTrue(observed < 0.02, "observed false-positive rate " + observed);
+        assertTrue(dedup.getEstimatedFalsePositiveRate() < 0.02, dedup.toString());
+    }
+
+    @Test
+    void bloomGenerationsAgeSoNewIdsAreNotRejectedBeyondExpectedIds() {
+        DeduplicationOptions options = new DeduplicationOptions();
+        options.setWindowMaxIds(100);
+        options.setBloomExpectedIds(1000);
+        options.setBloomFalsePositiveRate(0.01);
+        EventDeduplicator dedup = new EventDeduplicator(options);
+
+        // Fifty times the ids the filter is sized for: a filter that never aged would reject nearly all of them
+        int ids = 50_000;
+        boolean[] accepted = new boolean[ids];
+        for (int i = 0; i < ids; i++) {
+            accepted[i] = !dedup.isDuplicate(event("evt-" + i));
+        }
+        assertTrue(dedup.getDuplicatesRejected() < ids * 0.03, dedup.toString());
+        assertTrue(dedup.getEstimatedFalsePositiveRate() < 0.03, dedup.toString());
+
+        // Redeliveries of recent ids that have left the exact window are still caught
+        for (int i = ids - 1000; i < ids - 200; i++) {
+            if (accepted[i]) {
+                assertTrue(dedup.isDuplicate(event("evt-" + i)), "evt-" + i);
+            }
+        }
+    }
+
+    private static PaymentReceivedEvent event(String eventId) {
+        PaymentReceivedEvent event = new PaymentReceivedEvent();
+        event.setEventId(eventId);
+        return event;
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.orders.processing;
+
+import com.example.orders.events.Event;
+import com.example.orders.events.OrderCancelledEvent;
+import com.example.orders.events.OrderCreatedEvent;
+import com.example.orders.events.PaymentReceivedEvent;
+import com.example.orders.events.ShippingScheduledEvent;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+import com.example.orders.observers.AsyncObserverOptions;
+import com.example.orders.observers.OrderObserver;
+import com.example.orders.observers.OverflowPolicy;
+import com.example.orders.repository.ColumnarOrderStore;
+import com.example.orders.repository.OrderRepository;
+import com.example.orders.repository.PersistenceOptions;
+import com.example.orders.repository.PersistentOrderRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventProcessorTests {
+
+    @Test
+    void shippingACancelledOrderIsRejectedAndCounted() {
+        OrderRepository repository = new OrderRepository();
+        AtomicInteger processed = new AtomicInteger();
+        List<OrderStatus> changes = Collections.synchronizedList(new ArrayList<>());
+        EventProcessor processor = new EventProcessor(repository, Collections.singletonList(new OrderObserver() {
+            @Override
+            public void onEventProcessed(Event event, Order order) {
+                processed.incrementAndGet();
+            }
+
+            @Override
+            public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+                changes.add(newStatus);
+            }
+        }));
+
+        processor.process(created("ORD1"));
+        processor.process(cancelled("ORD1"));
+        processor.process(shipped("ORD1"));
+        processor.process(cancelled("ORD1"));
+
+        Order order = repository.findById("ORD1").orElseThrow();
+        assertEquals(OrderStatus.CANCELLED, order.getStatus());
+        assertEquals(1, processor.getRejectedTransitions());
+        // The repeated cancellation is recorded but does not change the status again
+        assertEquals(3, order.getEventHistory().size());
+        assertEquals(3, processed.get());
+        assertEquals(Collections.singletonList(OrderStatus.CANCELLED), changes);
+        assertFalse(OrderStatus.PAID.canTransitionTo(OrderStatus.PARTIALLY_PAID));
+        assertTrue(OrderStatus.PARTIALLY_PAID.canTransitionTo(OrderStatus.PAID));
+    }
+
+    @Test
+    void concurrentEventsForTheSameOrdersStayConsistent() throws Exception {
+        OrderRepository repository = new OrderRepository();
+        EventProcessor processor = new EventProcessor(repository, new ArrayList<>());
+        int orders = 500;
+        for (int i = 0; i < orders; i++) {
+            processor.process(created("ORD" + i));
+        }
+
+        // Each thread sends one kind of event for every order, so they race on the same orders
+        List<List<Event>> streams = new ArrayList<>();
+        for (int kind = 0; kind < 4; kind++) {
+            List<Event> stream = new ArrayList<>();
+            for (int i = 0; i < orders; i++) {
+                String id = "ORD" + i;
+                stream.add(kind == 0 ? payment(id, "40.00") : kind == 1 ? payment(id, "100.00")
+                        : kind == 2 ? shipped(id) : cancelled(id));
+            }
+            streams.add(stream);
+        }
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (List<Event> stream : streams) {
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException ie) {
+                    return;
+                }
+                stream.forEach(processor::process);
+            });
+            t.start();
+            threads.add(t);
+        }
+        start.countDown();
+        for (Thread t : threads) {
+            t.join();
+        }
+
+        long entries = 0;
+        for (Order order : repository.findAll()) {
+            assertTrue(order.getStatus() == OrderStatus.SHIPPED || order.getStatus() == OrderStatus.CANCELLED,
+                    order.getOrderId() + " ended in " + order.getStatus());
+            entries += order.getEventHistory().size();
+        }
+        // Every event was either applied (one history entry) or rejected
+        assertEquals(orders * 5L, entries + processor.getRejectedTransitions());
+        assertEquals(orders, repository.countByStatus(OrderStatus.SHIPPED) + repository.countByStatus(OrderStatus.CANCELLED));
+    }
+
+    @Test
+    void updatesOfOneOrderFromSeveralThreadsAreNotLost(@TempDir Path dir) throws Exception {
+        List<OrderRepository> repositories = Arrays.asList(new OrderRepository(),
+                new OrderRepository(new ColumnarOrderStore()),
+                PersistentOrderRepository.open(dir, new PersistenceOptions(), new ColumnarOrderStore()));
+        int orders = 20;
+        int threads = 4;
+        int perThread = 50;
+        for (OrderRepository repository : repositories) {
+            EventProcessor processor = new EventProcessor(repository, new ArrayList<>());
+            for (int i = 0; i < orders; i++) {
+                processor.process(created("ORD" + i));
+            }
+            // Every thread appends to every order, half of them through batches
+            CountDownLatch start = new CountDownLatch(1);
+            List<Thread> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                boolean batched = t % 2 == 0;
+                Thread worker = new Thread(() -> {
+                    try {
+                        start.await();
+                    } catch (InterruptedException ie) {
+                        return;
+                    }
+                    for (int n = 0; n < perThread; n++) {
+                        List<Event> round = new ArrayList<>();
+                        for (int i = 0; i < orders; i++) {
+                            round.add(payment("ORD" + i, "0"));
+                        }
+                        if (batched) {
+                            processor.processBatch(round);
+                        } else {
+                            round.forEach(processor::process);
+                        }
+                    }
+                });
+                worker.start();
+                workers.add(worker);
+            }
+            start.countDown();
+            for (Thread worker : workers) {
+                worker.join();
+            }
+            for (int i = 0; i < orders; i++) {
+                assertEquals(1 + threads * perThread, repository.findById("ORD" + i).orElseThrow().getHistory().size(),
+                        repository.getStore().getClass().getSimpleName());
+            }
+            repository.close();
+        }
+
+        // The log holds every update of each order, in the order they were applied
+        try (PersistentOrderRepository reopened = PersistentOrderRepository.open(dir, new PersistenceOptions())) {
+            for (int i = 0; i < orders; i++) {
+                assertEquals(1 + threads * perThread, reopened.findById("ORD" + i).orElseThrow().getHistory().size());
+            }
+        }
+    }
+
+    @Test
+    void batchProcessingMatchesOneByOne() {
+        List<Event> events = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            events.add(created("ORD" + i));
+        }
+        // Interleaved across orders, with a duplicate creation and an illegal transition mixed in
+        for (int i = 0; i < 50; i++) {
+            events.add(payment("ORD" + i, "40.00"));
+            events.add(i % 2 == 0 ? shipped("ORD" + i) : cancelled("ORD" + i));
+        }
+        events.add(created("ORD3"));
+        events.add(payment("ORD1", "100.00"));
+        events.add(payment("UNKNOWN", "100.00"));
+
+        OrderRepository single = new OrderRepository();
+        EventProcessor oneByOne = new EventProcessor(single, new ArrayList<>());
+        events.forEach(oneByOne::process);
+
+        OrderRepository batched = new OrderRepository();
+        AtomicInteger processed = new AtomicInteger();
+        AtomicInteger batches = new AtomicInteger();
+        List<OrderStatus> changes = Collections.synchronizedList(new ArrayList<>());
+        EventProcessor batch = new EventProcessor(batched, Collections.singletonList(new OrderObserver() {
+            @Override
+            public void onEventProcessed(Event event, Order order) {
+                processed.incrementAndGet();
+            }
+
+            @Override
+            public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+                changes.add(newStatus);
+            }
+
+            @Override
+            public void onEventsProcessed(List<Event> events, List<Order> orders) {
+                batches.incrementAndGet();
+                OrderObserver.super.onEventsProcessed(events, orders);
+            }
+        }));
+        for (int from = 0; from < events.size(); from += 64) {
+            batch.processBatch(events.subList(from, Math.min(events.size(), from + 64)));
+        }
+
+        assertEquals(single.count(), batched.count());
+        for (Order expected : single.findAll()) {
+            Order actual = batched.findById(expected.getOrderId()).orElseThrow();
+            assertEquals(expected.getStatus(), actual.getStatus());
+            assertEquals(expected.getEventHistory(), actual.getEventHistory());
+        }
+        assertEquals(oneByOne.getRejectedTransitions(), batch.getRejectedTransitions());
+        assertEquals(1, batch.getRejectedTransitions());
+        assertEquals(150, processed.get());
+        assertEquals(3, batches.get());
+        assertEquals(100, changes.size());
+        assertEquals(25, batched.countByStatus(OrderStatus.SHIPPED));
+    }
+
+    @Test
+    void observersRequiringLosslessDeliveryAreNotPutBehindALossyRing() {
+        OrderObserver lossless = new OrderObserver() {
+            @Override
+            public void onEventProcessed(Event event, Order order) {
+            }
+
+            @Override
+            public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+            }
+
+            @Override
+            public boolean requiresLosslessDelivery() {
+                return true;
+            }
+        };
+        AsyncObserverOptions sampled = new AsyncObserverOptions();
+        sampled.setOverflowPolicy(OverflowPolicy.SAMPLE);
+        try (EventProcessor processor = new EventProcessor(new OrderRepository(), Collections.singletonList(lossless))) {
+            processor.dispatchObserversAsync(sampled);
+            assertTrue(processor.getAsyncObservers().isEmpty());
+        }
+        // Blocking dispatch never drops, so it may still take the observer off the processing thread
+        try (EventProcessor processor = new EventProcessor(new OrderRepository(), Collections.singletonList(lossless))) {
+            processor.dispatchObserversAsync(new AsyncObserverOptions());
+            assertEquals(1, processor.getAsyncObservers().size());
+        }
+    }
+
+    @Test
+    void statusChangesOfAnEventProcessedByAnObserverAreReportedOnce() {
+        OrderRepository repository = new OrderRepository();
+        List<String> changes = new ArrayList<>();
+        EventProcessor[] processor = new EventProcessor[1];
+        processor[0] = new EventProcessor(repository, Collections.singletonList(new OrderObserver() {
+            @Override
+            public void onEventProcessed(Event event, Order order) {
+            }
+
+            @Override
+            public void onStatusChanged(String orderId, OrderStatus oldStatus, OrderStatus newStatus) {
+                changes.add(orderId + ":" + newStatus);
+                // Processing from inside a callback must not disturb the outer event's changes
+                if ("ORD1".equals(orderId) && newStatus == OrderStatus.PAID) {
+                    processor[0].process(payment("ORD2", "100.00"));
+                }
+            }
+        }));
+        processor[0].process(created("ORD1"));
+        processor[0].process(created("ORD2"));
+
+        processor[0].processBatch(Arrays.asList(payment("ORD1", "100.00"), shipped("ORD1")));
+        processor[0].process(cancelled("ORD2"));
+
+        assertEquals(Arrays.asList("ORD1:PAID", "ORD2:PAID", "ORD1:SHIPPED", "ORD2:CANCELLED"), changes);
+    }
+
+    private static OrderCreatedEvent created(String orderId) {
+        OrderCreatedEvent e = event(new OrderCreatedEvent(), "OrderCreated", orderId);
+        e.setCustomerId("C1");
+        e.setTotalAmount(new BigDecimal("100.00"));
+        return e;
+    }
+
+    private static PaymentReceivedEvent payment(String orderId, String amount) {
+        PaymentReceivedEvent e = event(new PaymentReceivedEvent(), "PaymentReceived", orderId);
+        e.setAmountPaid(new BigDecimal(amount));
+        return e;
+    }
+
+    private static ShippingScheduledEvent shipped(String orderId) {
+        return event(new ShippingScheduledEvent(), "ShippingScheduled", orderId);
+    }
+
+    private static OrderCancelledEvent cancelled(String orderId) {
+        OrderCancelledEvent e = event(new OrderCancelledEvent(), "OrderCancelled", orderId);
+        e.setReason("changed mind");
+        return e;
+    }
+
+    private static <T extends Event> T event(T e, String type, String orderId) {
+        e.setEventType(type);
+        e.setOrderId(orderId);
+        e.setTimestamp(Instant.parse("2025-07-29T10:00:00Z"));
+        return e;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.HistoryNote;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderItem;
+import com.example.orders.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnarOrderStoreTests {
+
+    @Test
+    void ordersRoundTripThroughTheColumns() throws Exception {
+        try (OrderRepository repository = new OrderRepository(new ColumnarOrderStore())) {
+            Order order = new Order("ORD1", "CUST1",
+                    Arrays.asList(new OrderItem("P1", 2), new OrderItem(null, 1)), new BigDecimal("19.990"));
+            order.getHistory().add(Instant.parse("2025-01-01T00:00:00Z"), "OrderCreated", HistoryNote.ORDER_CREATED);
+            order.getHistory().addDate(Instant.parse("2025-01-02T00:00:00Z"), "ShippingScheduled",
+                    HistoryNote.SHIPPING_SCHEDULED, LocalDate.of(2025, 1, 5));
+            order.appendHistory("free-form line");
+            order.setStatus(OrderStatus.SHIPPED);
+            repository.save(order);
+            // Too large to pack into the total column
+            Order large = new Order("ORD2", null, null, new BigDecimal("123456789012345678901234567890.5"));
+            large.setStatus(null);
+            repository.save(large);
+
+            Order read = repository.findById("ORD1").get();
+            assertNotSame(order, read);
+            assertEquals("CUST1", read.getCustomerId());
+            assertEquals(new BigDecimal("19.990"), read.getTotalAmount());
+            assertEquals(OrderStatus.SHIPPED, read.getStatus());
+            assertEquals(2, read.getItems().size());
+            assertEquals("P1", read.getItems().get(0).getItemId());
+            assertEquals(2, read.getItems().get(0).getQty());
+            assertNull(read.getItems().get(1).getItemId());
+            assertEquals(order.getEventHistory(), read.getEventHistory());
+
+            Order readLarge = repository.findById("ORD2").get();
+            assertEquals(large.getTotalAmount(), readLarge.getTotalAmount());
+            assertNull(readLarge.getCustomerId());
+            assertNull(readLarge.getStatus());
+            assertTrue(readLarge.getItems().isEmpty());
+            assertFalse(repository.findById("ORD3").isPresent());
+            assertFalse(repository.existsById("ORD3"));
+        }
+    }
+
+    @Test
+    void updatesAndRemovalsKeepIndexesConsistent() throws Exception {
+        ColumnarStoreOptions options = new ColumnarStoreOptions();
+        options.setInitialCapacity(1);
+        options.setMaxChunkBytes(4096);
+        options.setOffHeap(false);
+        ColumnarOrderStore store = new ColumnarOrderStore(options);
+        try (OrderRepository repository = new OrderRepository(store)) {
+            for (int i = 0; i < 5000; i++) {
+                Order order = new Order("ORD" + i, "CUST" + (i % 10),
+                        Collections.singletonList(new OrderItem("P" + (i % 3), 1)), new BigDecimal(i));
+                assertNull(repository.saveIfAbsent(order));
+            }
+            assertNotNull(repository.saveIfAbsent(new Order("ORD0", "CUST0", null, BigDecimal.ONE)));
+            // Growing histories move records, leaving overwritten ones to be compacted away
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 5000; i += 2) {
+                    Order order = repository.findById("ORD" + i).get();
+                    order.setStatus(OrderStatus.PAID);
+                    order.appendHistory("round " + round);
+                    repository.save(order);
+                }
+            }
+            for (int i = 0; i < 5000; i += 5) {
+                store.compute("ORD" + i, (id, previous) -> null);
+            }
+
+            assertEquals(4000, repository.count());
+            assertEquals(4000, repository.findAll().stream().count());
+            assertEquals(2000, repository.countByStatus(OrderStatus.PAID));
+            assertEquals(2000, repository.findByStatus(OrderStatus.PENDING).size());
+            assertEquals(500, repository.findByCustomerId("CUST3").size());
+            assertTrue(repository.findByCustomerId("CUST5").isEmpty());
+            assertTrue(repository.findByCustomerId("nobody").isEmpty());
+            assertTrue(store.getArenaBytes() <= 3 * store.getRecordBytes() + 64 * 4096,
+                    store.getArenaBytes() + " arena bytes for " + store.getRecordBytes() + " in use");
+            for (int i = 0; i < 5000; i++) {
+                Order order = repository.findById("ORD" + i).orElse(null);
+                if (i % 5 == 0) {
+                    assertNull(order);
+                    continue;
+                }
+                assertEquals(new BigDecimal(i), order.getTotalAmount());
+                assertEquals("P" + (i % 3), order.getItems().get(0).getItemId());
+                assertEquals(i % 2 == 0 ? 20 : 0, order.getHistory().size());
+            }
+        }
+    }
+
+    @Test
+    void savingAStaleCopyFailsInsteadOfLosingAnUpdate() throws Exception {
+        try (OrderRepository repository = new OrderRepository(new ColumnarOrderStore())) {
+            repository.save(new Order("ORD1", "CUST1", null, BigDecimal.TEN));
+            Order first = repository.findById("ORD1").get();
+            Order second = repository.findById("ORD1").get();
+            first.setStatus(OrderStatus.PAID);
+            repository.save(first);
+            second.setStatus(OrderStatus.CANCELLED);
+            assertThrows(ConcurrentModificationException.class, () -> repository.save(second));
+            assertEquals(OrderStatus.PAID, repository.findById("ORD1").get().getStatus());
+
+            // The saved copy stays current, and an order that was never read replaces the record
+            first.setStatus(OrderStatus.SHIPPED);
+            repository.save(first);
+            repository.save(new Order("ORD1", "CUST2", null, BigDecimal.ONE));
+            assertEquals("CUST2", repository.findById("ORD1").get().getCustomerId());
+            assertThrows(ConcurrentModificationException.class, () -> repository.save(first));
+        }
+    }
+
+    @Test
+    void customerAndStatusLookupsFollowChangesAndRemovals() throws Exception {
+        ColumnarStoreOptions options = new ColumnarStoreOptions();
+        options.setInitialCapacity(1);
+        ColumnarOrderStore store = new ColumnarOrderStore(options);
+        Random random = new Random(42);
+        try (OrderRepository repository = new OrderRepository(store)) {
+            for (int i = 0; i < 20000; i++) {
+                String id = "ORD" + random.nextInt(3000);
+                if (random.nextInt(10) == 0) {
+                    store.compute(id, (key, previous) -> null);
+                    continue;
+                }
+                Order order = repository.findById(id).orElseGet(() -> new Order(id, null, null, BigDecimal.ONE));
+                int customer = random.nextInt(60);
+                order.setCustomerId(customer == 0 ? null : "CUST" + customer);
+                int status = random.nextInt(OrderStatus.values().length + 1);
+                order.setStatus(status == 0 ? null : OrderStatus.values()[status - 1]);
+                repository.save(order);
+            }
+
+            List<Order> all = new ArrayList<>(repository.findAll());
+            for (int customer = 1; customer < 60; customer++) {
+                String customerId = "CUST" + customer;
+                assertEquals(ids(all.stream().filter(o -> customerId.equals(o.getCustomerId())).collect(Collectors.toList())),
+                        ids(repository.findByCustomerId(customerId)), customerId);
+            }
+            for (OrderStatus status : OrderStatus.values()) {
+                List<Order> expected = all.stream().filter(o -> o.getStatus() == status).collect(Collectors.toList());
+                assertEquals(ids(expected), ids(repository.findByStatus(status)), status.name());
+                assertEquals(expected.size(), repository.countByStatus(status));
+            }
+        }
+    }
+
+    private static Set<String> ids(List<Order> orders) {
+        Set<String> ids = new HashSet<>();
+        for (Order order : orders) {
+            assertTrue(ids.add(order.getOrderId()), "Listed twice: " + order.getOrderId());
+        }
+        return ids;
+    }
+}
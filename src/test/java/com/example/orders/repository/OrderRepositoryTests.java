@@ -0,0 +1,67 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderRepositoryTests {
+
+    @Test
+    void indexesFollowStatusAndCustomerChanges() {
+        OrderRepository repository = new OrderRepository();
+        Order order = new Order("ORD1", "CUST1", null, new BigDecimal("10.00"));
+        repository.save(order);
+        repository.save(new Order("ORD2", "CUST1", null, new BigDecimal("20.00")));
+
+        order.setStatus(OrderStatus.PAID);
+        order.setCustomerId("CUST2");
+        repository.save(order);
+
+        assertEquals(1, repository.countByStatus(OrderStatus.PENDING));
+        assertEquals(1, repository.countByStatus(OrderStatus.PAID));
+        assertEquals("ORD1", repository.findByStatus(OrderStatus.PAID).get(0).getOrderId());
+        assertEquals("ORD2", repository.findByCustomerId("CUST1").get(0).getOrderId());
+        assertEquals(1, repository.findByCustomerId("CUST2").size());
+        assertTrue(repository.findByCustomerId("nobody").isEmpty());
+    }
+
+    @Test
+    void indexesStayConsistentUnderConcurrentWriters() throws Exception {
+        OrderRepository repository = new OrderRepository();
+        int orders = 2000;
+        Thread[] writers = new Thread[8];
+        for (int t = 0; t < writers.length; t++) {
+            int seed = t;
+            writers[t] = new Thread(() -> {
+                // Every writer moves every order through statuses, racing the others
+                for (int i = 0; i < orders; i++) {
+                    String id = "ORD" + i;
+                    Order order = new Order(id, "CUST" + (i % 13), null, BigDecimal.ONE);
+                    order.setStatus(OrderStatus.values()[(i + seed) % OrderStatus.values().length]);
+                    repository.save(order);
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread w : writers) {
+            w.join();
+        }
+
+        long total = 0;
+        for (OrderStatus status : OrderStatus.values()) {
+            long scanned = repository.findAll().stream().filter(o -> o.getStatus() == status).count();
+            assertEquals(scanned, repository.countByStatus(status), status.name());
+            assertEquals(scanned, repository.findByStatus(status).size(), status.name());
+            total += repository.countByStatus(status);
+        }
+        assertEquals(orders, total);
+        assertEquals(repository.findAll().stream().filter(o -> o.getCustomerId().equals("CUST3"))
+                        .map(Order::getOrderId).collect(Collectors.toSet()),
+                repository.findByCustomerId("CUST3").stream().map(Order::getOrderId).collect(Collectors.toSet()));
+    }
+}
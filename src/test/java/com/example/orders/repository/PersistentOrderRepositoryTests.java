@@ -0,0 +1,175 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.HistoryNote;
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderItem;
+import com.example.orders.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistentOrderRepositoryTests {
+
+    @TempDir
+    Path dir;
+
+    private PersistenceOptions options() {
+        PersistenceOptions options = new PersistenceOptions();
+        options.setSnapshotIntervalSeconds(0);
+        return options;
+    }
+
+    @Test
+    void restartRestoresSnapshotPlusLogTail() throws Exception {
+        try (PersistentOrderRepository repository = PersistentOrderRepository.open(dir, options())) {
+            for (int i = 0; i < 100; i++) {
+                repository.save(order("ORD" + i, OrderStatus.PENDING));
+            }
+            repository.snapshot();
+            // Changes after the snapshot only exist in the log tail
+            Order paid = repository.findById("ORD7").orElseThrow();
+            paid.setStatus(OrderStatus.PAID);
+            paid.appendHistory("2025-07-29T10:01:00Z - PaymentReceived - Payment received in full: 100.00");
+            repository.save(paid);
+            repository.save(order("ORD100", OrderStatus.CANCELLED));
+        }
+        assertEquals(1, OrderSnapshots.segments(dir).size());
+
+        try (PersistentOrderRepository reopened = PersistentOrderRepository.open(dir, options())) {
+            assertEquals(101, reopened.findAll().size());
+            Order paid = reopened.findById("ORD7").orElseThrow();
+            assertEquals(OrderStatus.PAID, paid.getStatus());
+            assertEquals(2, paid.getEventHistory().size());
+            assertEquals(new BigDecimal("100.00"), paid.getTotalAmount());
+            assertEquals(Arrays.asList("P1", "P2"), Arrays.asList(paid.getItems().get(0).getItemId(), paid.getItems().get(1).getItemId()));
+            assertEquals(OrderStatus.CANCELLED, reopened.findById("ORD100").orElseThrow().getStatus());
+        }
+    }
+
+    @Test
+    void compactHistoryRoundTripsThroughTheLog() throws Exception {
+        Order order = order("ORD1", OrderStatus.SHIPPED);
+        Instant at = Instant.parse("2025-07-29T10:01:00Z");
+        order.getHistory().addAmount(at, "PaymentReceived", HistoryNote.PAID_IN_FULL, new BigDecimal("100.00"));
+        order.getHistory().addDate(at, "ShippingScheduled", HistoryNote.SHIPPING_SCHEDULED, LocalDate.of(2025, 7, 30));
+        order.getHistory().addText(at, "OrderCancelled", HistoryNote.ORDER_CANCELLED, "too late");
+        List<String> expected = new ArrayList<>(order.getEventHistory());
+
+        try (PersistentOrderRepository repository = PersistentOrderRepository.open(dir, options())) {
+            repository.save(order);
+        }
+        try (PersistentOrderRepository reopened = PersistentOrderRepository.open(dir, options())) {
+            Order restored = reopened.findById("ORD1").orElseThrow();
+            assertEquals(expected, restored.getEventHistory());
+            assertEquals(HistoryNote.SHIPPING_SCHEDULED, restored.getHistory().getNote(2));
+        }
+    }
+
+    @Test
+    void laterSavesLogOnlyTheChangeAndAreFoldedOnRecovery() throws Exception {
+        List<String> expected;
+        try (PersistentOrderRepository repository = PersistentOrderRepository.open(dir, options())) {
+            Order order = order("ORD1", OrderStatus.PENDING);
+            repository.save(order);
+            for (int i = 0; i < 50; i++) {
+                order.appendHistory("2025-07-29T10:00:00Z - PaymentReceived - Partial payment received: " + i);
+                repository.save(order);
+            }
+            repository.flush();
+            long logBytes = 0;
+            for (long segment : OrderLog.segments(dir)) {
+                logBytes += Files.size(OrderLog.segmentPath(dir, segment));
+            }
+            // Each save logs one history line, not the whole history again
+            assertTrue(logBytes < 51 * 200, "log bytes " + logBytes);
+
+            order.setStatus(OrderStatus.PAID);
+            repository.save(order);
+            repository.snapshot();
+            order.setStatus(OrderStatus.SHIPPED);
+            order.appendHistory("2025-07-29T11:00:00Z - ShippingScheduled - Shipping scheduled for 2025-07-30");
+            repository.save(order);
+            expected = new ArrayList<>(order.getEventHistory());
+        }
+        try (PersistentOrderRepository reopened = PersistentOrderRepository.open(dir, options())) {
+            Order restored = reopened.findById("ORD1").orElseThrow();
+            assertEquals(OrderStatus.SHIPPED, restored.getStatus());
+            assertEquals(expected, restored.getEventHistory());
+            assertEquals(new BigDecimal("100.00"), restored.getTotalAmount());
+            restored.setStatus(OrderStatus.CANCELLED);
+            reopened.save(restored);
+        }
+        try (PersistentOrderRepository reopened = PersistentOrderRepository.open(dir, options())) {
+            Order restored = reopened.findById("ORD1").orElseThrow();
+            assertEquals(OrderStatus.CANCELLED, restored.getStatus());
+            assertEquals(expected, restored.getEventHistory());
+        }
+    }
+
+    @Test
+    void tornTailRecordIsIgnoredOnRecovery() throws Exception {
+        try (PersistentOrderRepository repository = PersistentOrderRepository.open(dir, options())) {
+            repository.save(order("ORD1", OrderStatus.PENDING));
+            repository.save(order("ORD2", OrderStatus.PENDING));
+        }
+        List<Long> segments = OrderLog.segments(dir);
+        Path last = OrderLog.segmentPath(dir, segments.get(segments.size() - 1));
+        // Simulate a crash in the middle of writing the last record
+        try (FileChannel channel = FileChannel.open(last, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(last) - 5);
+        }
+
+        try (PersistentOrderRepository reopened = PersistentOrderRepository.open(dir, options())) {
+            assertTrue(reopened.existsById("ORD1"));
+            assertFalse(reopened.existsById("ORD2"));
+            reopened.save(order("ORD3", OrderStatus.PENDING));
+        }
+        try (PersistentOrderRepository reopened = PersistentOrderRepository.open(dir, options())) {
+            assertEquals(2, reopened.findAll().size());
+        }
+    }
+
+    @Test
+    void concurrentSavesShareGroupCommits() throws Exception {
+        PersistenceOptions options = options();
+        options.setSyncOnSave(true);
+        options.setCommitIntervalMillis(5);
+        try (PersistentOrderRepository repository = PersistentOrderRepository.open(dir, options)) {
+            Thread[] writers = new Thread[8];
+            for (int t = 0; t < writers.length; t++) {
+                int base = t * 50;
+                writers[t] = new Thread(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        repository.save(order("ORD" + (base + i), OrderStatus.PENDING));
+                    }
+                });
+                writers[t].start();
+            }
+            for (Thread w : writers) {
+                w.join();
+            }
+            assertEquals(400, repository.getLogRecords());
+            assertTrue(repository.getLogFsyncs() < 400, "fsyncs=" + repository.getLogFsyncs());
+        }
+    }
+
+    private static Order order(String id, OrderStatus status) {
+        Order order = new Order(id, "CUST1", Arrays.asList(new OrderItem("P1", 1), new OrderItem("P2", 3)),
+                new BigDecimal("100.00"));
+        order.setStatus(status);
+        order.appendHistory("2025-07-29T10:00:00Z - OrderCreated - Order created");
+        return order;
+    }
+}
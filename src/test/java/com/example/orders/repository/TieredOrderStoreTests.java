@@ -0,0 +1,106 @@
+package com.example.orders.repository;
+
+import com.example.orders.model.Order;
+import com.example.orders.model.OrderItem;
+import com.example.orders.model.OrderStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TieredOrderStoreTests {
+
+    @Test
+    void evictedOrdersAreFaultedBackIn(@TempDir Path dir) throws Exception {
+        TieredStoreOptions options = options(dir);
+        options.setMaxCachedOrders(64);
+        options.setSpillTerminalOrders(false);
+        TieredOrderStore store = new TieredOrderStore(options);
+        try (OrderRepository repository = new OrderRepository(store)) {
+            for (int i = 0; i < 1000; i++) {
+                Order order = new Order("ORD" + i, "CUST" + (i % 7),
+                        Collections.singletonList(new OrderItem("P" + i, 2)), new BigDecimal(i + ".50"));
+                order.setStatus(i % 2 == 0 ? OrderStatus.PAID : OrderStatus.PENDING);
+                repository.save(order);
+            }
+
+            assertEquals(1000, repository.count());
+            assertTrue(store.getCachedOrders() <= 64, "cached " + store.getCachedOrders());
+            assertTrue(store.getEvictions() >= 936);
+            for (int i = 0; i < 1000; i++) {
+                Order order = repository.findById("ORD" + i).get();
+                assertEquals(new BigDecimal(i + ".50"), order.getTotalAmount());
+                assertEquals("P" + i, order.getItems().get(0).getItemId());
+                assertEquals(i % 2 == 0 ? OrderStatus.PAID : OrderStatus.PENDING, order.getStatus());
+            }
+            assertTrue(store.getMisses() > 900, "misses " + store.getMisses());
+            assertFalse(repository.findById("ORD1000").isPresent());
+            assertEquals(1000, repository.findAll().size());
+            assertEquals(1000, repository.findAll().stream().count());
+            assertEquals(500, repository.findByStatus(OrderStatus.PAID).size());
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count(), "spill files are removed on close");
+        }
+    }
+
+    @Test
+    void terminalOrdersAreSpilledWhenSaved(@TempDir Path dir) throws Exception {
+        TieredOrderStore store = new TieredOrderStore(options(dir));
+        try (OrderRepository repository = new OrderRepository(store)) {
+            Order order = new Order("ORD1", "CUST1", Collections.emptyList(), BigDecimal.TEN);
+            repository.save(order);
+            assertEquals(1, store.getCachedOrders());
+
+            order.setStatus(OrderStatus.SHIPPED);
+            repository.save(order);
+            assertEquals(0, store.getCachedOrders());
+            assertEquals(1, store.getSpilledOrders());
+
+            assertEquals(OrderStatus.SHIPPED, repository.findById("ORD1").get().getStatus());
+            repository.findById("ORD1");
+            assertEquals(1, store.getMisses());
+            assertEquals(1, store.getHits());
+            assertEquals(0.5, store.getHitRate());
+            assertEquals(1, repository.countByStatus(OrderStatus.SHIPPED));
+        }
+    }
+
+    @Test
+    void compactionReclaimsSupersededRecords(@TempDir Path dir) throws Exception {
+        TieredStoreOptions options = options(dir);
+        options.setSegmentBytes(4096);
+        TieredOrderStore store = new TieredOrderStore(options);
+        try (OrderRepository repository = new OrderRepository(store)) {
+            for (int round = 0; round < 20; round++) {
+                for (int i = 0; i < 200; i++) {
+                    // Every other order is rewritten each round, leaving superseded records behind
+                    if (round == 0 || i % 2 == 0) {
+                        Order order = new Order("ORD" + i, "CUST1", Collections.emptyList(), new BigDecimal(round));
+                        order.setStatus(OrderStatus.CANCELLED);
+                        repository.save(order);
+                    }
+                }
+            }
+            store.compact();
+
+            assertTrue(store.getSpillFileBytes() <= 2 * store.getSpillLiveBytes() + 4096,
+                    store.getSpillFileBytes() + " bytes in files for " + store.getSpillLiveBytes() + " live");
+            assertEquals(new BigDecimal(19), repository.findById("ORD0").get().getTotalAmount());
+            assertEquals(BigDecimal.ZERO, repository.findById("ORD1").get().getTotalAmount());
+            assertEquals(200, repository.count());
+        }
+    }
+
+    private static TieredStoreOptions options(Path dir) {
+        TieredStoreOptions options = new TieredStoreOptions();
+        options.setDir(dir);
+        return options;
+    }
+}